@@ -0,0 +1,312 @@
+import com.sun.net.httpserver.*;
+import java.io.*;
+import java.net.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * An HTTP front end for a <code>SessionManager</code>, with one virtual thread per exchange. Bodies are JSON:
+ *
+ * <pre>
+ * POST /sessions/{id}/messages	  {"statement": text}											  -&gt; {"response": text}
+ * POST /batch					  [{"session": id, "statement": text}, ...]						  -&gt; [{"response": text}, ...]
+ * </pre>
+ *
+ * A batch answers its turns in the order they were given. Turns of the same session are taken in that order, and turns of
+ * different sessions in parallel. Each distinct statement of a batch is normalized once, and tokenized and matched against
+ * the keyword rules at most once, however many sessions send it. A request that fails is answered with <code>{"error": message}</code>,
+ * and so is a turn of a batch that fails, in its place.
+ *
+ * @author	Thanasi Bakis
+ */
+public class ChatServer implements AutoCloseable
+{
+	private static final int SHARED_CACHE_SIZE = 10000, MAX_BODY_BYTES = 1 << 20;
+	private static final String SESSIONS = "/sessions/", MESSAGES = "/messages", BATCH = "/batch";
+
+	static
+	{
+		// The server writes the headers and the body of an answer separately, so with Nagle's algorithm on, the body of every answer
+		// on a kept-alive connection waits for the client's delayed ACK of the headers. The setting is read when the first server is created.
+		if(System.getProperty("sun.net.httpserver.nodelay") == null)
+		{
+			System.setProperty("sun.net.httpserver.nodelay", "true");
+		}
+	}
+
+	private final HttpServer server;
+	private final ExecutorService executor;
+	private final SessionManager sessions;
+
+	/**
+	 * Starts serving sessions.
+	 *
+	 * @param address		 the address to listen on
+	 * @param sessions		 the sessions to serve
+	 * @throws IOException	 if the address can't be bound
+	 * @version 2026.10.18
+	 */
+	public ChatServer(InetSocketAddress address, SessionManager sessions) throws IOException
+	{
+		this.sessions = sessions;
+		executor = Executors.newVirtualThreadPerTaskExecutor();
+		server = HttpServer.create(address, 0);
+		server.setExecutor(executor);
+		server.createContext(SESSIONS, exchange -> serve(exchange, this::message));
+		server.createContext(BATCH, exchange -> serve(exchange, this::batch));
+		server.start();
+	}
+
+	/**
+	 * Warms up, then serves sessions over HTTP on the loopback address until the process is killed.
+	 * Sessions that are idle for longer than the idle timeout are passivated into the archive directory, or compressed in memory without one.
+	 *
+	 * @param args		 the port to listen on, and optionally how long a session may be idle before it is passivated, in milliseconds,
+	 * 					 followed by the archive directory
+	 * @throws IOException	 if the port can't be bound or the archive directory can't be created
+	 * @version 2026.10.18
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		if(args.length < 1)
+		{
+			System.err.println("Usage: java ChatServer <port> [idle timeout ms [archive directory]]");
+			System.exit(2);
+		}
+
+		long idleTimeout = args.length > 1 ? Long.parseLong(args[1]) : 0;
+		SessionArchive archive = args.length > 2 ? SessionArchive.onDisk(Paths.get(args[2])) : SessionArchive.inMemory();
+		System.out.println("Warm-up: " + Warmup.run(5000));
+		ChatServer server = new ChatServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(args[0])),
+										   SessionManager.start(idleTimeout, new ResponseCache(SHARED_CACHE_SIZE), null, archive));
+		System.out.println("Chat server listening on port " + server.getPort());
+	}
+
+	/**
+	 * Get the port the server listens on.
+	 *
+	 * @return			 the port
+	 * @version 2026.10.18
+	 */
+	public int getPort()
+	{
+		return server.getAddress().getPort();
+	}
+
+	/**
+	 * Stops accepting requests, waits for the requests in progress to finish, and closes the sessions.
+	 *
+	 * @version 2026.10.18
+	 */
+	public void close()
+	{
+		server.stop(0);
+		executor.close();
+		sessions.close();
+	}
+
+	/**
+	 * Answers one exchange: checks that it is a POST, reads its body and writes the JSON answer or the error.
+	 *
+	 * @param exchange		 the exchange
+	 * @param handler		 gives the answer to a request from its path and body
+	 * @throws IOException	 if the exchange can't be read or written
+	 * @version 2026.10.18
+	 */
+	private static void serve(HttpExchange exchange, Handler handler) throws IOException
+	{
+		int status = 200;
+		String answer;
+
+		try
+		{
+			if(!exchange.getRequestMethod().equals("POST"))
+			{
+				exchange.getResponseHeaders().set("Allow", "POST");
+				throw new HttpException(405, "Only POST is allowed");
+			}
+
+			byte[] body = exchange.getRequestBody().readNBytes(MAX_BODY_BYTES + 1);
+
+			if(body.length > MAX_BODY_BYTES)
+			{
+				throw new HttpException(413, "The body is longer than " + MAX_BODY_BYTES + " bytes");
+			}
+
+			answer = handler.answer(exchange.getRequestURI().getPath(), new String(body, StandardCharsets.UTF_8));
+		}
+		catch(HttpException e)
+		{
+			status = e.status;
+			answer = Json.object("error", e.getMessage());
+		}
+		catch(IllegalArgumentException e)
+		{
+			status = 400;
+			answer = Json.object("error", String.valueOf(e.getMessage()));
+		}
+		catch(Exception e)
+		{
+			status = 500;
+			answer = Json.object("error", String.valueOf(e));
+		}
+
+		byte[] bytes = answer.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+		exchange.sendResponseHeaders(status, bytes.length);
+
+		try(OutputStream out = exchange.getResponseBody())
+		{
+			out.write(bytes);
+		}
+	}
+
+	/**
+	 * Answers <code>POST /sessions/{id}/messages</code>.
+	 *
+	 * @param path			 the decoded path of the request
+	 * @param body			 the body of the request
+	 * @return				 the answer
+	 * @throws Exception	 if the request is invalid or the turn fails
+	 * @version 2026.10.18
+	 */
+	private String message(String path, String body) throws Exception
+	{
+		if(!path.endsWith(MESSAGES) || path.length() <= SESSIONS.length() + MESSAGES.length())
+		{
+			throw new HttpException(404, "No such resource: " + path);
+		}
+
+		String id = path.substring(SESSIONS.length(), path.length() - MESSAGES.length());
+
+		if(id.indexOf('/') >= 0)
+		{
+			throw new HttpException(404, "No such resource: " + path);
+		}
+
+		String statement = required(Json.parseObject(body), "statement");
+
+		try
+		{
+			return Json.object("response", sessions.respond(id, statement).get());
+		}
+		catch(ExecutionException e)
+		{
+			throw new HttpException(500, String.valueOf(e.getCause()));
+		}
+	}
+
+	/**
+	 * Answers <code>POST /batch</code>. Every turn is given to its session before any answer is waited for,
+	 * and turns with the same statement share one <code>Magpie.Analysis</code>.
+	 *
+	 * @param path			 the decoded path of the request
+	 * @param body			 the body of the request
+	 * @return				 the answer
+	 * @throws Exception	 if the request is invalid
+	 * @version 2026.10.18
+	 */
+	private String batch(String path, String body) throws Exception
+	{
+		if(!path.equals(BATCH))
+		{
+			throw new HttpException(404, "No such resource: " + path);
+		}
+
+		List<Map<String, String>> turns = Json.parseArray(body);
+		List<CompletableFuture<String>> responses = new ArrayList<CompletableFuture<String>>(turns.size());
+		Map<String, Magpie.Analysis> analyses = new HashMap<String, Magpie.Analysis>();
+
+		// Every turn is checked before any is given to a session, so an invalid batch changes no conversation
+		for(Map<String, String> turn : turns)
+		{
+			required(turn, "session");
+			required(turn, "statement");
+		}
+
+		for(Map<String, String> turn : turns)
+		{
+			Magpie.Analysis analysis = analyses.computeIfAbsent(turn.get("statement"), Magpie.Analysis::new);
+			responses.add(sessions.respond(turn.get("session"), analysis));
+		}
+
+		StringJoiner answer = new StringJoiner(",", "[", "]");
+
+		for(CompletableFuture<String> response : responses)
+		{
+			try
+			{
+				answer.add(Json.object("response", response.get()));
+			}
+			catch(ExecutionException e)
+			{
+				answer.add(Json.object("error", String.valueOf(e.getCause())));
+			}
+		}
+
+		return answer.toString();
+	}
+
+	/**
+	 * Get a member of a request that must be there.
+	 *
+	 * @param request		 the members of the request
+	 * @param name			 the name of the member
+	 * @return				 the value of the member
+	 * @throws IllegalArgumentException	 if the member is missing or null
+	 * @version 2026.10.18
+	 */
+	private static String required(Map<String, String> request, String name)
+	{
+		String value = request.get(name);
+
+		if(value == null)
+		{
+			throw new IllegalArgumentException("Missing " + name);
+		}
+
+		return value;
+	}
+
+	/**
+	 * Gives the JSON answer to a request.
+	 */
+	private interface Handler
+	{
+		/**
+		 * Gives the answer to a request.
+		 *
+		 * @param path			 the decoded path of the request
+		 * @param body			 the body of the request
+		 * @return				 the answer
+		 * @throws Exception	 if the request is invalid or fails
+		 * @version 2026.10.18
+		 */
+		String answer(String path, String body) throws Exception;
+	}
+
+	/**
+	 * A request that is answered with an HTTP status other than 200.
+	 */
+	private static final class HttpException extends Exception
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final int status;
+
+		/**
+		 * Creates the exception.
+		 *
+		 * @param status	 the HTTP status
+		 * @param message	 what went wrong
+		 * @version 2026.10.18
+		 */
+		private HttpException(int status, String message)
+		{
+			super(message);
+			this.status = status;
+		}
+	}
+}
@@ -0,0 +1,227 @@
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.Arrays;
+
+/**
+ * Reads lines from and writes lines to a pair of channels through large buffers that are reused for every line.
+ * Output is only written when the output buffer is full, when <code>flush</code> is called, and before a read that has to wait
+ * for more input, so a reply is always out before the next statement is waited for. When the input is a terminal,
+ * every line is also written as soon as it is complete, like <code>System.out.println</code>.
+ *
+ * @author	Thanasi Bakis
+ */
+public class ConsoleIO implements Closeable, Flushable
+{
+	private static final int BUFFER_SIZE = 1 << 16;
+	private static final String LINE_SEPARATOR = System.lineSeparator();
+
+	private final ReadableByteChannel in;
+	private final WritableByteChannel out;
+	private final Charset inCharset;
+	private final CharsetEncoder encoder;
+	private final boolean lineFlushing;
+	private final ByteBuffer input = ByteBuffer.allocate(BUFFER_SIZE), output = ByteBuffer.allocate(BUFFER_SIZE);
+	private byte[] line = new byte[256];
+
+	/**
+	 * Creates a console on two channels.
+	 *
+	 * @param in			 the channel to read lines from
+	 * @param inCharset		 the charset of the input
+	 * @param out			 the channel to write lines to
+	 * @param outCharset	 the charset of the output; characters it can't encode are replaced
+	 * @param lineFlushing	 whether every line is written as soon as it is complete
+	 * @version 2026.10.18
+	 */
+	public ConsoleIO(ReadableByteChannel in, Charset inCharset, WritableByteChannel out, Charset outCharset, boolean lineFlushing)
+	{
+		this.in = in;
+		this.inCharset = inCharset;
+		this.out = out;
+		this.lineFlushing = lineFlushing;
+		encoder = outCharset.newEncoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+		input.flip();
+	}
+
+	/**
+	 * Creates a console on standard input and output, with the charsets <code>Scanner</code> and <code>System.out</code> use.
+	 * Lines are flushed one at a time when standard input is a terminal, and in batches when it is piped or redirected.
+	 *
+	 * @return			 the console
+	 * @version 2026.10.18
+	 */
+	public static ConsoleIO standard()
+	{
+		return new ConsoleIO(Channels.newChannel(new FileInputStream(FileDescriptor.in)), Charset.defaultCharset(),
+							 new FileOutputStream(FileDescriptor.out).getChannel(), System.out.charset(), isTerminalInput());
+	}
+
+	/**
+	 * Determines whether standard input is a terminal. Where the process can see its own file descriptors, the one for standard input
+	 * is checked directly. Elsewhere the <code>Console</code> decides: from Java 22 there may be one even when the streams are redirected,
+	 * and it says whether it is a terminal, while before that there is only one when both standard input and output are terminals.
+	 *
+	 * @return			 whether standard input is a terminal
+	 * @version 2026.10.18
+	 */
+	private static boolean isTerminalInput()
+	{
+		try
+		{
+			String input = Files.readSymbolicLink(Paths.get("/proc/self/fd/0")).toString();
+			return input.startsWith("/dev/pts/") || input.startsWith("/dev/tty");
+		}
+		catch(IOException | UnsupportedOperationException | InvalidPathException e)
+		{
+			// No /proc, so not Linux
+		}
+
+		Console console = System.console();
+
+		if(console == null)
+		{
+			return false;
+		}
+
+		try
+		{
+			return (Boolean) Console.class.getMethod("isTerminal").invoke(console);
+		}
+		catch(ReflectiveOperationException e)
+		{
+			return true;
+		}
+	}
+
+	/**
+	 * Reads the next line, without its line terminator.
+	 *
+	 * @return				 the line, or null at the end of the input
+	 * @throws IOException	 if the input can't be read or the output can't be written
+	 * @version 2026.10.18
+	 */
+	public String readLine() throws IOException
+	{
+		int length = 0;
+
+		while(true)
+		{
+			while(input.hasRemaining())
+			{
+				byte b = input.get();
+
+				if(b == '\n')
+				{
+					return decode(length);
+				}
+
+				if(length == line.length)
+				{
+					line = Arrays.copyOf(line, length * 2);
+				}
+
+				line[length++] = b;
+			}
+
+			// Whoever is on the other end may be waiting for the replies so far before they send more
+			flush();
+			input.clear();
+			int read = in.read(input);
+			input.flip();
+
+			if(read < 0)
+			{
+				return length > 0 ? decode(length) : null;
+			}
+		}
+	}
+
+	/**
+	 * Writes a line, followed by the line separator of the platform.
+	 *
+	 * @param text			 the line
+	 * @throws IOException	 if the output can't be written
+	 * @version 2026.10.18
+	 */
+	public void println(String text) throws IOException
+	{
+		encode(CharBuffer.wrap(text));
+		encode(CharBuffer.wrap(LINE_SEPARATOR));
+
+		if(lineFlushing)
+		{
+			flush();
+		}
+	}
+
+	/**
+	 * Writes everything still in the output buffer.
+	 *
+	 * @throws IOException	 if the output can't be written
+	 * @version 2026.10.18
+	 */
+	public void flush() throws IOException
+	{
+		output.flip();
+
+		while(output.hasRemaining())
+		{
+			out.write(output);
+		}
+
+		output.clear();
+	}
+
+	/**
+	 * Writes everything still in the output buffer. The channels are left open, since standard input and output belong to the process.
+	 *
+	 * @throws IOException	 if the output can't be written
+	 * @version 2026.10.18
+	 */
+	public void close() throws IOException
+	{
+		flush();
+	}
+
+	/**
+	 * Decodes the line read so far, dropping the carriage return of a Windows line terminator.
+	 *
+	 * @param length	 the number of bytes in the line
+	 * @return			 the line
+	 * @version 2026.10.18
+	 */
+	private String decode(int length)
+	{
+		if(length > 0 && line[length - 1] == '\r')
+		{
+			length--;
+		}
+
+		return new String(line, 0, length, inCharset);
+	}
+
+	/**
+	 * Encodes characters into the output buffer, writing the buffer out whenever it fills up.
+	 *
+	 * @param text			 the characters
+	 * @throws IOException	 if the output can't be written
+	 * @version 2026.10.18
+	 */
+	private void encode(CharBuffer text) throws IOException
+	{
+		encoder.reset();
+
+		while(encoder.encode(text, output, true).isOverflow())
+		{
+			flush();
+		}
+
+		while(encoder.flush(output).isOverflow())
+		{
+			flush();
+		}
+	}
+}
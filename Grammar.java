@@ -1,4 +1,5 @@
 import java.util.*;
+import java.util.function.Function;
 
 /**
  * A class that performs analysis of the grammar of a statement.
@@ -8,58 +9,217 @@ import java.util.*;
 public class Grammar
 {
     private static final String[] MODAL_AUXILIARIES  = {"can", "could", "may", "might", "must", "shall", "should", "will", "would"},
-                           		  QUESTION_WORDS     = {"who", "what", "when", "where", "how", "which"},
-                          		  SUBJECT_PRONOUNS   = {"i", "you", "he", "she", "it", "that", "we", "they"},
-                           		  OBJECT_PRONOUNS    = {"me", "you", "him", "her", "it", "that", "us", "them"},
-                          		  BE_VERBS           = {"am", "are", "is", "is", "is", "is", "are", "are"};
+                           		  QUESTION_WORDS     = {"who", "what", "when", "where", "how", "which"};
+    
+    // The pronouns and be verbs of each point of view, in the order of its constants, with each word listed once
+    private static final String[] SUBJECT_PRONOUNS = pointOfViewWords(PointOfView::getSubjectPronoun),
+                                  OBJECT_PRONOUNS  = pointOfViewWords(PointOfView::getObjectPronoun),
+                                  BE_VERBS         = pointOfViewWords(PointOfView::getBeConjugation);
+    
+    /**
+     * The word classes a word in a <code>TokenizedStatement</code> may be tagged with.
+     */
+    public static final int MODAL_AUXILIARY = 0,
+                            QUESTION_WORD   = 1,
+                            SUBJECT_PRONOUN = 2,
+                            OBJECT_PRONOUN  = 3,
+                            BE_VERB         = 4;
+    
+    // Each contraction ending, and what it expands to after the word before it
+    private static final String[][] CONTRACTION_ENDINGS = {{"ll", " will"}, {"re", " " + PointOfView.SECOND.getBeConjugation()},
+                                                           {"s", " " + PointOfView.THIRD_NEUTER.getBeConjugation()},
+                                                           {"m", " " + PointOfView.FIRST_SINGULAR.getBeConjugation()}, {"ve", " have"}, {"d", " would"}},
+                                    IRREGULAR_NEGATIONS = {{"can", "cannot"}, {"won", "will not"}, {"shan", "shall not"}};
+    
+    // "ain't" is "not" after the be verb that agrees with the subject pronoun before it, or "is not" without one
+    private static final String BE_NEGATION_STEM = "ain";
+    
+    private static final int WORD_CLASS_BITS = 4,
+                     WORD_CLASS_MASK = (1 << WORD_CLASS_BITS) - 1;
+    
+    // The bits of a word class tag that mark the first and second words of a question bigram, and a question word
+    private static final int QUESTION_VERB_TAGS   = (WORD_CLASS_MASK << (MODAL_AUXILIARY * WORD_CLASS_BITS)) | (WORD_CLASS_MASK << (BE_VERB * WORD_CLASS_BITS)),
+                             SUBJECT_PRONOUN_TAGS = WORD_CLASS_MASK << (SUBJECT_PRONOUN * WORD_CLASS_BITS),
+                             QUESTION_WORD_TAGS   = WORD_CLASS_MASK << (QUESTION_WORD * WORD_CLASS_BITS);
+    
+    // The other words that the built-in rules of Magpie and its transformations look for, so they get ids of their own
+    private static final String[] RULE_WORDS = {"hi", "hello", "hey", "your", "name", "remember", "recall", "delete", "no", "play", "game",
+                                                "mother", "father", "sister", "brother", "family", "dog", "cat", "mr", "allen", "computer",
+                                                "science", "good", "favorite", "birthday", "feared", "questions", "want", "to", "like"};
+    
+    /**
+     * Every word that <code>Grammar</code> classifies or a built-in rule looks for, with the words of the word classes first.
+     * <code>TokenizedStatement</code> encodes its words with these ids.
+     */
+    public static final Vocabulary VOCABULARY;
+    
+    // The word classes of each word of the vocabulary, indexed by its id
+    private static final int[] WORD_CLASS_TAGS;
+    private static final String NOT_FOUND = generateStars(1000);
+    
+    static
+    {
+        String[][] wordClasses = {MODAL_AUXILIARIES, QUESTION_WORDS, SUBJECT_PRONOUNS, OBJECT_PRONOUNS, BE_VERBS};
+		List<String> words = new ArrayList<String>();
+		
+        for(String[] wordClass : wordClasses)
+		{
+			words.addAll(Arrays.asList(wordClass));
+		}
+		
+		words.addAll(Arrays.asList(RULE_WORDS));
+		VOCABULARY = new Vocabulary(words.toArray(new String[0]));
+		WORD_CLASS_TAGS = new int[VOCABULARY.size()];
+        
+        for(int wordClass = 0; wordClass < wordClasses.length; wordClass++)
+        {
+            for(int i = wordClasses[wordClass].length - 1; i >= 0; i--)
+            {
+                int id = VOCABULARY.id(wordClasses[wordClass][i]);
+                int shift = wordClass * WORD_CLASS_BITS;
+                
+                // Iterating backwards lets the first occurrence of a repeated word, such as "is", win
+                WORD_CLASS_TAGS[id] = (WORD_CLASS_TAGS[id] & ~(WORD_CLASS_MASK << shift)) | ((i + 1) << shift);
+            }
+        }
+    }
 	
     /**
      * A question is a statement where one of the following exists:
      *     - a modal auxiliary followed by a subject pronoun
      *     - a be verb followed by a subject pronoun
      *     - a question word
+     *     - a question mark
+	 * The statement is read once, checking each pair of words against the question bigrams. Like <code>wordAfter</code>, only the first
+	 * occurrence of each modal auxiliary and be verb starts a bigram, and its pronoun is the text from the character after it up to the next space.
 	 *
      * @param statement     a statement that may be a question
      * @return              whether the statement is a question
-	 * @version 2016.05.26
+	 * @version 2026.10.18
      */
-    public static boolean isQuestion(String statement)
+    public static boolean isQuestion(CharSequence statement)
     {
-        for(String word : MODAL_AUXILIARIES)
+		int checkedVerbs = 0, questionVerbEnd = -1, start = -1;
+		
+        for(int i = 0; i <= statement.length(); i++)
 		{
-            for(String pronoun : SUBJECT_PRONOUNS)
+			boolean isLetter = isLetterAt(statement, i);
+			
+            if(isLetter && start < 0)
+			{
+				start = i;
+			}
+            else if(!isLetter && start >= 0)
 			{
-				String wordAfterWord = wordAfter(statement, word);
+				int tag = wordClassTag(statement, start, i);
 				
-                if(pronoun.equals(wordAfterWord))
+                if(isQuestionBigram(statement, questionVerbEnd, start, i, tag))
 				{
                     return true;
 				}
+				
+				int verb = questionVerbBit(tag);
+				questionVerbEnd = verb != 0 && (checkedVerbs & verb) == 0 ? i : -1;
+				checkedVerbs |= verb;
+				start = -1;
+			}
+			
+            if(i < statement.length() && statement.charAt(i) == '?')
+			{
+                return true;
 			}
 		}
 		
-        for(String word : BE_VERBS)
+        return false;
+    }
+    
+    /**
+     * A question is a statement where one of the following exists:
+     *     - a modal auxiliary followed by a subject pronoun
+     *     - a be verb followed by a subject pronoun
+     *     - a question word
+     *     - a question mark
+	 * Each pair of words is checked against the question bigrams, with the same rules as <code>isQuestion(CharSequence)</code>.
+	 *
+     * @param statement     a tokenized statement that may be a question
+     * @return              whether the statement is a question
+	 * @version 2026.10.18
+     */
+    public static boolean isQuestion(TokenizedStatement statement)
+    {
+		String text = statement.toString();
+		int checkedVerbs = 0, questionVerbEnd = -1;
+		
+        for(int i = 0; i < statement.wordCount(); i++)
 		{
-            for(String pronoun : SUBJECT_PRONOUNS)
+			int tag = statement.wordClassTag(i);
+			
+            if(isQuestionBigram(text, questionVerbEnd, statement.wordStart(i), statement.wordEnd(i), tag))
 			{
-				String wordAfterWord = wordAfter(statement, word);
-				
-                if(pronoun.equals(wordAfterWord))
-				{
-                    return true;
-				}
+                return true;
 			}
+			
+			int verb = questionVerbBit(tag);
+			questionVerbEnd = verb != 0 && (checkedVerbs & verb) == 0 ? statement.wordEnd(i) : -1;
+			checkedVerbs |= verb;
+		}
+		
+        return text.indexOf('?') >= 0;
+    }
+    
+    /**
+     * Checks a word against the question bigrams, given where the modal auxiliary or be verb before it ends, if one starts a bigram.
+     * The word completes the bigram when it is a subject pronoun in lowercase that starts one character after the verb and ends at a space
+     * or at the end of the statement, so that "will you." and "can you," are not questions.
+	 *
+     * @param statement             the statement
+     * @param questionVerbEnd       where the verb that starts a bigram ends, or -1 if the word before does not start one
+     * @param start                 where the word starts
+     * @param end                   where the word ends
+     * @param tag                   the word class tag of the word
+     * @return                      whether the word is a question word, or completes a question bigram
+	 * @version 2026.10.18
+     */
+    private static boolean isQuestionBigram(CharSequence statement, int questionVerbEnd, int start, int end, int tag)
+    {
+        if((tag & QUESTION_WORD_TAGS) != 0)
+		{
+            return true;
+		}
+		
+        if(questionVerbEnd < 0 || start != questionVerbEnd + 1 || (tag & SUBJECT_PRONOUN_TAGS) == 0
+        || (end < statement.length() && statement.charAt(end) != ' '))
+		{
+            return false;
 		}
 		
-        for(String word : QUESTION_WORDS)
+        for(int i = start; i < end; i++)
 		{
-            if(findKeyword(statement, word) >= 0)
+            if(!Character.isLowerCase(statement.charAt(i)))
 			{
-                return true;
+                return false;
 			}
 		}
 		
-        return statement.indexOf('?') >= 0;
+        return true;
+    }
+    
+    /**
+     * Gets a bit that stands for a word if it is a modal auxiliary or be verb, so that only its first occurrence starts a question bigram.
+	 *
+     * @param tag           the word class tag of the word
+     * @return              the bit of the verb, or 0 if the word is neither
+	 * @version 2026.10.18
+     */
+    private static int questionVerbBit(int tag)
+    {
+        if((tag & QUESTION_VERB_TAGS) == 0)
+		{
+            return 0;
+		}
+		
+		int modalAuxiliary = wordClassIndex(tag, MODAL_AUXILIARY);
+        return modalAuxiliary >= 0 ? 1 << modalAuxiliary : 1 << (16 + wordClassIndex(tag, BE_VERB));
     }
     
     /**
@@ -71,6 +231,19 @@ public class Grammar
 	 * @version 2016.05.26
      */
     public static String wordAfter(String statement, String word)
+    {
+        return wordAfter(new TokenizedStatement(statement), word);
+    }
+    
+    /**
+     * Finds the word after a specified word in a tokenized statment.
+	 *
+     * @param statement     the tokenized statement that contains the word that is being searched for
+     * @param word          the specified word that lies before the unknown word that the user is looking for
+     * @return              the word after the specified word
+	 * @version 2026.10.18
+     */
+    public static String wordAfter(TokenizedStatement statement, String word)
     {
 		int positionOfWord = findKeyword(statement, word);
 		
@@ -79,18 +252,7 @@ public class Grammar
 			return "";
 		}
 		
-        for(int i = positionOfWord + word.length() + 1; i < statement.length(); i++)
-        {
-            if(statement.charAt(i) == ' ')
-			{
-				return statement.substring(positionOfWord + word.length() + 1, i);
-			}
-            else if(i == statement.length() - 1)
-			{
-				return statement.substring(positionOfWord + word.length() + 1);
-			}
-        }
-        return "";
+        return wordAt(statement.toString(), positionOfWord + word.length() + 1);
     }
     
     /**
@@ -102,6 +264,19 @@ public class Grammar
 	 * @version 2016.05.26
      */
     public static String wordBefore(String statement, String word)
+    {
+        return wordBefore(new TokenizedStatement(statement), word);
+    }
+    
+    /**
+     * Finds the word before a specified word in a tokenized statment.
+	 *
+     * @param statement     the tokenized statement that contains the word that is being searched for
+     * @param word          the specified word that lies after the unknown word that the user is looking for
+     * @return              the word before the specified word
+	 * @version 2026.10.18
+     */
+    public static String wordBefore(TokenizedStatement statement, String word)
     {
 		int positionOfWord = findKeyword(statement, word);
 		
@@ -110,361 +285,444 @@ public class Grammar
 			return "";
 		}
 		
-        for(int i = positionOfWord - 2; i >= 0; i--)
-        {
-            if(statement.charAt(i) == ' ')
-			{
-				return statement.substring(i + 1, positionOfWord - 1);
-			}
-            else if(i == 0)
-			{
-				return statement.substring(0, positionOfWord - 1);
-			}
-        }
-        return "";
+		String text = statement.toString();
+		int positionOfSpace = text.lastIndexOf(' ', positionOfWord - 2);
+		
+        return text.substring(positionOfSpace + 1, positionOfWord - 1);
     }
     
     /**
      * Replaces all contractions in a statement with their expanded form.
+	 * The endings n't, 'll, 're, 's, 'm, 've and 'd are expanded, along with irregular negations such as "won't".
+	 * An apostrophe that isn't part of a contraction, such as a quotation mark, is left as it is.
 	 *
      * @param statement     the statement that may contain contractions
      * @return              the statement where all contractions have been expanded
-	 * @version 2016.05.26
+	 * @version 2026.10.18
      */
     public static String removeContractions(String statement)
     {
-		int positionOfApostrophe = statement.indexOf("'");
-		
-        if(positionOfApostrophe < 0)
-		{
-			return statement;
-		}
-		
-        for(int i = positionOfApostrophe - 1; i >= 0; i--)
-        {
-            String subject, beforeContraction, afterContraction;
-			
-            if(statement.charAt(i) == ' ')
-            {
-                subject = statement.substring(i + 1, positionOfApostrophe);
-                beforeContraction = statement.substring(0, i + 1);
-                afterContraction = statement.substring(statement.indexOf(' ', positionOfApostrophe));
-				
-                if(subject.equals("don"))
-				{
-					String newStatement = beforeContraction + "do not" + afterContraction;
-					return removeContractions(newStatement);
-				}
-                else if(subject.equals("can"))
-				{
-					String newStatement = beforeContraction + "cannot" + afterContraction;
-					return removeContractions(newStatement);
-				}
-                else if(subject.equals("aren"))
-				{
-					String newStatement = beforeContraction + "are not" + afterContraction;
-					return removeContractions(newStatement);
-				}
-				else if(listContainsItem(SUBJECT_PRONOUNS, subject))
-				{
-					String newVerb = BE_VERBS[indexOfItemInList(SUBJECT_PRONOUNS, subject)];
-					String newStatement = beforeContraction + subject + ' ' + newVerb + afterContraction;
-					return removeContractions(newStatement);
-				}
-				else
-				{
-					String newStatement = beforeContraction + subject + " is" + afterContraction;
-					return removeContractions(newStatement);
-				}
-            }
-            else if(i == 0)
-            {
-                subject = statement.substring(0, positionOfApostrophe);
-                beforeContraction = "";
-                afterContraction = statement.substring(statement.indexOf(' ', positionOfApostrophe));
-				
-                if(subject.equals("don"))
-				{
-					String newStatement = beforeContraction + "do not" + afterContraction;
-					return removeContractions(newStatement);
-				}
-                else if(subject.equals("can"))
-				{
-					String newStatement = beforeContraction + "cannot" + afterContraction;
-					return removeContractions(newStatement);
-				}
-                else if(subject.equals("aren"))
-				{
-					String newStatement = beforeContraction + "are not" + afterContraction;
-					return removeContractions(newStatement);
-				}
-				else if(listContainsItem(SUBJECT_PRONOUNS, subject))
-				{
-					String newVerb = BE_VERBS[indexOfItemInList(SUBJECT_PRONOUNS, subject)];
-					String newStatement = beforeContraction + subject + ' ' + newVerb + afterContraction;
-					return removeContractions(newStatement);
-				}
-				else
-				{
-					String newStatement = beforeContraction + subject + " is" + afterContraction;
-					return removeContractions(newStatement);
-				}
-            }
-        }
-		
-        if(positionOfApostrophe < 0)
+		if(statement.indexOf('\'') < 0)
 		{
 			return statement;
 		}
 		
-        String subject = statement.substring(0, positionOfApostrophe);
-		String afterContraction = statement.substring(statement.indexOf(' ', positionOfApostrophe));
-		String newVerb = BE_VERBS[indexOfItemInList(SUBJECT_PRONOUNS, subject)];
-		String newStatement = subject + ' ' + newVerb + afterContraction;
+		StringBuilder expanded = new StringBuilder(statement.length() + 16);
+		removeContractions(statement, expanded);
 		
-        return removeContractions(newStatement);
+        return expanded.toString();
     }
     
     /**
-     * Take the restOfStatement from a transformation and change the pronouns from the first person point of view to the second person point of view.
+     * Appends a statement to a buffer with all of its contractions expanded, reading the statement once.
+	 * The search for contraction endings is not case sensitive.
 	 *
-     * @param statement     the statement in the first person point of view
-     * @return              statement in the second person point of view
-	 * @version 2016.05.26
+     * @param statement     the statement that may contain contractions
+     * @param expanded      the buffer to append the expanded statement to, which may be reused between calls
+	 * @version 2026.10.18
      */
-    public static String invertPointOfView(String statement)
+    public static void removeContractions(CharSequence statement, StringBuilder expanded)
     {
-        String answer = statement;
-		
-        while(containsSubjectPronoun(statement))
-        {
-            String actualSubject = findSubjectPronoun(statement);
-			String invertedSubject = actualSubject;
-            int positionOfSubject = findKeyword(statement, actualSubject);
-			
-            switch(actualSubject)
-            {
-                case "i":
-                case "we":
-					invertedSubject = "you";
-					break;
-                case "you":
-					invertedSubject = "I";
-					break;
-            }
-			
-			String beforeSubject = answer.substring(0, positionOfSubject);
-			String afterSubject = answer.substring(positionOfSubject + actualSubject.length());
-			
-            answer =  beforeSubject + invertedSubject + afterSubject;
-			
-			String placeholder = generateStars(invertedSubject.length());
-			beforeSubject = statement.substring(0, positionOfSubject);
-			afterSubject = statement.substring(positionOfSubject + actualSubject.length());
-			
-            statement = beforeSubject + placeholder + afterSubject;
-            statement = statement.trim();
-        }
+		int copied = 0;
 		
-        while(containsObjectPronoun(statement))
+        for(int apostrophe = indexOf(statement, '\'', 0); apostrophe >= 0; apostrophe = indexOf(statement, '\'', apostrophe + 1))
         {
-            String actualObject = findObjectPronoun(statement);
-			String invertedObject = actualObject;
-            int positionOfObject = findKeyword(statement, actualObject);
-			
-            switch(actualObject)
-            {
-                case "me":
-                case "us":
-					invertedObject = "you";
-					break;
-                case "you":
-					invertedObject = "me";
-					break;
-            }
-			
-			String beforeObject = answer.substring(0, positionOfObject);
-			String afterObject = answer.substring(positionOfObject + actualObject.length());
+			int stemStart = apostrophe;
 			
-            answer =  beforeObject + invertedObject + afterObject;
-			
-			String placeholder = generateStars(invertedObject.length());
-			beforeObject = statement.substring(0, positionOfObject);
-			afterObject = statement.substring(positionOfObject + actualObject.length());
-			
-            statement = beforeObject + placeholder + afterObject;
-            statement = statement.trim();
-        }
-		
-        while(containsBeVerb(statement))
-        {
-            String actualVerb = findBeVerb(statement);
-			String invertedVerb = actualVerb;
-            int positionOfVerb = findKeyword(statement, actualVerb);
+			// The stem can't reach back into a contraction that was already expanded
+			while(stemStart > copied && isLetterAt(statement, stemStart - 1))
+			{
+				stemStart--;
+			}
 			
-            if(isQuestion(answer))
-            {
-				String wordAfterVerb = wordAfter(answer, actualVerb);
-				
-                switch(wordAfterVerb)
-                {
-                    case "I":
-						invertedVerb = "am";
-						break;
-                    case "you":
-						invertedVerb = "are";
-						break;
-                }
-            }
-            else
-            {
-				String wordBeforeVerb = wordBefore(answer, actualVerb);
-				
-                switch(wordBeforeVerb)
-                {
-                    case "I":
-						invertedVerb = "am";
-						break;
-                    case "you":
-						invertedVerb = "are";
-						break;
-                }
-            }
+			if(stemStart == apostrophe)
+			{
+				continue;
+			}
 			
-			String beforeVerb = answer.substring(0, positionOfVerb);
-			String afterVerb = answer.substring(positionOfVerb + actualVerb.length());
+			int suffixEnd = apostrophe + 1;
 			
-            answer = beforeVerb + invertedVerb + afterVerb;
+			while(isLetterAt(statement, suffixEnd))
+			{
+				suffixEnd++;
+			}
 			
-			String placeholder = generateStars(invertedVerb.length());
-			beforeVerb = statement.substring(0, positionOfVerb);
-			afterVerb = statement.substring(positionOfVerb + actualVerb.length());
+			expanded.append(statement, copied, apostrophe);
+			copied = apostrophe;
 			
-            statement = beforeVerb + placeholder + afterVerb;
-            statement = statement.trim();
+			if(expandContraction(statement, stemStart, apostrophe, suffixEnd, expanded))
+			{
+				copied = suffixEnd;
+				apostrophe = suffixEnd - 1;
+			}
         }
 		
-        return answer;
+		expanded.append(statement, copied, statement.length());
     }
     
     /**
-     * Search for one word in phrase. 
-	 * The search is not case sensitive.
-     * This method will check that the given goal is not a substring of a longer string.
-     * For example, "I know" does not contain "no".
+     * Expands one contraction, whose stem has already been appended to the buffer.
 	 *
-     * @param statement     the string to search
-     * @param goal          the string to search for
-     * @param startPos      the character of the string to begin the search at
-     * @return              the index of the first occurrence of goal in statement or -1 if it's not found
-	 * @version 2016.05.26
+     * @param statement     the statement containing the contraction
+     * @param stemStart     the position where the word before the apostrophe begins
+     * @param apostrophe    the position of the apostrophe
+     * @param suffixEnd     the position just after the letters following the apostrophe
+     * @param expanded      the buffer holding the expanded statement up to the apostrophe
+     * @return              whether the letters after the apostrophe were a contraction ending, and so were expanded
+	 * @version 2026.10.18
      */
-    public static int findKeyword(String statement, String goal, int startPos)
+    private static boolean expandContraction(CharSequence statement, int stemStart, int apostrophe, int suffixEnd, StringBuilder expanded)
     {
-        int position = statement.toLowerCase().indexOf(goal.toLowerCase(), startPos);
-
-        while(position >= 0) 
-        {
-            String before = " ";
-			String after = " ";
-			
-            if(position > 0)
+		int suffixLength = suffixEnd - apostrophe - 1;
+		
+		// n't takes the n from the stem, and a few negations change the stem too
+		if(suffixLength == 1 && regionMatches(statement, apostrophe - 1, "n't") && apostrophe - 1 > stemStart)
+		{
+			for(String[] negation : IRREGULAR_NEGATIONS)
 			{
-                before = statement.substring(position - 1, position).toLowerCase();
+				if(apostrophe - stemStart == negation[0].length() && regionMatches(statement, stemStart, negation[0]))
+				{
+					expanded.setLength(expanded.length() - negation[0].length());
+					expanded.append(negation[1]);
+					return true;
+				}
 			}
 			
-            if(position + goal.length() < statement.length())
+			if(apostrophe - stemStart == BE_NEGATION_STEM.length() && regionMatches(statement, stemStart, BE_NEGATION_STEM))
 			{
-                after = statement.substring(position + goal.length(), position + goal.length() + 1).toLowerCase();
+				PointOfView subject = pointOfViewBefore(statement, stemStart);
+				expanded.setLength(expanded.length() - BE_NEGATION_STEM.length());
+				expanded.append(subject == null || !subject.isPersonal() ? PointOfView.THIRD_NEUTER.getBeConjugation() : subject.getBeConjugation());
+				expanded.append(" not");
+				return true;
 			}
-
-            //  If before and after aren't letters, we've found the word
-            if(((before.compareTo("a") < 0 ) || (before.compareTo("z") > 0))
-			&& ((after.compareTo("a") < 0 ) || (after.compareTo("z") > 0)))
+			
+			expanded.setLength(expanded.length() - 1);
+			expanded.append(" not");
+			return true;
+		}
+		
+		for(String[] ending : CONTRACTION_ENDINGS)
+		{
+			if(suffixLength == ending[0].length() && regionMatches(statement, apostrophe + 1, ending[0]))
 			{
-                return position;
+				expanded.append(ending[1]);
+				return true;
 			}
-
-            //  The last position didn't work, so let's find the next, if there is one.
-            position = statement.indexOf(goal.toLowerCase(), position + 1);
-        }
-
-        return -1;
+		}
+		
+        return false;
     }
-
+    
     /**
-     * Search for one word in phrase.
-	 * The search is not case sensitive.
-     * This method will check that the given goal is not a substring of a longer string.
-     * For example, "I know" does not contain "no".
-	 * The search begins at the beginning of the string.
+     * Finds the point of view of the subject pronoun that ends just before a position, with only spaces between them.
 	 *
-     * @param statement     the string to search
-     * @param goal          the string to search for
-     * @return              the index of the first occurrence of goal in statement or -1 if it's not found
-	 * @version 2016.05.26
+     * @param statement     the statement to search
+     * @param position      the position where the word after the subject pronoun begins
+     * @return              the point of view of the subject pronoun, or null if the word before the position is not a subject pronoun
+	 * @version 2026.10.18
      */
-    public static int findKeyword(String statement, String goal)
+    private static PointOfView pointOfViewBefore(CharSequence statement, int position)
     {
-        return findKeyword(statement, goal, 0);
+		int end = position;
+		
+		while(end > 0 && statement.charAt(end - 1) == ' ')
+		{
+			end--;
+		}
+		
+		int start = end;
+		
+		while(isLetterAt(statement, start - 1))
+		{
+			start--;
+		}
+		
+        return start < end && end < position ? PointOfView.of(wordClassIndex(wordClassTag(statement, start, end), SUBJECT_PRONOUN)) : null;
     }
     
     /**
-     * Finds the first modal auxiliary in a statement.
-     * If one is not found, returns 1000 stars to represent 'null' without throwing an exception anywhere.
+     * Finds the point of view of the subject pronoun that begins just after a position, with only spaces between them.
 	 *
-     * @param statement     the statement that may contain a modal auxiliary
-     * @return              the first modal auxiliary in the statement, or 1000 stars if one is not found
-	 * @version 2016.05.26
+     * @param statement     the statement to search
+     * @param position      the position where the word before the subject pronoun ends
+     * @return              the point of view of the subject pronoun, or null if the word after the position is not a subject pronoun
+	 * @version 2026.10.18
      */
-    public static String findModalAuxiliary(String statement)
+    private static PointOfView pointOfViewAfter(CharSequence statement, int position)
     {
-        for(String word : MODAL_AUXILIARIES)
+		int start = position;
+		
+		while(start < statement.length() && statement.charAt(start) == ' ')
 		{
-			int indexOfWord = findKeyword(statement, word);
-			
-            if(indexOfWord >= 0)
-			{
-                return word;
-			}
+			start++;
+		}
+		
+		int end = start;
+		
+		while(isLetterAt(statement, end))
+		{
+			end++;
 		}
 		
-        return generateStars(1000);
+        return start > position && start < end ? PointOfView.of(wordClassIndex(wordClassTag(statement, start, end), SUBJECT_PRONOUN)) : null;
     }
     
     /**
-     * Returns whether the statement has a modal auxiliary.
+     * Take the restOfStatement from a transformation and change the pronouns from the first person point of view to the second person point of view.
+	 * Pronouns are inverted in one pass over the words of the statement, and then each be verb is made to agree with the personal subject pronoun next to it.
+	 * Every pronoun and be verb is written in lower case, except an inverted "I".
 	 *
-     * @param statement     the statement that may contain a modal auxiliary
-     * @return              whether the statement has a modal auxiliary
-	 * @version 2016.05.26
+     * @param statement     the statement in the first person point of view
+     * @return              statement in the second person point of view
+	 * @version 2026.10.18
      */
-    public static boolean containsModalAuxiliary(String statement)
+    public static String invertPointOfView(String statement)
     {
-        return !findModalAuxiliary(statement).equals(generateStars(1000));
-    }
-    
+		TokenizedStatement words = new TokenizedStatement(statement);
+		StringBuilder answer = new StringBuilder(statement.length() + 8);
+		int[] beVerbPositions = new int[words.wordCount()], beVerbs = new int[words.wordCount()];
+		int beVerbCount = 0, copied = 0;
+		
+        for(int i = 0; i < words.wordCount(); i++)
+        {
+			int subject = words.wordClassIndex(i, SUBJECT_PRONOUN);
+			int object = words.wordClassIndex(i, OBJECT_PRONOUN);
+			int beVerb = words.wordClassIndex(i, BE_VERB);
+			
+            if(subject < 0 && object < 0 && beVerb < 0)
+			{
+				continue;
+			}
+			
+			answer.append(statement, copied, words.wordStart(i));
+			copied = words.wordEnd(i);
+			
+            if(subject >= 0)
+			{
+				PointOfView inverted = PointOfView.of(subject).inverted();
+				answer.append(inverted == PointOfView.FIRST_SINGULAR ? "I" : inverted.getSubjectPronoun());
+			}
+            else if(object >= 0)
+			{
+				answer.append(PointOfView.of(object).inverted().getObjectPronoun());
+			}
+            else
+			{
+				beVerbPositions[beVerbCount] = answer.length();
+				beVerbs[beVerbCount++] = beVerb;
+				answer.append(BE_VERBS[beVerb]);
+			}
+        }
+		
+		answer.append(statement, copied, statement.length());
+		
+		boolean question = isQuestion(answer);
+		int shift = 0;
+		
+		// Each be verb agrees with its own subject, once every pronoun has been inverted
+        for(int i = 0; i < beVerbCount; i++)
+        {
+			int position = beVerbPositions[i] + shift;
+			String actualVerb = BE_VERBS[beVerbs[i]];
+			String agreeingVerb = agreeingBeVerb(answer, position, actualVerb, question);
+			
+			answer.replace(position, position + actualVerb.length(), agreeingVerb);
+			shift += agreeingVerb.length() - actualVerb.length();
+        }
+		
+        return answer.toString();
+    }
+    
+    /**
+     * Finds the be verb that agrees with its subject: a personal subject pronoun just before it,
+     * or else, in a question, a personal subject pronoun just after it.
+	 *
+     * @param answer        the statement being inverted
+     * @param position      the position of the be verb in the answer
+     * @param beVerb        the be verb
+     * @param question      whether the answer is a question
+     * @return              the be conjugation of the point of view of the subject, or the same be verb if there is no personal subject pronoun there
+	 * @version 2026.10.18
+     */
+    private static String agreeingBeVerb(CharSequence answer, int position, String beVerb, boolean question)
+    {
+		PointOfView subject = pointOfViewBefore(answer, position);
+		
+        if((subject == null || !subject.isPersonal()) && question)
+		{
+			subject = pointOfViewAfter(answer, position + beVerb.length());
+		}
+		
+        return subject == null || !subject.isPersonal() ? beVerb : subject.getBeConjugation();
+    }
+    
+    /**
+     * Search for one word in phrase. 
+	 * The search is not case sensitive.
+     * This method will check that the given goal is not a substring of a longer string.
+     * For example, "I know" does not contain "no".
+	 *
+     * @param statement     the string to search
+     * @param goal          the string to search for
+     * @param startPos      the character of the string to begin the search at
+     * @return              the index of the first occurrence of goal in statement or -1 if it's not found
+	 * @version 2026.10.18
+     */
+    public static int findKeyword(String statement, String goal, int startPos)
+    {
+        return indexOfKeyword(statement, goal, startPos);
+    }
+
+    /**
+     * Search for one word in phrase without allocating.
+	 * The search is not case sensitive.
+     * This method will check that the given goal is not a substring of a longer string.
+	 *
+     * @param statement     the characters to search
+     * @param goal          the characters to search for
+     * @param startPos      the character of the statement to begin the search at
+     * @return              the index of the first occurrence of goal in statement or -1 if it's not found
+	 * @version 2026.10.18
+     */
+    public static int indexOfKeyword(CharSequence statement, CharSequence goal, int startPos)
+    {
+        for(int position = Math.max(startPos, 0); position + goal.length() <= statement.length(); position++)
+        {
+            //  If before and after aren't letters, we've found the word
+            if(regionMatches(statement, position, goal)
+			&& !isLetterAt(statement, position - 1)
+			&& !isLetterAt(statement, position + goal.length()))
+			{
+                return position;
+			}
+        }
+
+        return -1;
+    }
+
+    /**
+     * Search for one word in phrase.
+	 * The search is not case sensitive.
+     * This method will check that the given goal is not a substring of a longer string.
+     * For example, "I know" does not contain "no".
+	 * The search begins at the beginning of the string.
+	 *
+     * @param statement     the string to search
+     * @param goal          the string to search for
+     * @return              the index of the first occurrence of goal in statement or -1 if it's not found
+	 * @version 2016.05.26
+     */
+    public static int findKeyword(String statement, String goal)
+    {
+        return findKeyword(statement, goal, 0);
+    }
+
+    /**
+     * Search for one word in a tokenized statement.
+	 * The search is not case sensitive.
+     * This method will check that the given goal is not a substring of a longer string.
+	 *
+     * @param statement     the tokenized statement to search
+     * @param goal          the string to search for
+     * @param startPos      the character of the statement to begin the search at
+     * @return              the index of the first occurrence of goal in statement or -1 if it's not found
+	 * @version 2026.10.18
+     */
+    public static int findKeyword(TokenizedStatement statement, String goal, int startPos)
+    {
+        return statement.indexOf(goal.toLowerCase(), startPos);
+    }
+
+    /**
+     * Search for one word in a tokenized statement.
+	 * The search is not case sensitive.
+	 * The search begins at the beginning of the statement.
+	 *
+     * @param statement     the tokenized statement to search
+     * @param goal          the string to search for
+     * @return              the index of the first occurrence of goal in statement or -1 if it's not found
+	 * @version 2026.10.18
+     */
+    public static int findKeyword(TokenizedStatement statement, String goal)
+    {
+        return findKeyword(statement, goal, 0);
+    }
+    
+    /**
+     * Finds the first modal auxiliary in a statement.
+     * If one is not found, returns 1000 stars to represent 'null' without throwing an exception anywhere.
+	 *
+     * @param statement     the statement that may contain a modal auxiliary
+     * @return              the first modal auxiliary in the statement, or 1000 stars if one is not found
+	 * @version 2026.10.18
+     */
+    public static String findModalAuxiliary(String statement)
+    {
+        return wordOfClass(MODAL_AUXILIARY, findWordClass(statement, MODAL_AUXILIARY));
+    }
+    
+    /**
+     * Finds the first modal auxiliary in a tokenized statement.
+     * If one is not found, returns 1000 stars to represent 'null' without throwing an exception anywhere.
+	 *
+     * @param statement     the tokenized statement that may contain a modal auxiliary
+     * @return              the first modal auxiliary in the statement, or 1000 stars if one is not found
+	 * @version 2026.10.18
+     */
+    public static String findModalAuxiliary(TokenizedStatement statement)
+    {
+        return wordOfClass(MODAL_AUXILIARY, findWordClass(statement, MODAL_AUXILIARY));
+    }
+    
+    /**
+     * Returns whether the statement has a modal auxiliary.
+	 *
+     * @param statement     the statement that may contain a modal auxiliary
+     * @return              whether the statement has a modal auxiliary
+	 * @version 2026.10.18
+     */
+    public static boolean containsModalAuxiliary(String statement)
+    {
+        return findWordClass(statement, MODAL_AUXILIARY) >= 0;
+    }
+    
+    /**
+     * Returns whether the tokenized statement has a modal auxiliary.
+	 *
+     * @param statement     the tokenized statement that may contain a modal auxiliary
+     * @return              whether the statement has a modal auxiliary
+	 * @version 2026.10.18
+     */
+    public static boolean containsModalAuxiliary(TokenizedStatement statement)
+    {
+        return findWordClass(statement, MODAL_AUXILIARY) >= 0;
+    }
+    
     /**
      * Finds the first question word in a statement.
      * If one is not found, returns 1000 stars to represent 'null' without throwing an exception anywhere.
 	 *
      * @param statement     the statement that may contain a question word
      * @return              the first question word in the statement, or 1000 stars if one is not found
-	 * @version 2016.05.26
+	 * @version 2026.10.18
      */
     public static String findQuestionWord(String statement)
     {
-        for(String word : QUESTION_WORDS)
-		{
-			int indexOfWord = findKeyword(statement, word);
-			
-            if(indexOfWord >= 0)
-			{
-                return word;
-			}
-		}
-		
-        return generateStars(1000);
+        return wordOfClass(QUESTION_WORD, findWordClass(statement, QUESTION_WORD));
+    }
+    
+    /**
+     * Finds the first question word in a tokenized statement.
+     * If one is not found, returns 1000 stars to represent 'null' without throwing an exception anywhere.
+	 *
+     * @param statement     the tokenized statement that may contain a question word
+     * @return              the first question word in the statement, or 1000 stars if one is not found
+	 * @version 2026.10.18
+     */
+    public static String findQuestionWord(TokenizedStatement statement)
+    {
+        return wordOfClass(QUESTION_WORD, findWordClass(statement, QUESTION_WORD));
     }
     
     /**
@@ -472,33 +730,61 @@ public class Grammar
 	 *
      * @param statement     the statement that may contain a question word
      * @return              whether the statement has a question word
-	 * @version 2016.05.26
+	 * @version 2026.10.18
      */
     public static boolean containsQuestionWord(String statement)
     {
-        return !findQuestionWord(statement).equals(generateStars(1000));
+        return findWordClass(statement, QUESTION_WORD) >= 0;
+    }
+    
+    /**
+     * Returns whether the tokenized statement has a question word.
+	 *
+     * @param statement     the tokenized statement that may contain a question word
+     * @return              whether the statement has a question word
+	 * @version 2026.10.18
+     */
+    public static boolean containsQuestionWord(TokenizedStatement statement)
+    {
+        return findWordClass(statement, QUESTION_WORD) >= 0;
     }
     
     /**
      * Finds the first subject pronoun in a statement.
-     * If one is not found, returns 1000 stars to represent 'null' without throwing an exception anywhere
+     * If one is not found, returns 1000 stars to represent 'null' without throwing an exception anywhere.
+	 *
      * @param statement     the statement that may contain a subject pronoun
      * @return              the first subject pronoun in the statement, or 1000 stars if one is not found
-	 * @version 2016.05.26
+	 * @version 2026.10.18
      */
     public static String findSubjectPronoun(String statement)
     {
-        for(String word : SUBJECT_PRONOUNS)
-		{
-			int indexOfWord = findKeyword(statement, word);
-			
-            if(indexOfWord >= 0)
-			{
-                return word;
-			}
-		}
-		
-        return generateStars(1000);
+        return wordOfClass(SUBJECT_PRONOUN, findWordClass(statement, SUBJECT_PRONOUN));
+    }
+    
+    /**
+     * Finds the first subject pronoun in a tokenized statement.
+     * If one is not found, returns 1000 stars to represent 'null' without throwing an exception anywhere.
+	 *
+     * @param statement     the tokenized statement that may contain a subject pronoun
+     * @return              the first subject pronoun in the statement, or 1000 stars if one is not found
+	 * @version 2026.10.18
+     */
+    public static String findSubjectPronoun(TokenizedStatement statement)
+    {
+        return wordOfClass(SUBJECT_PRONOUN, findWordClass(statement, SUBJECT_PRONOUN));
+    }
+    
+    /**
+     * Finds the point of view of the subject pronoun that <code>findSubjectPronoun</code> finds in a tokenized statement.
+	 *
+     * @param statement     the tokenized statement that may contain a subject pronoun
+     * @return              the point of view of the subject pronoun, or null if there is none
+	 * @version 2026.10.18
+     */
+    public static PointOfView findPointOfView(TokenizedStatement statement)
+    {
+        return PointOfView.of(findWordClass(statement, SUBJECT_PRONOUN));
     }
     
     /**
@@ -506,127 +792,414 @@ public class Grammar
 	 *
      * @param statement     the statement that may contain a subject pronoun
      * @return              whether the statement has a subject pronoun
-	 * @version 2016.05.26
+	 * @version 2026.10.18
      */
     public static boolean containsSubjectPronoun(String statement)
     {
-        return !findSubjectPronoun(statement).equals(generateStars(1000));
+        return findWordClass(statement, SUBJECT_PRONOUN) >= 0;
+    }
+    
+    /**
+     * Returns whether the tokenized statement has a subject pronoun.
+	 *
+     * @param statement     the tokenized statement that may contain a subject pronoun
+     * @return              whether the statement has a subject pronoun
+	 * @version 2026.10.18
+     */
+    public static boolean containsSubjectPronoun(TokenizedStatement statement)
+    {
+        return findWordClass(statement, SUBJECT_PRONOUN) >= 0;
     }
     
     /**
      * Finds the first object pronoun in a statement.
      * If one is not found, returns 1000 stars to represent 'null' without throwing an exception anywhere.
 	 *
-     * @param statement     the statement that may contain a object pronoun
+     * @param statement     the statement that may contain an object pronoun
      * @return              the first object pronoun in the statement, or 1000 stars if one is not found
-	 * @version 2016.05.26
+	 * @version 2026.10.18
      */
     public static String findObjectPronoun(String statement)
     {
-        for(String word : OBJECT_PRONOUNS)
-		{
-			String subjectPronoun = findSubjectPronoun(statement);
-			int positionOfSubjectPronoun = findKeyword(statement, subjectPronoun);
-			int positionOfWordAfterSubjectPronoun = findKeyword(statement, word, positionOfSubjectPronoun);
-			
-            if(positionOfWordAfterSubjectPronoun >= 0)
-			{
-                return word;
-			}
-		}
-		
-        return generateStars(1000);
+        return wordOfClass(OBJECT_PRONOUN, findWordClass(statement, OBJECT_PRONOUN));
+    }
+    
+    /**
+     * Finds the first object pronoun in a tokenized statement.
+     * If one is not found, returns 1000 stars to represent 'null' without throwing an exception anywhere.
+	 *
+     * @param statement     the tokenized statement that may contain an object pronoun
+     * @return              the first object pronoun in the statement, or 1000 stars if one is not found
+	 * @version 2026.10.18
+     */
+    public static String findObjectPronoun(TokenizedStatement statement)
+    {
+        return wordOfClass(OBJECT_PRONOUN, findWordClass(statement, OBJECT_PRONOUN));
     }
     
     /**
-     * Returns whether the statement has a object pronoun.
+     * Returns whether the statement has an object pronoun.
 	 *
-     * @param statement     the statement that may contain a object pronoun
-     * @return              whether the statement has a object pronoun
-	 * @version 2016.05.26
+     * @param statement     the statement that may contain an object pronoun
+     * @return              whether the statement has an object pronoun
+	 * @version 2026.10.18
      */
     public static boolean containsObjectPronoun(String statement)
     {
-        return !findObjectPronoun(statement).equals(generateStars(1000));
+        return findWordClass(statement, OBJECT_PRONOUN) >= 0;
     }
-
+    
+    /**
+     * Returns whether the tokenized statement has an object pronoun.
+	 *
+     * @param statement     the tokenized statement that may contain an object pronoun
+     * @return              whether the statement has an object pronoun
+	 * @version 2026.10.18
+     */
+    public static boolean containsObjectPronoun(TokenizedStatement statement)
+    {
+        return findWordClass(statement, OBJECT_PRONOUN) >= 0;
+    }
+    
     /**
      * Finds the first be verb in a statement.
      * If one is not found, returns 1000 stars to represent 'null' without throwing an exception anywhere.
 	 *
      * @param statement     the statement that may contain a be verb
      * @return              the first be verb in the statement, or 1000 stars if one is not found
-	 * @version 2016.05.26
+	 * @version 2026.10.18
      */
     public static String findBeVerb(String statement)
     {
-        for(String word : BE_VERBS)
+        return wordOfClass(BE_VERB, findWordClass(statement, BE_VERB));
+    }
+    
+    /**
+     * Finds the first be verb in a tokenized statement.
+     * If one is not found, returns 1000 stars to represent 'null' without throwing an exception anywhere.
+	 *
+     * @param statement     the tokenized statement that may contain a be verb
+     * @return              the first be verb in the statement, or 1000 stars if one is not found
+	 * @version 2026.10.18
+     */
+    public static String findBeVerb(TokenizedStatement statement)
+    {
+        return wordOfClass(BE_VERB, findWordClass(statement, BE_VERB));
+    }
+    
+    /**
+     * Returns whether the statement has a be verb.
+	 *
+     * @param statement     the statement that may contain a be verb
+     * @return              whether the statement has a be verb
+	 * @version 2026.10.18
+     */
+    public static boolean containsBeVerb(String statement)
+    {
+        return findWordClass(statement, BE_VERB) >= 0;
+    }
+    
+    /**
+     * Returns whether the tokenized statement has a be verb.
+	 *
+     * @param statement     the tokenized statement that may contain a be verb
+     * @return              whether the statement has a be verb
+	 * @version 2026.10.18
+     */
+    public static boolean containsBeVerb(TokenizedStatement statement)
+    {
+        return findWordClass(statement, BE_VERB) >= 0;
+    }
+    
+    /**
+     * Finds the word of a word class that comes first in the word class list, rather than first in the statement, without allocating.
+     * Object pronouns only count when they come after the first subject pronoun, if there is one, like in <code>findObjectPronoun</code>.
+	 *
+     * @param statement     the statement to search
+     * @param wordClass     the word class to search for, such as <code>SUBJECT_PRONOUN</code>
+     * @return              the index of the word in its word class list, or -1 if there is none
+	 * @version 2026.10.18
+     */
+    public static int findWordClass(CharSequence statement, int wordClass)
+    {
+		int startPos = 0;
+		
+        if(wordClass == OBJECT_PRONOUN)
 		{
-			int positionOfWord = findKeyword(statement, word);
+			int subjectPronoun = findWordClass(statement, SUBJECT_PRONOUN);
 			
-            if(positionOfWord >= 0)
+            if(subjectPronoun >= 0)
 			{
-                return word;
+				startPos = indexOfKeyword(statement, SUBJECT_PRONOUNS[subjectPronoun], 0);
 			}
 		}
 		
-        return generateStars(1000);
+		int first = -1, start = -1;
+		
+        for(int i = 0; i <= statement.length() && first != 0; i++)
+		{
+			boolean isLetter = isLetterAt(statement, i);
+			
+            if(isLetter && start < 0)
+			{
+				start = i;
+			}
+            else if(!isLetter && start >= 0)
+			{
+				int index = wordClassIndex(wordClassTag(statement, start, i), wordClass);
+				
+                if(index >= 0 && start >= startPos && (first < 0 || index < first))
+				{
+					first = index;
+				}
+				
+				start = -1;
+			}
+		}
+		
+        return first;
     }
     
     /**
-     * Returns whether the statement has a be verb.
+     * Finds the word of a word class that comes first in the word class list, rather than first in the statement.
+     * Object pronouns only count when they come after the first subject pronoun, if there is one, like in <code>findObjectPronoun</code>.
 	 *
-     * @param statement     the statement that may contain a be verb
-     * @return              whether the statement has a be verb
-	 * @version 2016.05.26
+     * @param statement     the tokenized statement to search
+     * @param wordClass     the word class to search for, such as <code>SUBJECT_PRONOUN</code>
+     * @return              the index of the word in its word class list, or -1 if there is none
+	 * @version 2026.10.18
      */
-    public static boolean containsBeVerb(String statement)
+    public static int findWordClass(TokenizedStatement statement, int wordClass)
     {
-        return !findBeVerb(statement).equals(generateStars(1000));
+		int startPos = 0;
+		
+        if(wordClass == OBJECT_PRONOUN)
+		{
+			int subjectPronoun = findWordClass(statement, SUBJECT_PRONOUN);
+			
+            if(subjectPronoun >= 0)
+			{
+				startPos = findKeyword(statement, SUBJECT_PRONOUNS[subjectPronoun]);
+			}
+		}
+		
+		int first = -1;
+		
+        for(int i = 0; i < statement.wordCount() && first != 0; i++)
+		{
+			int index = statement.wordClassIndex(i, wordClass);
+			
+            if(index >= 0 && statement.wordStart(i) >= startPos && (first < 0 || index < first))
+			{
+                first = index;
+			}
+		}
+		
+        return first;
     }
     
     /**
-     * Generates a string of star characters of a given length.
+     * Gets a word of a word class from its index, as returned by <code>findWordClass</code>.
+     * If the index is -1, returns 1000 stars to represent 'null' without throwing an exception anywhere.
 	 *
-     * @param num           the number of stars to be returned
-     * @return              a string with num star characters
-	 * @version 2016.05.26
+     * @param wordClass     the word class, such as <code>SUBJECT_PRONOUN</code>
+     * @param index         the index of the word in its word class list, or -1
+     * @return              the word, or 1000 stars if the index is -1
+	 * @version 2026.10.18
      */
-    private static String generateStars(int num)
+    public static String wordOfClass(int wordClass, int index)
+    {
+        if(index < 0)
+		{
+			return NOT_FOUND;
+		}
+		
+        switch(wordClass)
+		{
+            case MODAL_AUXILIARY:
+				return MODAL_AUXILIARIES[index];
+            case QUESTION_WORD:
+				return QUESTION_WORDS[index];
+            case SUBJECT_PRONOUN:
+				return SUBJECT_PRONOUNS[index];
+            case OBJECT_PRONOUN:
+				return OBJECT_PRONOUNS[index];
+            case BE_VERB:
+				return BE_VERBS[index];
+            default:
+				throw new IllegalArgumentException("Unknown word class: " + wordClass);
+		}
+    }
+    
+    /**
+     * Lists one word of each point of view, in the order of the points of view, leaving out the words already listed.
+	 *
+     * @param word          the word of a point of view, such as its subject pronoun
+     * @return              the distinct words
+	 * @version 2026.10.18
+     */
+    private static String[] pointOfViewWords(Function<PointOfView, String> word)
     {
-        String ans = "";
+		Set<String> words = new LinkedHashSet<String>();
 		
-        for(int i = 0; i < num; i++)
+        for(PointOfView pointOfView : PointOfView.values())
 		{
-			ans += "*";
+			words.add(word.apply(pointOfView));
 		}
 		
-        return ans;
+        return words.toArray(new String[0]);
     }
-	
+    
     /**
-     * Determines the index of an <code>Object</code> in an array.
+     * Gets the word classes of a word, packed into an <code>int</code> for a <code>TokenizedStatement</code>.
 	 *
-     * @param list          the array to search through
-	 * @param item			the <code>Object</code> to search for
-     * @return              the index of <code>item</code> in <code>list</code>
-	 * @version 2016.05.26
+     * @param wordId        the id of the word in <code>VOCABULARY</code>, or <code>Vocabulary.UNKNOWN</code>
+     * @return              the index plus one of the word in each word class list, packed into <code>WORD_CLASS_BITS</code> bits per class
+	 * @version 2026.10.18
      */
-	private static int indexOfItemInList(Object[] list, Object item)
-	{
-		return Arrays.asList(list).indexOf(item);
-	}
-	
+    static int wordClassTag(int wordId)
+    {
+        return wordId < 0 ? 0 : WORD_CLASS_TAGS[wordId];
+    }
+    
     /**
-     * Searches for an <code>Object</code> in an array.
+     * Gets the word classes of a word in a <code>CharSequence</code> without allocating.
 	 *
-     * @param list          the array to search through
-	 * @param item			the <code>Object</code> to search for
-     * @return              whether <code>item</code> is in <code>list</code>
-	 * @version 2016.05.26
+     * @param statement     the characters that contain the word
+     * @param start         the position of the first letter of the word
+     * @param end           the position after the last letter of the word
+     * @return              the word classes of the word, packed like <code>wordClassTag(int)</code>
+	 * @version 2026.10.18
+     */
+    private static int wordClassTag(CharSequence statement, int start, int end)
+    {
+        return wordClassTag(VOCABULARY.id(statement, start, end));
+    }
+    
+    /**
+     * Unpacks the index of a word in one word class list from its word class tag.
+	 *
+     * @param tag           the word classes of the word
+     * @param wordClass     the word class, such as <code>SUBJECT_PRONOUN</code>
+     * @return              the index of the word in the word class list, or -1 if the word is not in that class
+	 * @version 2026.10.18
+     */
+    static int wordClassIndex(int tag, int wordClass)
+    {
+        return ((tag >>> (wordClass * WORD_CLASS_BITS)) & WORD_CLASS_MASK) - 1;
+    }
+    
+    /**
+     * Determines whether some characters appear at a position, ignoring case.
+	 *
+     * @param statement     the characters to search
+     * @param position      the position to compare at
+     * @param goal          the characters to look for
+     * @return              whether goal appears in statement at position
+	 * @version 2026.10.18
+     */
+    private static boolean regionMatches(CharSequence statement, int position, CharSequence goal)
+    {
+        if(position < 0 || position + goal.length() > statement.length())
+		{
+			return false;
+		}
+		
+        for(int i = 0; i < goal.length(); i++)
+		{
+            if(Character.toLowerCase(statement.charAt(position + i)) != Character.toLowerCase(goal.charAt(i)))
+			{
+                return false;
+			}
+		}
+		
+        return true;
+    }
+    
+    /**
+     * Finds a character in a sequence of characters, using <code>String.indexOf</code> when the sequence is a string.
+	 *
+     * @param statement     the characters to search
+     * @param c             the character to search for
+     * @param start         the position to begin the search at
+     * @return              the position of the first occurrence of the character at or after start, or -1 if there is none
+	 * @version 2026.10.18
+     */
+    private static int indexOf(CharSequence statement, char c, int start)
+    {
+        if(statement instanceof String)
+		{
+			return ((String) statement).indexOf(c, start);
+		}
+		
+        for(int i = start; i < statement.length(); i++)
+		{
+            if(statement.charAt(i) == c)
+			{
+                return i;
+			}
+		}
+		
+        return -1;
+    }
+    
+    /**
+     * Determines whether the character at a position is one of the letters a-z, ignoring case.
+     * Positions outside the statement are treated as spaces.
+	 *
+     * @param statement     the characters to check
+     * @param position      the position to check
+     * @return              whether there is a letter at that position
+	 * @version 2026.10.18
      */
-	private static boolean listContainsItem(Object[] list, Object item)
-	{
-		return indexOfItemInList(list, item) >= 0;
-	}
-}
\ No newline at end of file
+    private static boolean isLetterAt(CharSequence statement, int position)
+    {
+        if(position < 0 || position >= statement.length())
+		{
+			return false;
+		}
+		
+		char c = Character.toLowerCase(statement.charAt(position));
+        return c >= 'a' && c <= 'z';
+    }
+    
+    /**
+     * Gets the text from a position up to the next space, which is what <code>wordAfter</code> considers a word.
+	 *
+     * @param statement     the statement to read from
+     * @param start         the position where the word begins
+     * @return              the text up to the next space, or an empty string if start is past the end of the statement
+	 * @version 2026.10.18
+     */
+    private static String wordAt(String statement, int start)
+    {
+        if(start >= statement.length())
+		{
+			return "";
+		}
+		
+		int positionOfSpace = statement.indexOf(' ', start);
+		
+        if(positionOfSpace < 0)
+		{
+			return statement.substring(start);
+		}
+		
+        return statement.substring(start, positionOfSpace);
+    }
+    
+    /**
+     * Generates a string of star characters of a given length.
+	 *
+     * @param num           the number of stars to be returned
+     * @return              a string with num star characters
+	 * @version 2026.10.18
+     */
+    private static String generateStars(int num)
+    {
+		char[] stars = new char[num];
+		Arrays.fill(stars, '*');
+		
+        return new String(stars);
+    }
+}
@@ -0,0 +1,387 @@
+import java.util.*;
+
+/**
+ * Just enough JSON for the programs around <code>Magpie</code>: flat objects whose values are strings, numbers, booleans or null,
+ * and arrays of them.
+ *
+ * @author	Thanasi Bakis
+ */
+public class Json
+{
+	/**
+	 * Nothing to create; every method is static.
+	 */
+	private Json()
+	{
+	}
+
+	/**
+	 * Parses a flat JSON object. Numbers and booleans are kept as their text, and null values are kept as <code>null</code>.
+	 *
+	 * @param json			 the text of the object
+	 * @return				 the members of the object, in order
+	 * @throws IllegalArgumentException	 if the text is not a flat JSON object
+	 * @version 2026.10.18
+	 */
+	public static Map<String, String> parseObject(String json)
+	{
+		int[] position = {0};
+		Map<String, String> members = parseObject(json, position);
+		expectEnd(json, position);
+		return members;
+	}
+
+	/**
+	 * Parses a JSON array of flat objects, such as <code>[{"session": "42", "statement": "Hi"}]</code>.
+	 *
+	 * @param json			 the text of the array
+	 * @return				 the members of each object, in order
+	 * @throws IllegalArgumentException	 if the text is not an array of flat JSON objects
+	 * @version 2026.10.18
+	 */
+	public static List<Map<String, String>> parseArray(String json)
+	{
+		List<Map<String, String>> objects = new ArrayList<Map<String, String>>();
+		int[] position = {0};
+
+		expect(json, position, '[');
+
+		if(peek(json, position) == ']')
+		{
+			position[0]++;
+		}
+		else
+		{
+			do
+			{
+				objects.add(parseObject(json, position));
+			}
+			while(next(json, position) == ',');
+
+			position[0]--;
+			expect(json, position, ']');
+		}
+
+		expectEnd(json, position);
+		return objects;
+	}
+
+	/**
+	 * Writes a string as a JSON string, with quotes and escapes.
+	 *
+	 * @param text			 the string
+	 * @return				 the JSON string
+	 * @version 2026.10.18
+	 */
+	public static String quote(String text)
+	{
+		StringBuilder json = new StringBuilder(text.length() + 2);
+		quote(text, json);
+		return json.toString();
+	}
+
+	/**
+	 * Appends a string as a JSON string, with quotes and escapes.
+	 *
+	 * @param text			 the string
+	 * @param json			 where to append the JSON string
+	 * @version 2026.10.18
+	 */
+	public static void quote(String text, StringBuilder json)
+	{
+		json.append('"');
+
+		for(int i = 0; i < text.length(); i++)
+		{
+			char c = text.charAt(i);
+
+			switch(c)
+			{
+				case '"':
+					json.append("\\\"");
+					break;
+				case '\\':
+					json.append("\\\\");
+					break;
+				case '\n':
+					json.append("\\n");
+					break;
+				case '\r':
+					json.append("\\r");
+					break;
+				case '\t':
+					json.append("\\t");
+					break;
+				default:
+					if(c < 0x20)
+					{
+						json.append(String.format("\\u%04x", (int) c));
+					}
+					else
+					{
+						json.append(c);
+					}
+			}
+		}
+
+		json.append('"');
+	}
+
+	/**
+	 * Writes a flat JSON object whose values are strings or null.
+	 *
+	 * @param members		 the name of every member followed by its value, which may be <code>null</code>
+	 * @return				 the text of the object
+	 * @version 2026.10.18
+	 */
+	public static String object(String... members)
+	{
+		StringBuilder json = new StringBuilder("{");
+
+		for(int i = 0; i + 1 < members.length; i += 2)
+		{
+			if(i > 0)
+			{
+				json.append(',');
+			}
+
+			quote(members[i], json);
+			json.append(':');
+
+			if(members[i + 1] == null)
+			{
+				json.append("null");
+			}
+			else
+			{
+				quote(members[i + 1], json);
+			}
+		}
+
+		return json.append('}').toString();
+	}
+
+	/**
+	 * Parses a flat object.
+	 *
+	 * @param json			 the text
+	 * @param position		 the position to parse at, which is moved past the object
+	 * @return				 the members of the object, in order
+	 * @version 2026.10.18
+	 */
+	private static Map<String, String> parseObject(String json, int[] position)
+	{
+		Map<String, String> members = new LinkedHashMap<String, String>();
+
+		expect(json, position, '{');
+
+		if(peek(json, position) == '}')
+		{
+			position[0]++;
+		}
+		else
+		{
+			do
+			{
+				String name = parseString(json, position);
+				expect(json, position, ':');
+				members.put(name, parseValue(json, position));
+			}
+			while(next(json, position) == ',');
+
+			position[0]--;
+			expect(json, position, '}');
+		}
+
+		return members;
+	}
+
+	/**
+	 * Checks that nothing but spaces follows a position.
+	 *
+	 * @param json			 the text
+	 * @param position		 the position
+	 * @throws IllegalArgumentException	 if there is more text
+	 * @version 2026.10.18
+	 */
+	private static void expectEnd(String json, int[] position)
+	{
+		if(skipSpaces(json, position[0]) != json.length())
+		{
+			throw new IllegalArgumentException("Unexpected text after the value at " + position[0]);
+		}
+	}
+
+	/**
+	 * Parses a string, number, boolean or null.
+	 *
+	 * @param json			 the text
+	 * @param position		 the position to parse at, which is moved past the value
+	 * @return				 the string, the text of the number or boolean, or <code>null</code>
+	 * @version 2026.10.18
+	 */
+	private static String parseValue(String json, int[] position)
+	{
+		if(peek(json, position) == '"')
+		{
+			return parseString(json, position);
+		}
+
+		int start = position[0];
+
+		while(position[0] < json.length() && ",} \t\r\n".indexOf(json.charAt(position[0])) < 0)
+		{
+			position[0]++;
+		}
+
+		String value = json.substring(start, position[0]);
+
+		if(value.equals("null"))
+		{
+			return null;
+		}
+
+		if(value.isEmpty() || value.charAt(0) == '{' || value.charAt(0) == '[')
+		{
+			throw new IllegalArgumentException("Expected a string, number, boolean or null at " + start);
+		}
+
+		return value;
+	}
+
+	/**
+	 * Parses a string, undoing its escapes.
+	 *
+	 * @param json			 the text
+	 * @param position		 the position to parse at, which is moved past the string
+	 * @return				 the string
+	 * @version 2026.10.18
+	 */
+	private static String parseString(String json, int[] position)
+	{
+		expect(json, position, '"');
+		StringBuilder text = new StringBuilder();
+
+		while(true)
+		{
+			if(position[0] >= json.length())
+			{
+				throw new IllegalArgumentException("Unterminated string");
+			}
+
+			char c = json.charAt(position[0]++);
+
+			if(c == '"')
+			{
+				return text.toString();
+			}
+
+			if(c != '\\')
+			{
+				text.append(c);
+				continue;
+			}
+
+			if(position[0] >= json.length())
+			{
+				throw new IllegalArgumentException("Unterminated string");
+			}
+
+			c = json.charAt(position[0]++);
+
+			switch(c)
+			{
+				case 'b':
+					text.append('\b');
+					break;
+				case 'f':
+					text.append('\f');
+					break;
+				case 'n':
+					text.append('\n');
+					break;
+				case 'r':
+					text.append('\r');
+					break;
+				case 't':
+					text.append('\t');
+					break;
+				case 'u':
+					if(position[0] + 4 > json.length())
+					{
+						throw new IllegalArgumentException("Bad unicode escape at " + position[0]);
+					}
+
+					text.append((char) Integer.parseInt(json.substring(position[0], position[0] + 4), 16));
+					position[0] += 4;
+					break;
+				default:
+					text.append(c);
+			}
+		}
+	}
+
+	/**
+	 * Skips spaces, then checks that the next character is the one expected and moves past it.
+	 *
+	 * @param json			 the text
+	 * @param position		 the position, which is moved past the character
+	 * @param expected		 the character expected
+	 * @throws IllegalArgumentException	 if the next character is a different one
+	 * @version 2026.10.18
+	 */
+	private static void expect(String json, int[] position, char expected)
+	{
+		if(next(json, position) != expected)
+		{
+			throw new IllegalArgumentException("Expected '" + expected + "' at " + (position[0] - 1));
+		}
+	}
+
+	/**
+	 * Skips spaces and moves past the next character.
+	 *
+	 * @param json			 the text
+	 * @param position		 the position, which is moved past the character
+	 * @return				 the character, or 0 at the end of the text
+	 * @version 2026.10.18
+	 */
+	private static char next(String json, int[] position)
+	{
+		char c = peek(json, position);
+		position[0]++;
+		return c;
+	}
+
+	/**
+	 * Skips spaces and looks at the next character without moving past it.
+	 *
+	 * @param json			 the text
+	 * @param position		 the position, which is moved past the spaces
+	 * @return				 the character, or 0 at the end of the text
+	 * @version 2026.10.18
+	 */
+	private static char peek(String json, int[] position)
+	{
+		position[0] = skipSpaces(json, position[0]);
+		return position[0] < json.length() ? json.charAt(position[0]) : 0;
+	}
+
+	/**
+	 * Finds the first character that isn't a space.
+	 *
+	 * @param json			 the text
+	 * @param start			 the position to start at
+	 * @return				 the position of the first character that isn't a space, or the length of the text
+	 * @version 2026.10.18
+	 */
+	private static int skipSpaces(String json, int start)
+	{
+		while(start < json.length() && Character.isWhitespace(json.charAt(start)))
+		{
+			start++;
+		}
+
+		return start;
+	}
+}
@@ -0,0 +1,150 @@
+import java.io.*;
+import java.net.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * A TCP server on the loopback address that takes one flat JSON object per line and answers each with one line.
+ * Every connection is served by its own virtual thread, and its requests are answered in the order they were sent.
+ * A request that fails is answered with <code>{"error": message}</code>, and the connection stays open.
+ *
+ * @author	Thanasi Bakis
+ */
+public class JsonLineServer implements Closeable
+{
+	/**
+	 * Answers requests.
+	 */
+	public interface Handler
+	{
+		/**
+		 * Answers one request.
+		 *
+		 * @param request		 the members of the request object
+		 * @return				 the answer, a JSON object on one line
+		 * @throws Exception	 if the request fails, which is sent back as its message
+		 */
+		String handle(Map<String, String> request) throws Exception;
+	}
+
+	private final ServerSocket server;
+	private final Handler handler;
+
+	/**
+	 * Starts serving requests.
+	 *
+	 * @param port			 the port to listen on, or 0 for any free port
+	 * @param handler		 answers the requests
+	 * @return				 the server
+	 * @throws IOException	 if the port can't be bound
+	 * @version 2026.10.18
+	 */
+	public static JsonLineServer start(int port, Handler handler) throws IOException
+	{
+		JsonLineServer server = new JsonLineServer(port, handler);
+
+		// Like the dispatcher of an HttpServer, the accepting thread keeps the program running until the server is closed
+		Thread.ofPlatform().name("json-line-server-" + server.getPort()).start(server::accept);
+		return server;
+	}
+
+	/**
+	 * Binds a server that does not accept connections yet.
+	 *
+	 * @param port			 the port to listen on, or 0 for any free port
+	 * @param handler		 answers the requests
+	 * @throws IOException	 if the port can't be bound
+	 * @version 2026.10.18
+	 */
+	private JsonLineServer(int port, Handler handler) throws IOException
+	{
+		this.handler = handler;
+		server = new ServerSocket(port, 0, InetAddress.getLoopbackAddress());
+	}
+
+	/**
+	 * Get the port the server listens on.
+	 *
+	 * @return			 the port
+	 * @version 2026.10.18
+	 */
+	public int getPort()
+	{
+		return server.getLocalPort();
+	}
+
+	/**
+	 * Stops accepting connections. Connections that are already open are served until the other end closes them.
+	 *
+	 * @throws IOException	 if the server socket can't be closed
+	 * @version 2026.10.18
+	 */
+	public void close() throws IOException
+	{
+		server.close();
+	}
+
+	/**
+	 * Accepts connections until the server is closed.
+	 *
+	 * @version 2026.10.18
+	 */
+	private void accept()
+	{
+		try
+		{
+			while(true)
+			{
+				Socket socket = server.accept();
+				Thread.ofVirtual().start(() -> serve(socket));
+			}
+		}
+		catch(IOException e)
+		{
+			// The server was closed
+		}
+	}
+
+	/**
+	 * Answers the requests on one connection until it is closed.
+	 *
+	 * @param socket	 the connection
+	 * @version 2026.10.18
+	 */
+	private void serve(Socket socket)
+	{
+		try(socket;
+			BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+			Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8)))
+		{
+			socket.setTcpNoDelay(true);
+
+			for(String line = in.readLine(); line != null; line = in.readLine())
+			{
+				String answer;
+
+				try
+				{
+					answer = handler.handle(Json.parseObject(line));
+				}
+				catch(Exception e)
+				{
+					answer = Json.object("error", String.valueOf(e.getMessage()));
+				}
+
+				out.write(answer);
+				out.write('\n');
+
+				// Requests that were sent together are answered together
+				if(!in.ready())
+				{
+					out.flush();
+				}
+			}
+		}
+		catch(IOException e)
+		{
+			// The other end went away
+		}
+	}
+}
@@ -0,0 +1,579 @@
+import java.io.*;
+import java.util.*;
+
+/**
+ * An Aho-Corasick automaton that finds every occurrence of a fixed set of keywords in one pass over a statement.
+ * Occurrences follow the same rule as <code>Grammar.findKeyword</code>: a keyword only matches when it is not
+ * surrounded by the letters a-z, so "I know" does not contain "no".
+ * Keywords that are words of <code>Grammar.VOCABULARY</code> are found by the word ids of the tokenized statement instead,
+ * so when every keyword is such a word, the characters of the statement are not read at all.
+ *
+ * @author	Thanasi Bakis
+ */
+public final class KeywordMatcher
+{
+	private final String[] keywords;
+	private final Map<String, Integer> keywordIds;
+	private final int[] keywordsByWordId;
+	private final boolean hasPhrases;
+	private final char[] symbols;
+	private final int[] asciiSymbols;
+	private final int[] transitions;
+	private final int[][] outputs;
+
+	/**
+	 * Compiles a set of keywords into an automaton.
+	 *
+	 * @param keywords	 the lowercase keywords to search for; duplicates share one id
+	 * @version 2026.10.18
+	 */
+	public KeywordMatcher(String... keywords)
+	{
+		keywordIds = new HashMap<String, Integer>();
+		List<String> distinctKeywords = new ArrayList<String>();
+
+		for(String keyword : keywords)
+		{
+			if(keyword.length() > 0 && !keywordIds.containsKey(keyword))
+			{
+				keywordIds.put(keyword, distinctKeywords.size());
+				distinctKeywords.add(keyword);
+			}
+		}
+
+		this.keywords = distinctKeywords.toArray(new String[0]);
+
+		// Keywords of the vocabulary are looked up by word id; the automaton only has to find the rest
+		keywordsByWordId = new int[Grammar.VOCABULARY.size()];
+		Arrays.fill(keywordsByWordId, -1);
+		boolean[] inAutomaton = new boolean[this.keywords.length];
+		TreeSet<Character> alphabet = new TreeSet<Character>();
+
+		for(int id = 0; id < this.keywords.length; id++)
+		{
+			int wordId = isWord(this.keywords[id]) ? Grammar.VOCABULARY.id(this.keywords[id]) : Vocabulary.UNKNOWN;
+
+			if(wordId >= 0)
+			{
+				keywordsByWordId[wordId] = id;
+				continue;
+			}
+
+			// The alphabet is every character used by a keyword; any other character sends the automaton back to the root
+			inAutomaton[id] = true;
+
+			for(char c : this.keywords[id].toCharArray())
+			{
+				alphabet.add(c);
+			}
+		}
+
+		hasPhrases = !alphabet.isEmpty();
+
+		symbols = new char[alphabet.size()];
+		int symbol = 0;
+
+		for(char c : alphabet)
+		{
+			symbols[symbol++] = c;
+		}
+
+		asciiSymbols = asciiSymbols(symbols);
+
+		// Build the trie of keywords
+		List<int[]> trie = new ArrayList<int[]>();
+		List<List<Integer>> stateOutputs = new ArrayList<List<Integer>>();
+		trie.add(newState());
+		stateOutputs.add(new ArrayList<Integer>());
+
+		for(int id = 0; id < this.keywords.length; id++)
+		{
+			if(!inAutomaton[id])
+			{
+				continue;
+			}
+
+			int state = 0;
+
+			for(char c : this.keywords[id].toCharArray())
+			{
+				int s = symbolOf(c);
+
+				if(trie.get(state)[s] < 0)
+				{
+					trie.get(state)[s] = trie.size();
+					trie.add(newState());
+					stateOutputs.add(new ArrayList<Integer>());
+				}
+
+				state = trie.get(state)[s];
+			}
+
+			stateOutputs.get(state).add(id);
+		}
+
+		// Turn the trie into a complete transition table by following failure links in breadth-first order
+		int stateCount = trie.size();
+		int[] failure = new int[stateCount];
+		transitions = new int[stateCount * symbols.length];
+		outputs = new int[stateCount][];
+		Deque<Integer> queue = new ArrayDeque<Integer>();
+
+		for(int s = 0; s < symbols.length; s++)
+		{
+			int child = trie.get(0)[s];
+
+			if(child < 0)
+			{
+				transitions[s] = 0;
+			}
+			else
+			{
+				transitions[s] = child;
+				failure[child] = 0;
+				queue.add(child);
+			}
+		}
+
+		outputs[0] = toArray(stateOutputs.get(0));
+
+		while(!queue.isEmpty())
+		{
+			int state = queue.poll();
+			stateOutputs.get(state).addAll(stateOutputs.get(failure[state]));
+			outputs[state] = toArray(stateOutputs.get(state));
+
+			for(int s = 0; s < symbols.length; s++)
+			{
+				int child = trie.get(state)[s];
+				int fallback = transitions[failure[state] * symbols.length + s];
+
+				if(child < 0)
+				{
+					transitions[state * symbols.length + s] = fallback;
+				}
+				else
+				{
+					transitions[state * symbols.length + s] = child;
+					failure[child] = fallback;
+					queue.add(child);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Creates an automaton from the tables of one that was compiled before.
+	 *
+	 * @param keywords			 the distinct keywords, in the order of their ids
+	 * @param keywordsByWordId	 the id of the keyword that each word of the vocabulary is, or -1
+	 * @param symbols			 the characters the automaton reads, in order
+	 * @param transitions		 the transition table
+	 * @param outputs			 the keywords that end at each state
+	 * @version 2026.10.18
+	 */
+	private KeywordMatcher(String[] keywords, int[] keywordsByWordId, char[] symbols, int[] transitions, int[][] outputs)
+	{
+		this.keywords = keywords;
+		this.keywordsByWordId = keywordsByWordId;
+		this.symbols = symbols;
+		this.transitions = transitions;
+		this.outputs = outputs;
+		keywordIds = new HashMap<String, Integer>();
+		hasPhrases = symbols.length > 0;
+		asciiSymbols = asciiSymbols(symbols);
+
+		for(int id = 0; id < keywords.length; id++)
+		{
+			keywordIds.put(keywords[id], id);
+		}
+	}
+
+	/**
+	 * Writes the compiled tables of this automaton, so <code>readFrom</code> can load them without compiling the keywords again.
+	 *
+	 * @param out			 where to write the tables
+	 * @throws IOException	 if the tables can't be written
+	 * @version 2026.10.18
+	 */
+	public void writeTo(DataOutput out) throws IOException
+	{
+		// The word ids only mean the same thing to an automaton read with the same vocabulary
+		out.writeInt(vocabularyHash());
+		out.writeInt(keywords.length);
+
+		for(String keyword : keywords)
+		{
+			out.writeUTF(keyword);
+		}
+
+		writeInts(out, keywordsByWordId);
+		out.writeInt(symbols.length);
+
+		for(char symbol : symbols)
+		{
+			out.writeChar(symbol);
+		}
+
+		writeInts(out, transitions);
+		out.writeInt(outputs.length);
+
+		for(int[] output : outputs)
+		{
+			writeInts(out, output);
+		}
+	}
+
+	/**
+	 * Reads an automaton written by <code>writeTo</code>.
+	 *
+	 * @param in			 where to read the tables
+	 * @return				 the automaton
+	 * @throws IOException	 if the tables can't be read, or were written with another <code>Grammar.VOCABULARY</code>
+	 * @version 2026.10.18
+	 */
+	public static KeywordMatcher readFrom(DataInput in) throws IOException
+	{
+		if(in.readInt() != vocabularyHash())
+		{
+			throw new IOException("The keywords were compiled with another vocabulary");
+		}
+
+		String[] keywords = new String[in.readInt()];
+
+		for(int id = 0; id < keywords.length; id++)
+		{
+			keywords[id] = in.readUTF();
+		}
+
+		int[] keywordsByWordId = readInts(in);
+		char[] symbols = new char[in.readInt()];
+
+		for(int i = 0; i < symbols.length; i++)
+		{
+			symbols[i] = in.readChar();
+		}
+
+		int[] transitions = readInts(in);
+		int[][] outputs = new int[in.readInt()][];
+
+		for(int state = 0; state < outputs.length; state++)
+		{
+			outputs[state] = readInts(in);
+		}
+
+		return new KeywordMatcher(keywords, keywordsByWordId, symbols, transitions, outputs);
+	}
+
+	/**
+	 * Finds every keyword in a statement in one pass.
+	 *
+	 * @param statement	 the tokenized statement to search
+	 * @return			 the first and last position of each keyword in the statement
+	 * @version 2026.10.18
+	 */
+	public Matches match(TokenizedStatement statement)
+	{
+		Matches matches = new Matches(keywords.length);
+
+		for(int i = 0; i < statement.wordCount(); i++)
+		{
+			int wordId = statement.wordId(i);
+
+			if(wordId >= 0 && keywordsByWordId[wordId] >= 0)
+			{
+				matches.add(keywordsByWordId[wordId], statement.wordStart(i));
+			}
+		}
+
+		if(!hasPhrases)
+		{
+			return matches;
+		}
+
+		String text = statement.toLowerCase();
+		int state = 0;
+
+		for(int i = 0; i < text.length(); i++)
+		{
+			int s = symbolOf(text.charAt(i));
+			state = s < 0 ? 0 : transitions[state * symbols.length + s];
+
+			for(int id : outputs[state])
+			{
+				int start = i - keywords[id].length() + 1;
+
+				if(!isLetterAt(text, start - 1) && !isLetterAt(text, i + 1))
+				{
+					matches.add(id, start);
+				}
+			}
+		}
+
+		return matches;
+	}
+
+	/**
+	 * Get the id of a keyword, which indexes into the <code>Matches</code> of this automaton.
+	 *
+	 * @param keyword	 a keyword this automaton was compiled with
+	 * @return			 the id of the keyword, or -1 if it was not compiled into this automaton
+	 * @version 2026.10.18
+	 */
+	public int keywordId(String keyword)
+	{
+		return keywordIds.getOrDefault(keyword, -1);
+	}
+
+	/**
+	 * Get the number of distinct keywords in this automaton.
+	 *
+	 * @return			 the number of keywords
+	 * @version 2026.10.18
+	 */
+	public int keywordCount()
+	{
+		return keywords.length;
+	}
+
+	/**
+	 * Maps a character to its column in the transition table.
+	 *
+	 * @param c			 the character
+	 * @return			 the symbol of the character, or -1 if no keyword uses it
+	 * @version 2026.10.18
+	 */
+	private int symbolOf(char c)
+	{
+		if(c < 128)
+		{
+			return asciiSymbols[c];
+		}
+
+		int symbol = Arrays.binarySearch(symbols, c);
+		return symbol < 0 ? -1 : symbol;
+	}
+
+	/**
+	 * Creates a trie state with no children.
+	 *
+	 * @return			 the children of the new state
+	 * @version 2026.10.18
+	 */
+	private int[] newState()
+	{
+		int[] children = new int[symbols.length];
+		Arrays.fill(children, -1);
+		return children;
+	}
+
+	/**
+	 * Determines whether the character at an offset is a letter, treating offsets outside the text as spaces.
+	 *
+	 * @param text		 the lowercase text
+	 * @param position	 the offset to check
+	 * @return			 whether there is a letter at that offset
+	 * @version 2026.10.18
+	 */
+	private static boolean isLetterAt(String text, int position)
+	{
+		if(position < 0 || position >= text.length())
+		{
+			return false;
+		}
+
+		char c = text.charAt(position);
+		return c >= 'a' && c <= 'z';
+	}
+
+	/**
+	 * Maps each ASCII character to its column in the transition table.
+	 *
+	 * @param symbols	 the characters the automaton reads, in order
+	 * @return			 the symbol of each ASCII character, or -1 for characters no keyword uses
+	 * @version 2026.10.18
+	 */
+	private static int[] asciiSymbols(char[] symbols)
+	{
+		int[] asciiSymbols = new int[128];
+		Arrays.fill(asciiSymbols, -1);
+
+		for(int symbol = 0; symbol < symbols.length && symbols[symbol] < 128; symbol++)
+		{
+			asciiSymbols[symbols[symbol]] = symbol;
+		}
+
+		return asciiSymbols;
+	}
+
+	/**
+	 * Hashes every word of <code>Grammar.VOCABULARY</code> in the order of their ids.
+	 *
+	 * @return			 the hash
+	 * @version 2026.10.18
+	 */
+	private static int vocabularyHash()
+	{
+		int hash = 1;
+
+		for(int id = 0; id < Grammar.VOCABULARY.size(); id++)
+		{
+			hash = 31 * hash + Grammar.VOCABULARY.word(id).hashCode();
+		}
+
+		return hash;
+	}
+
+	/**
+	 * Writes an array of <code>int</code>s after its length.
+	 *
+	 * @param out			 where to write the array
+	 * @param values		 the array
+	 * @throws IOException	 if the array can't be written
+	 * @version 2026.10.18
+	 */
+	static void writeInts(DataOutput out, int[] values) throws IOException
+	{
+		out.writeInt(values.length);
+
+		for(int value : values)
+		{
+			out.writeInt(value);
+		}
+	}
+
+	/**
+	 * Reads an array of <code>int</code>s written by <code>writeInts</code>.
+	 *
+	 * @param in			 where to read the array
+	 * @return				 the array
+	 * @throws IOException	 if the array can't be read
+	 * @version 2026.10.18
+	 */
+	static int[] readInts(DataInput in) throws IOException
+	{
+		int[] values = new int[in.readInt()];
+
+		for(int i = 0; i < values.length; i++)
+		{
+			values[i] = in.readInt();
+		}
+
+		return values;
+	}
+
+	/**
+	 * Determines whether a keyword is a single word, which the tokenizer would find as one word of a statement.
+	 *
+	 * @param keyword	 the keyword
+	 * @return			 whether the keyword only contains the letters a-z
+	 * @version 2026.10.18
+	 */
+	private static boolean isWord(String keyword)
+	{
+		for(int i = 0; i < keyword.length(); i++)
+		{
+			if(keyword.charAt(i) < 'a' || keyword.charAt(i) > 'z')
+			{
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Copies a list of keyword ids into an array.
+	 *
+	 * @param ids		 the keyword ids
+	 * @return			 the keyword ids as an array
+	 * @version 2026.10.18
+	 */
+	private static int[] toArray(List<Integer> ids)
+	{
+		int[] array = new int[ids.size()];
+
+		for(int i = 0; i < array.length; i++)
+		{
+			array[i] = ids.get(i);
+		}
+
+		return array;
+	}
+
+	/**
+	 * The positions of the keywords found in one statement.
+	 */
+	public static final class Matches
+	{
+		private final int[] first, last;
+
+		/**
+		 * Creates an empty set of matches.
+		 *
+		 * @param keywordCount	 the number of keywords in the automaton
+		 * @version 2026.10.18
+		 */
+		private Matches(int keywordCount)
+		{
+			first = new int[keywordCount];
+			last = new int[keywordCount];
+			Arrays.fill(first, -1);
+			Arrays.fill(last, -1);
+		}
+
+		/**
+		 * Records an occurrence of a keyword. Occurrences are reported from left to right.
+		 *
+		 * @param id			 the id of the keyword
+		 * @param position		 the position of the occurrence
+		 * @version 2026.10.18
+		 */
+		private void add(int id, int position)
+		{
+			if(first[id] < 0)
+			{
+				first[id] = position;
+			}
+
+			last[id] = position;
+		}
+
+		/**
+		 * Returns whether a keyword was found.
+		 *
+		 * @param id			 the id of the keyword
+		 * @return				 whether the keyword occurs in the statement
+		 * @version 2026.10.18
+		 */
+		public boolean contains(int id)
+		{
+			return id >= 0 && first[id] >= 0;
+		}
+
+		/**
+		 * Get the position of the first occurrence of a keyword.
+		 *
+		 * @param id			 the id of the keyword
+		 * @return				 the position of the first occurrence, or -1 if it was not found
+		 * @version 2026.10.18
+		 */
+		public int indexOf(int id)
+		{
+			return id < 0 ? -1 : first[id];
+		}
+
+		/**
+		 * Returns whether a keyword occurs at or after a position, like <code>Grammar.findKeyword(statement, keyword, startPos) &gt;= 0</code>.
+		 *
+		 * @param id			 the id of the keyword
+		 * @param startPos		 the position to search from
+		 * @return				 whether the keyword occurs at or after startPos
+		 * @version 2026.10.18
+		 */
+		public boolean containsFrom(int id, int startPos)
+		{
+			return id >= 0 && first[id] >= 0 && last[id] >= startPos;
+		}
+	}
+}
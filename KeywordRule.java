@@ -0,0 +1,166 @@
+/**
+ * A rule that gives a fixed reply, or runs an action, when a statement contains certain keywords.
+ *
+ * @author	Thanasi Bakis
+ */
+public final class KeywordRule
+{
+	private final String[] keywords;
+	private final boolean matchAll;
+	private boolean questionOnly;
+	private String id, reply, action;
+
+	/**
+	 * Creates a rule with no reply.
+	 *
+	 * @param matchAll	 whether every keyword must be found, rather than any one of them
+	 * @param keywords	 the lowercase keywords of the rule
+	 * @version 2026.10.18
+	 */
+	private KeywordRule(boolean matchAll, String... keywords)
+	{
+		this.matchAll = matchAll;
+		this.keywords = keywords;
+	}
+
+	/**
+	 * Creates a rule that applies when a statement contains any of the keywords.
+	 *
+	 * @param keywords	 the lowercase keywords of the rule
+	 * @return			 the new rule
+	 * @version 2026.10.18
+	 */
+	public static KeywordRule anyOf(String... keywords)
+	{
+		return new KeywordRule(false, keywords);
+	}
+
+	/**
+	 * Creates a rule that applies when a statement contains all of the keywords.
+	 *
+	 * @param keywords	 the lowercase keywords of the rule
+	 * @return			 the new rule
+	 * @version 2026.10.18
+	 */
+	public static KeywordRule allOf(String... keywords)
+	{
+		return new KeywordRule(true, keywords);
+	}
+
+	/**
+	 * Names this rule, for reporting which rules give responses.
+	 *
+	 * @param id		 the id of the rule
+	 * @return			 this rule
+	 * @version 2026.10.18
+	 */
+	public KeywordRule id(String id)
+	{
+		this.id = id;
+		return this;
+	}
+
+	/**
+	 * Restricts this rule to statements that are questions.
+	 *
+	 * @return			 this rule
+	 * @version 2026.10.18
+	 */
+	public KeywordRule ifQuestion()
+	{
+		questionOnly = true;
+		return this;
+	}
+
+	/**
+	 * Sets the fixed reply of this rule.
+	 *
+	 * @param reply		 the reply
+	 * @return			 this rule
+	 * @version 2026.10.18
+	 */
+	public KeywordRule reply(String reply)
+	{
+		this.reply = reply;
+		return this;
+	}
+
+	/**
+	 * Sets the action this rule runs instead of giving a fixed reply, such as "remember".
+	 *
+	 * @param action	 the name of the action
+	 * @return			 this rule
+	 * @version 2026.10.18
+	 */
+	public KeywordRule action(String action)
+	{
+		this.action = action;
+		return this;
+	}
+
+	/**
+	 * Get the id of this rule.
+	 *
+	 * @return			 the id, or the first keyword if the rule wasn't given an id
+	 * @version 2026.10.18
+	 */
+	public String getId()
+	{
+		return id != null ? id : keywords[0];
+	}
+
+	/**
+	 * Get the keywords of this rule.
+	 *
+	 * @return			 the lowercase keywords
+	 * @version 2026.10.18
+	 */
+	public String[] getKeywords()
+	{
+		return keywords.clone();
+	}
+
+	/**
+	 * Returns whether every keyword must be found, rather than any one of them.
+	 *
+	 * @return			 whether all keywords are required
+	 * @version 2026.10.18
+	 */
+	public boolean matchesAll()
+	{
+		return matchAll;
+	}
+
+	/**
+	 * Returns whether this rule only applies to questions.
+	 *
+	 * @return			 whether the statement must be a question
+	 * @version 2026.10.18
+	 */
+	public boolean isQuestionOnly()
+	{
+		return questionOnly;
+	}
+
+	/**
+	 * Get the fixed reply of this rule.
+	 *
+	 * @return			 the reply, or <code>null</code> if this rule runs an action
+	 * @version 2026.10.18
+	 */
+	public String getReply()
+	{
+		return reply;
+	}
+
+	/**
+	 * Get the action this rule runs.
+	 *
+	 * @return			 the name of the action, or <code>null</code> if this rule gives a fixed reply
+	 * @version 2026.10.18
+	 */
+	public String getAction()
+	{
+		return action;
+	}
+}
@@ -1,5 +1,7 @@
-import java.util.*;
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * A program to carry on conversations with a human user.
@@ -8,25 +10,222 @@ import java.io.*;
  */
 public class Magpie
 {
-	private Scanner in;
-	private List<String> items, information;
+	/**
+	 * The follow-up questions a <code>Magpie</code> can be waiting for an answer to.
+	 */
+	private enum Dialog
+	{
+		NONE, REMEMBER_ITEM, REMEMBER_INFORMATION, RECALL_ITEM, FORGET_ITEM, GAME_LOWER_BOUND, GAME_UPPER_BOUND, GAME_GUESS
+	}
 	
-	private final String[] RANDOM_RESPONSES = {"Interesting, tell me more.",
+	private static final int GAME_GUESSES = 5, CLOSEST_ITEMS = 10, STATE_VERSION = 1;
+	
+	private final MemoryStore memory;
+	private final ResponseCache cache;
+	private Dialog dialog;
+	private String pendingItem;
+	private int lowerBound, chosenNumber, guess;
+	
+	private static final String[] RANDOM_RESPONSES = {"Interesting, tell me more.",
 											  "Hmmm.",
 											  "Do you really think so?",
 											  "You don't say.",
 											  "I didn't know that.",
 											  "That's cool."};
+	
+	private static final KeywordRule[] KEYWORD_RULES = {KeywordRule.anyOf("hi", "hello", "hey").id("greeting").reply("Hello there."),
+														KeywordRule.allOf("you", "how").id("how-are-you").reply("I'm doing well."),
+														KeywordRule.allOf("your", "name").id("name").reply("I'm Magpie."),
+														KeywordRule.anyOf("remember").id("remember").action("remember"),
+														KeywordRule.anyOf("recall").id("recall").action("recall"),
+														KeywordRule.anyOf("delete").id("delete").action("delete"),
+														KeywordRule.anyOf("no").id("negative").reply("Why so negative?"),
+														KeywordRule.allOf("play", "game").id("game").action("game"),
+														KeywordRule.anyOf("mother", "father", "sister", "brother", "family").id("family").reply("Tell me more about your family."),
+														KeywordRule.anyOf("dog", "cat").id("pets").reply("Tell me more about your pets."),
+														KeywordRule.anyOf("mr. allen").id("teacher").reply("He sounds like a good teacher."),
+														KeywordRule.allOf("computer science", "like").id("computer-science-like").reply("Yes, it is my favorite course."),
+														KeywordRule.anyOf("computer science").id("computer-science").reply("I love that class."),
+														KeywordRule.anyOf("good").id("good").reply("That's good to hear."),
+														KeywordRule.anyOf("favorite").ifQuestion().id("favorite-question").reply("I'm not sure."),
+														KeywordRule.anyOf("favorite").id("favorite").reply("That's mine, too."),
+														KeywordRule.anyOf("birthday").id("birthday").reply("Happy birthday!"),
+														KeywordRule.anyOf("feared").id("feared").reply("FEARED."),
+														KeywordRule.anyOf("questions").id("questions").reply("No.")};
+	
+	// The keyword rules are counted under their own ids as well, added to the metrics when they are compiled.
+	// A response from the cache is counted under the rule that gave it, and under "cache" too.
+	private static final ResponseMetrics METRICS = new ResponseMetrics("dialog", "cache", "empty", "unmatched-be-verb",
+																	   "transform-subject-be-verb", "transform-be-verb-subject",
+																	   "transform-i-want-to", "transform-i-want", "transform-modal-auxiliary",
+																	   "transform-i-you", "transform-you-me", "transform-you-like",
+																	   "not-sure", "random");
+	private static final int DIALOG = METRICS.ruleIndex("dialog"),
+							 CACHE = METRICS.ruleIndex("cache"),
+							 EMPTY = METRICS.ruleIndex("empty"),
+							 UNMATCHED_BE_VERB = METRICS.ruleIndex("unmatched-be-verb"),
+							 TRANSFORM_SUBJECT_BE_VERB = METRICS.ruleIndex("transform-subject-be-verb"),
+							 TRANSFORM_BE_VERB_SUBJECT = METRICS.ruleIndex("transform-be-verb-subject"),
+							 TRANSFORM_I_WANT_TO = METRICS.ruleIndex("transform-i-want-to"),
+							 TRANSFORM_I_WANT = METRICS.ruleIndex("transform-i-want"),
+							 TRANSFORM_MODAL_AUXILIARY = METRICS.ruleIndex("transform-modal-auxiliary"),
+							 TRANSFORM_I_YOU = METRICS.ruleIndex("transform-i-you"),
+							 TRANSFORM_YOU_ME = METRICS.ruleIndex("transform-you-me"),
+							 TRANSFORM_YOU_LIKE = METRICS.ruleIndex("transform-you-like"),
+							 NOT_SURE = METRICS.ruleIndex("not-sure"),
+							 RANDOM = METRICS.ruleIndex("random");
+	
+	/**
+	 * A list of keyword rules compiled into a <code>RuleTable</code>, which is never changed once it is published.
+	 */
+	private static final class CompiledRules
+	{
+		private final KeywordRule[] rules;
+		private final RuleTable table;
+		private final int[] metrics;
+		private final long generation;
+		
+		/**
+		 * Wraps a compiled rule table.
+		 *
+		 * @param table		 the rules, compiled by <code>compileRules</code> or read from a snapshot of it
+		 * @param generation the number of rule lists compiled before this one
+		 * @throws IllegalArgumentException	 if a rule has neither a reply nor a known action,
+		 * 									 or the table doesn't start with the keywords of the transformations
+		 * @version 2026.10.18
+		 */
+		private CompiledRules(RuleTable table, long generation)
+		{
+			this.table = table;
+			this.generation = generation;
+			rules = table.getRules();
+			metrics = new int[rules.length];
+			
+			for(int i = 0; i < rules.length; i++)
+			{
+				String action = rules[i].getAction();
+				
+				if(action == null ? rules[i].getReply() == null : !ACTIONS.contains(action))
+				{
+					throw new IllegalArgumentException("Rule " + rules[i].getId() + " needs a reply or one of the actions " + ACTIONS);
+				}
+			}
+			
+			for(int id = 0; id < TRANSFORM_KEYWORDS.length; id++)
+			{
+				if(table.keywordId(TRANSFORM_KEYWORDS[id]) != id)
+				{
+					throw new IllegalArgumentException("The rule table wasn't compiled by Magpie.compileRules");
+				}
+			}
+			
+			for(int i = 0; i < rules.length; i++)
+			{
+				metrics[i] = METRICS.ruleIndex(rules[i].getId());
+			}
+		}
+	}
+	
+	private static final List<String> ACTIONS = List.of("remember", "recall", "delete", "game");
+	private static final String[] TRANSFORM_KEYWORDS = {"i want", "to", "i", "you", "me", "like"};
+	private static final int I_WANT = 0, TO = 1, I = 2, YOU = 3, ME = 4, LIKE = 5;
+	
+	// Replaced in one step when the rules are reloaded, and read once per response, so a response never mixes two rule lists
+	private static final AtomicReference<CompiledRules> RULES = new AtomicReference<CompiledRules>(new CompiledRules(compileRules(KEYWORD_RULES), 0));
 
 	/**
-	 * Creates a new <code>Magpie</code> chatbot that receives input from the user through <code>stdin</code>.
-	 * @version 2016.05.26
+	 * A user statement on its way to a response. It is normalized when it is created, and tokenized and matched against
+	 * the keyword rules by <code>analyze</code>. Neither step depends on the conversation, so both can run on any thread
+	 * before the statement is given to its <code>Magpie</code>, and one analysis can be given to several <code>Magpie</code>s.
+	 */
+	public static final class Analysis
+	{
+		private final String statement, normalized;
+		private final CompiledRules rules;
+		private TokenizedStatement words;
+		private KeywordMatcher.Matches matches;
+		private int keywordRule;
+		
+		/**
+		 * Normalizes a statement: lowercase, trimmed and without contractions.
+		 *
+		 * @param statement	 the user statement
+		 * @version 2026.10.18
+		 */
+		public Analysis(String statement)
+		{
+			this.statement = statement;
+			normalized = Grammar.removeContractions(statement.toLowerCase().trim());
+			rules = RULES.get();
+		}
+		
+		/**
+		 * Tokenizes the statement and finds the keyword rule that applies to it, unless that was already done.
+		 * When <code>Magpie</code>s on several threads share the analysis, the first to need it does the work.
+		 *
+		 * @return			 this analysis
+		 * @version 2026.10.18
+		 */
+		public synchronized Analysis analyze()
+		{
+			if(words == null)
+			{
+				words = new TokenizedStatement(normalized);
+				matches = rules.table.match(words);
+				keywordRule = rules.table.selectIndex(words, matches);
+			}
+			
+			return this;
+		}
+		
+		/**
+		 * Get the statement as it was given.
+		 *
+		 * @return			 the user statement
+		 * @version 2026.10.18
+		 */
+		public String getStatement()
+		{
+			return statement;
+		}
+	}
+
+	/**
+	 * Creates a new <code>Magpie</code> chatbot.
+	 * Follow-up questions, such as what to remember, are answered by the next statements given to <code>getResponse</code>,
+	 * so a conversation never waits for input in the middle of a response.
+	 *
+	 * @version 2026.10.18
 	 */
 	public Magpie()
 	{
-		in = new Scanner(System.in);
-		items = new ArrayList<String>();
-		information = new ArrayList<String>();
+		this(new MemoryStore());
+	}
+
+	/**
+	 * Creates a new <code>Magpie</code> chatbot that remembers items in a given memory, such as one kept in a log file.
+	 *
+	 * @param memory	 the memory to remember items in
+	 * @version 2026.10.18
+	 */
+	public Magpie(MemoryStore memory)
+	{
+		this(memory, null);
+	}
+
+	/**
+	 * Creates a new <code>Magpie</code> chatbot that caches the responses that depend on nothing but the statement.
+	 * Responses that use the memory, the game or a random choice are never cached.
+	 *
+	 * @param memory	 the memory to remember items in
+	 * @param cache		 the cache of responses, which may be shared with other <code>Magpie</code>s, or <code>null</code> for no cache
+	 * @version 2026.10.18
+	 */
+	public Magpie(MemoryStore memory, ResponseCache cache)
+	{
+		this.memory = memory;
+		this.cache = cache;
+		dialog = Dialog.NONE;
 	}
 
 	/**
@@ -40,260 +239,553 @@ public class Magpie
 		return "Hello.";
 	}
 
+	/**
+	 * Returns whether the next statement will be taken as the answer to a follow-up question,
+	 * such as what to remember or a guess in the game.
+	 *
+	 * @return			 whether a follow-up question is waiting for an answer
+	 * @version 2026.10.18
+	 */
+	public boolean isInDialog()
+	{
+		return dialog != Dialog.NONE;
+	}
+
 	/**
 	 * Gives a response to a user statement.
+	 * If <code>Magpie</code> asked a follow-up question, the statement is taken as the answer to it.
 	 * 
 	 * @param statement	 the user statement
 	 * @return			 a response based on the rules given
-	 * @version 2016.05.26
+	 * @version 2026.10.18
 	 */
 	public String getResponse(String statement)
 	{
-		String response = "";
-		statement = Grammar.removeContractions(statement.toLowerCase().trim());
+		long start = System.nanoTime();
 		
-		if(statement.length() == 0)
-		{
-			response = "Say something, please.";
-		}
-		else if(Grammar.findKeyword(statement, "hi") >= 0 
-			 || Grammar.findKeyword(statement, "hello") >= 0
-			 || Grammar.findKeyword(statement, "hey") >= 0)
+		if(dialog != Dialog.NONE)
 		{
-			response = "Hello there.";
+			return recorded(DIALOG, start, continueDialog(statement));
 		}
-		else if(Grammar.findKeyword(statement, "you") >= 0
-			 && Grammar.findKeyword(statement, "how") >= 0)
+		
+		return respondTo(new Analysis(statement), start);
+	}
+	
+	/**
+	 * Gives a response to a user statement that may already have been analyzed on another thread.
+	 * If <code>Magpie</code> asked a follow-up question, the statement is taken as the answer to it, and the analysis is not used.
+	 * 
+	 * @param analysis	 the user statement and its analysis
+	 * @return			 a response based on the rules given
+	 * @version 2026.10.18
+	 */
+	public String getResponse(Analysis analysis)
+	{
+		long start = System.nanoTime();
+		
+		if(dialog != Dialog.NONE)
 		{
-			response = "I'm doing well.";
+			return recorded(DIALOG, start, continueDialog(analysis.statement));
 		}
-		else if(Grammar.findKeyword(statement, "your") >= 0
-			 && Grammar.findKeyword(statement, "name") >= 0)
+		
+		return respondTo(analysis, start);
+	}
+	
+	/**
+	 * Gives a response to a statement outside of a follow-up question, analyzing it first if it hasn't been yet.
+	 * 
+	 * @param analysis	 the user statement and its analysis
+	 * @param start		 when the response was started, from <code>System.nanoTime</code>
+	 * @return			 a response based on the rules given
+	 * @version 2026.10.18
+	 */
+	private String respondTo(Analysis analysis, long start)
+	{
+		String response = "";
+		boolean cacheable = true;
+		int rule;
+		String statement = analysis.normalized;
+		CompiledRules rules = analysis.rules;
+		
+		if(cache != null)
 		{
-			response = "I'm Magpie.";
+			ResponseCache.Entry cached = cache.get(statement, rules.generation);
+			
+			if(cached != null)
+			{
+				METRICS.record(CACHE, System.nanoTime() - start);
+				return recorded(cached.getRule(), start, cached.getResponse());
+			}
 		}
-		else if(Grammar.findKeyword(statement, "remember") >= 0)
+		
+		analysis.analyze();
+		TokenizedStatement words = analysis.words;
+		KeywordMatcher.Matches matches = analysis.matches;
+		int keywordRule = analysis.keywordRule;
+		
+		if(statement.length() == 0)
 		{
-			response = addToMemory();
+			response = "Say something, please.";
+			rule = EMPTY;
 		}
-		else if(Grammar.findKeyword(statement, "recall") >= 0)
+		else if(keywordRule >= 0)
 		{
-			response = getFromMemory();
+			response = respond(rules.rules[keywordRule]);
+			cacheable = rules.rules[keywordRule].getAction() == null;
+			rule = rules.metrics[keywordRule];
 		}
-		else if(Grammar.findKeyword(statement, "delete") >= 0)
+		// Responses which require transformations
+		else if(Grammar.containsBeVerb(words)
+			 && Grammar.containsSubjectPronoun(words))
 		{
-			response = removeFromMemory();
+			rule = UNMATCHED_BE_VERB;
+			
+			if(Grammar.findKeyword(words, Grammar.findBeVerb(words), Grammar.findKeyword(words, Grammar.findSubjectPronoun(words))) >= 0)
+			{
+				response = transformSubjectBeVerbStatement(words);
+				rule = TRANSFORM_SUBJECT_BE_VERB;
+			}
+			else if(Grammar.findKeyword(words, Grammar.findSubjectPronoun(words), Grammar.findKeyword(words, Grammar.findBeVerb(words))) >= 0)
+			{
+				response = transformBeVerbSubjectStatement(words);
+				rule = TRANSFORM_BE_VERB_SUBJECT;
+			}
 		}
-		else if(Grammar.findKeyword(statement, "no") >= 0)
+		else if(matches.contains(I_WANT))
 		{
-			response = "Why so negative?";
+			if(matches.containsFrom(TO, matches.indexOf(I_WANT)))
+			{
+				response = transformIWantToStatement(words);
+				rule = TRANSFORM_I_WANT_TO;
+			}
+			else
+			{
+				response = transformIWantStatement(words);
+				rule = TRANSFORM_I_WANT;
+			}
 		}
-		else if(Grammar.findKeyword(statement, "play") >= 0
-			 && Grammar.findKeyword(statement, "game") >= 0)
+		else if(Grammar.containsModalAuxiliary(words) 
+			 && Grammar.isQuestion(words))
 		{
-			response = playGame();
+			response = transformModalAuxiliaryStatement(words);
+			rule = TRANSFORM_MODAL_AUXILIARY;
 		}
-		else if(Grammar.findKeyword(statement, "mother") >= 0
-			 || Grammar.findKeyword(statement, "father") >= 0
-			 || Grammar.findKeyword(statement, "sister") >= 0
-			 || Grammar.findKeyword(statement, "brother") >= 0
-			 || Grammar.findKeyword(statement, "family") >= 0)
+		else if(matches.contains(I)
+			 && matches.containsFrom(YOU, matches.indexOf(I)))
 		{
-			response = "Tell me more about your family.";
+			response = transformIYouStatement(words);
+			rule = TRANSFORM_I_YOU;
 		}
-		else if(Grammar.findKeyword(statement, "dog") >= 0
-			 || Grammar.findKeyword(statement, "cat") >= 0)
+		else if(matches.contains(YOU)
+			 && matches.containsFrom(ME, matches.indexOf(YOU)))
 		{
-			response = "Tell me more about your pets.";
+			response = transformYouMeStatement(words);
+			rule = TRANSFORM_YOU_ME;
 		}
-		else if(Grammar.findKeyword(statement, "mr. allen") >= 0)
+		else if(matches.contains(YOU)
+			 && matches.containsFrom(LIKE, matches.indexOf(YOU)))
 		{
-			response = "He sounds like a good teacher.";
+			response = transformYouLikeStatement(words);
+			rule = TRANSFORM_YOU_LIKE;
 		}
-		else if(Grammar.findKeyword(statement, "computer science") >= 0)
+		else
 		{
-			if(Grammar.findKeyword(statement, "like") >= 0)
+			if(Grammar.isQuestion(words))
 			{
-				response = "Yes, it is my favorite course.";
+				response = "I'm not sure.";
+				rule = NOT_SURE;
 			}
 			else
-			{
-				response = "I love that class.";
+			{ 
+				response = getRandomResponse();
+				cacheable = false;
+				rule = RANDOM;
 			}
 		}
-		else if(Grammar.findKeyword(statement, "good") >= 0)
-		{
-			response = "That's good to hear.";
-		}
-		else if(Grammar.findKeyword(statement, "favorite") >= 0)
+		
+		if(cache != null && cacheable)
 		{
-			if(Grammar.isQuestion(statement))
-			{
-				response = "I'm not sure.";
-			}
-			else
-			{
-				response = "That's mine, too.";
-			}
+			cache.put(statement, rules.generation, rule, response);
 		}
-		else if(Grammar.findKeyword(statement, "birthday") >= 0)
+		return recorded(rule, start, response);
+	}
+	
+	/**
+	 * Counts a response towards the rule that gave it.
+	 *
+	 * @param rule		 the index of the rule in the metrics
+	 * @param start		 when the response was started, from <code>System.nanoTime</code>
+	 * @param response	 the response
+	 * @return			 the response
+	 * @version 2026.10.18
+	 */
+	private static String recorded(int rule, long start, String response)
+	{
+		METRICS.record(rule, System.nanoTime() - start);
+		return response;
+	}
+	
+	/**
+	 * Get the metrics of every <code>Magpie</code>, counting how often each rule gives a response and how long it takes.
+	 *
+	 * @return			 the metrics shared by every <code>Magpie</code>
+	 * @version 2026.10.18
+	 */
+	public static ResponseMetrics getMetrics()
+	{
+		return METRICS;
+	}
+	
+	/**
+	 * Replaces the keyword rules of every <code>Magpie</code>. The rules are compiled before they replace the old ones in one step,
+	 * so responses already being given keep using the old rules, and none are ever given by half-compiled rules.
+	 * Cached responses given by the old rules are no longer used.
+	 *
+	 * @param rules		 the rules, from highest to lowest priority
+	 * @throws IllegalArgumentException	 if a rule has neither a reply nor a known action, in which case the old rules are kept
+	 * @version 2026.10.18
+	 */
+	public static void setRules(KeywordRule[] rules)
+	{
+		setRules(compileRules(rules));
+	}
+	
+	/**
+	 * Replaces the keyword rules of every <code>Magpie</code> with rules that were already compiled, such as ones read from a snapshot,
+	 * in the same way as <code>setRules(KeywordRule[])</code>.
+	 *
+	 * @param table		 the rules, compiled by <code>compileRules</code>
+	 * @throws IllegalArgumentException	 if a rule has neither a reply nor a known action, or the table wasn't compiled by
+	 * 									 <code>compileRules</code>, in which case the old rules are kept
+	 * @version 2026.10.18
+	 */
+	public static void setRules(RuleTable table)
+	{
+		// Only the generation depends on the old rules, so the table is compiled once however often the race is lost
+		CompiledRules old, compiled;
+		
+		do
 		{
-			response = "Happy birthday!";
+			old = RULES.get();
+			compiled = new CompiledRules(table, old.generation + 1);
 		}
-		else if(Grammar.findKeyword(statement, "feared") >= 0)
+		while(!RULES.compareAndSet(old, compiled));
+	}
+	
+	/**
+	 * Compiles keyword rules into a table that <code>setRules</code> takes, finding the keywords of the transformations too.
+	 * The table can be written to a snapshot with <code>RuleTable.writeTo</code>, so a later start can skip reading and compiling the rules.
+	 *
+	 * @param rules		 the rules, from highest to lowest priority
+	 * @return			 the compiled rules
+	 * @version 2026.10.18
+	 */
+	public static RuleTable compileRules(KeywordRule[] rules)
+	{
+		// The keywords used by the transformations are found in the same pass as the keywords of the rules,
+		// and come first so that their ids are the same in every table
+		return new RuleTable(rules, TRANSFORM_KEYWORDS);
+	}
+	
+	/**
+	 * Restores the keyword rules built into <code>Magpie</code>.
+	 *
+	 * @version 2026.10.18
+	 */
+	public static void resetRules()
+	{
+		setRules(KEYWORD_RULES);
+	}
+
+	/**
+	 * Writes everything this <code>Magpie</code> knows about its conversation: what it remembers,
+	 * and any follow-up question it is waiting for an answer to, such as a game in progress.
+	 * <code>readState</code> reads it back, in this or another program, to carry on the conversation.
+	 *
+	 * @param out			 where to write the state
+	 * @throws IOException	 if the state can't be written
+	 * @version 2026.10.18
+	 */
+	public void writeState(DataOutput out) throws IOException
+	{
+		out.writeByte(STATE_VERSION);
+		out.writeByte(dialog.ordinal());
+		writeString(out, pendingItem);
+		out.writeInt(lowerBound);
+		out.writeInt(chosenNumber);
+		out.writeInt(guess);
+		out.writeInt(memory.size());
+		
+		try
 		{
-			response = "FEARED.";
+			memory.forEach((item, info) ->
+			{
+				try
+				{
+					writeString(out, item);
+					writeString(out, info);
+				}
+				catch(IOException e)
+				{
+					throw new UncheckedIOException(e);
+				}
+			});
 		}
-		else if(Grammar.findKeyword(statement, "questions") >= 0)
+		catch(UncheckedIOException e)
 		{
-			response = "No.";
+			throw e.getCause();
 		}
-		// Responses which require transformations
-		else if(Grammar.containsBeVerb(statement)
-			 && Grammar.containsSubjectPronoun(statement))
+	}
+	
+	/**
+	 * Creates a <code>Magpie</code> that carries on a conversation written by <code>writeState</code>.
+	 *
+	 * @param in			 where to read the state
+	 * @param memory		 an empty memory to remember the items of the conversation in
+	 * @param cache			 the cache of responses, or <code>null</code> for no cache
+	 * @return				 the <code>Magpie</code>
+	 * @throws IOException	 if the state can't be read or is not a <code>Magpie</code>'s state
+	 * @version 2026.10.18
+	 */
+	public static Magpie readState(DataInput in, MemoryStore memory, ResponseCache cache) throws IOException
+	{
+		if(in.readByte() != STATE_VERSION)
 		{
-			if(Grammar.findKeyword(statement, Grammar.findBeVerb(statement), Grammar.findKeyword(statement, Grammar.findSubjectPronoun(statement))) >= 0)
-			{
-				response = transformSubjectBeVerbStatement(statement);
-			}
-			else if(Grammar.findKeyword(statement, Grammar.findSubjectPronoun(statement), Grammar.findKeyword(statement, Grammar.findBeVerb(statement))) >= 0)
-			{
-				response = transformBeVerbSubjectStatement(statement);
-			}
+			throw new IOException("Not a Magpie state");
 		}
-		else if(Grammar.findKeyword(statement, "i want") >= 0)
+		
+		Magpie magpie = new Magpie(memory, cache);
+		int dialog = in.readByte();
+		
+		if(dialog < 0 || dialog >= Dialog.values().length)
 		{
-			if(Grammar.findKeyword(statement, "to", Grammar.findKeyword(statement, "i want")) >= 0)
-			{
-				response = transformIWantToStatement(statement);
-			}
-			else
-			{
-				response = transformIWantStatement(statement);
-			}
+			throw new IOException("Unknown dialog: " + dialog);
 		}
-		else if(Grammar.containsModalAuxiliary(statement) 
-			 && Grammar.isQuestion(statement))
+		
+		magpie.dialog = Dialog.values()[dialog];
+		magpie.pendingItem = readString(in);
+		magpie.lowerBound = in.readInt();
+		magpie.chosenNumber = in.readInt();
+		magpie.guess = in.readInt();
+		
+		for(int items = in.readInt(); items > 0; items--)
 		{
-			response = transformModalAuxiliaryStatement(statement);
+			magpie.memory.remember(readString(in), readString(in));
 		}
-		else if(Grammar.findKeyword(statement, "i") >= 0
-			 && Grammar.findKeyword(statement, "you", Grammar.findKeyword(statement, "i")) >= 0)
+		
+		return magpie;
+	}
+	
+	/**
+	 * Writes a string that may be longer than <code>writeUTF</code> allows, or <code>null</code>.
+	 *
+	 * @param out			 where to write the string
+	 * @param text			 the string, or <code>null</code>
+	 * @throws IOException	 if the string can't be written
+	 * @version 2026.10.18
+	 */
+	private static void writeString(DataOutput out, String text) throws IOException
+	{
+		if(text == null)
 		{
-			response = transformIYouStatement(statement);
+			out.writeInt(-1);
+			return;
 		}
-		else if(Grammar.findKeyword(statement, "you") >= 0
-			 && Grammar.findKeyword(statement, "me", Grammar.findKeyword(statement, "you")) >= 0)
+		
+		byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+	
+	/**
+	 * Reads a string written by <code>writeString</code>.
+	 *
+	 * @param in			 where to read the string
+	 * @return				 the string, or <code>null</code>
+	 * @throws IOException	 if the string can't be read
+	 * @version 2026.10.18
+	 */
+	private static String readString(DataInput in) throws IOException
+	{
+		int length = in.readInt();
+		
+		if(length < 0)
 		{
-			response = transformYouMeStatement(statement);
+			return null;
 		}
-		else if(Grammar.findKeyword(statement, "you") >= 0
-			 && Grammar.findKeyword(statement, "like", Grammar.findKeyword(statement, "you")) >= 0)
+		
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Gives the response of a keyword rule, running its action if it has one.
+	 *
+	 * @param rule	  the rule that applies to the user statement
+	 * @return	  the reply of the rule, or the response of its action
+	 * @version 2026.10.18
+	 */
+	private String respond(KeywordRule rule)
+	{
+		if(rule.getAction() == null)
 		{
-			response = transformYouLikeStatement(statement);
+			return rule.getReply();
 		}
-		else
+		
+		switch(rule.getAction())
 		{
-			if(Grammar.isQuestion(statement))
-			{
-				response = "I'm not sure.";
-			}
-			else
-			{ 
-				response = getRandomResponse();
-			}
+			case "remember":
+				return addToMemory();
+			case "recall":
+				return getFromMemory();
+			case "delete":
+				return removeFromMemory();
+			case "game":
+				return playGame();
+			default:
+				throw new IllegalArgumentException("Unknown action: " + rule.getAction());
 		}
-		return response;
 	}
 
 	/**
-	 * Saves a topic and related information to <code>ArrayList</code> instance variables.
+	 * Starts saving a topic and related information to the memory.
 	 *
-	 * @return	  a response confirming the action
-	 * @version 2016.05.26
+	 * @return	  the question asking for the topic
+	 * @version 2026.10.18
 	 */
 	private String addToMemory()
 	{
-		System.out.print("What's the item I should remember? ");
-		String item = in.nextLine();
-		System.out.print("What's the information I should remember? ");
-		String info = in.nextLine();
-		items.add(item);
-		information.add(info);
-		
-		return "You got it. I'll remember that.";
+		dialog = Dialog.REMEMBER_ITEM;
+		return "What's the item I should remember?";
 	}
 
 	/**
-	 * Gives information from the <code>ArrayList</code> instance variables.
+	 * Starts giving information from the memory.
 	 *
-	 * @return	  information based on the requested item
-	 * @version 2016.05.26
+	 * @return	  the question asking for the topic
+	 * @version 2026.10.18
 	 */
 	private String getFromMemory()
 	{
-		System.out.print("What's the item I should recall? ");
-		String item = in.nextLine();
+		dialog = Dialog.RECALL_ITEM;
+		return "What's the item I should recall?";
+	}
+
+	/**
+	 * Starts removing a topic and related information from the memory.
+	 *
+	 * @return	  the question asking for the topic
+	 * @version 2026.10.18
+	 */
+	private String removeFromMemory()
+	{
+		dialog = Dialog.FORGET_ITEM;
+		return "What's the item I should forget?";
+	}
+
+	/**
+	 * Takes a statement as the answer to the follow-up question that was asked last, and moves the dialog forward.
+	 *
+	 * @param answer	  the user's answer
+	 * @return	  the next follow-up question, or the result of the dialog
+	 * @version 2026.10.18
+	 */
+	private String continueDialog(String answer)
+	{
+		Dialog current = dialog;
+		dialog = Dialog.NONE;
 		
-		for(int i = 0; i<items.size(); i++)
+		switch(current)
 		{
-			if(items.get(i).equals(item))
-			{
-				return "\"" + item + "\" is " + information.get(i);
-			}
+			case REMEMBER_ITEM:
+				pendingItem = answer;
+				dialog = Dialog.REMEMBER_INFORMATION;
+				return "What's the information I should remember?";
+			case REMEMBER_INFORMATION:
+				memory.remember(pendingItem, answer);
+				pendingItem = null;
+				return "You got it. I'll remember that.";
+			case RECALL_ITEM:
+				return recall(answer);
+			case FORGET_ITEM:
+				return forget(answer);
+			case GAME_LOWER_BOUND:
+			case GAME_UPPER_BOUND:
+				return setGameBound(current, answer);
+			case GAME_GUESS:
+				return takeGuess(answer);
+			default:
+				throw new IllegalStateException("Not in a dialog");
 		}
+	}
+
+	/**
+	 * Gives information from the memory.
+	 *
+	 * @param item	  the topic to recall
+	 * @return	  information based on the requested item
+	 * @version 2026.10.18
+	 */
+	private String recall(String item)
+	{
+		String info = memory.recall(item);
 		
-		System.out.println("I'm not sure what that is. This is what I know:");
-		
-		for(String i: items)
+		if(info != null)
 		{
-			System.out.println("\t" + i);
+			return "\"" + item + "\" is " + info;
 		}
 		
-		return "Sorry. Please try again.";
+		return listItems(item) + "Sorry. Please try again.";
 	}
 
 	/**
-	 * Removes a topic and related information from the <code>ArrayList</code> instance variables.
+	 * Removes a topic and related information from the memory.
 	 *
+	 * @param item	  the topic to forget
 	 * @return	  a response confirming the action
-	 * @version 2016.05.26
+	 * @version 2026.10.18
 	 */
-	private String removeFromMemory()
+	private String forget(String item)
 	{
-		System.out.print("What's the item I should forget? ");
-		String item = in.nextLine();
-		
-		for(int i = 0; i < items.size(); i++)
+		if(memory.forget(item))
 		{
-			if(items.get(i).equals(item))
-			{
-				items.remove(i);
-				information.remove(i);
-				
-				return "You got it. I'll forget that.";
-			}
+			return "You got it. I'll forget that.";
 		}
 		
-		System.out.println("I'm not sure what that is. This is what I know:");
+		return listItems(item) + "Sorry. Please try again.";
+	}
+
+	/**
+	 * Lists the remembered topics closest to an item that can't be found.
+	 *
+	 * @param item	  the topic that can't be found
+	 * @return	  the list of topics, ending with a new line
+	 * @version 2026.10.18
+	 */
+	private String listItems(String item)
+	{
+		StringBuilder list = new StringBuilder("I'm not sure what that is. This is what I know:\n");
 		
-		for(String i: items)
+		for(String i: memory.closestItems(item, CLOSEST_ITEMS))
 		{
-			System.out.println("\t" + i);
+			list.append('\t').append(i).append('\n');
 		}
 		
-		return "Sorry. Please try again.";
+		return list.toString();
 	}
 	
 	/**
 	 * Take a statement with "<subject> <be verb> <something>." and transform it into "Why <be verb> <subject> <something>?".
 	 *
-	 * @param statement	 the user statement, assumed to contain a subject pronoun followed by a be verb
+	 * @param words		 the tokenized user statement, assumed to contain a subject pronoun followed by a be verb
 	 * @return			 the transformed statement
-	 * @version 2016.05.26
+	 * @version 2026.10.18
 	 */
-	private String transformSubjectBeVerbStatement(String statement)
+	private String transformSubjectBeVerbStatement(TokenizedStatement words)
 	{
+		String statement = words.toString();
+		
 		// Remove any final punctuation
 		if(statement.charAt(statement.length() - 1) == '?'
 		|| statement.charAt(statement.length() - 1) == '.')
@@ -301,10 +793,10 @@ public class Magpie
 			statement = statement.substring(0, statement.length() - 1);
 		}
 		
-		String subject = Grammar.findSubjectPronoun(statement);
-		String beVerb = Grammar.findBeVerb(statement);
-		int positionOfSubject = Grammar.findKeyword(statement, subject);
-		int positionOfBeVerb = Grammar.findKeyword(statement, beVerb, positionOfSubject);
+		String subject = Grammar.findPointOfView(words).getSubjectPronoun();
+		String beVerb = Grammar.findBeVerb(words);
+		int positionOfSubject = Grammar.findKeyword(words, subject);
+		int positionOfBeVerb = Grammar.findKeyword(words, beVerb, positionOfSubject);
 		String restOfStatement = statement.substring(positionOfBeVerb + beVerb.length()).trim();
 		String newStatement = "Why " + beVerb + " " + subject + " " + restOfStatement + "?";
 		
@@ -314,12 +806,14 @@ public class Magpie
 	/**
 	 * Take a statement with "<be verb> <subject> <something>?" and transform it into "I don't know if <subject> <be verb> <something>.".
 	 *
-	 * @param statement	 the user statement, assumed to contain a subject pronoun followed by a be verb
+	 * @param words		 the tokenized user statement, assumed to contain a subject pronoun followed by a be verb
 	 * @return			 the transformed statement
-	 * @version 2016.05.26
+	 * @version 2026.10.18
 	 */
-	private String transformBeVerbSubjectStatement(String statement)
+	private String transformBeVerbSubjectStatement(TokenizedStatement words)
 	{
+		String statement = words.toString();
+		
 		// Remove any final punctuation
 		if(statement.charAt(statement.length() - 1) == '?'
 		|| statement.charAt(statement.length() - 1) == '.')
@@ -327,10 +821,10 @@ public class Magpie
 			statement = statement.substring(0, statement.length() - 1);
 		}
 		
-		String beVerb = Grammar.findBeVerb(statement);
-		String subject = Grammar.findSubjectPronoun(statement);
-		int positionOfBeVerb = Grammar.findKeyword(statement, beVerb);
-		int positionOfSubject = Grammar.findKeyword(statement, subject, positionOfBeVerb);
+		String beVerb = Grammar.findBeVerb(words);
+		String subject = Grammar.findPointOfView(words).getSubjectPronoun();
+		int positionOfBeVerb = Grammar.findKeyword(words, beVerb);
+		int positionOfSubject = Grammar.findKeyword(words, subject, positionOfBeVerb);
 		String restOfStatement = statement.substring(positionOfSubject + subject.length()).trim();
 		String newStatement = subject + " " + beVerb + " " + restOfStatement + ".";
 		
@@ -339,38 +833,52 @@ public class Magpie
 	
 	/**
 	 * Take a statement with "<modal auxiliary> <subject> <something>?" and transform it into "I don't know, <modal auxiliary> <subject> <something>?".
+	 * The subject is the word after the modal auxiliary and everything after the subject is kept, so "Can you help me?" is answered
+	 * "I don't know, can I help you?". With nothing after the modal auxiliary, the answer is "I don't know, <modal auxiliary>?".
 	 *
-	 * @param statement	 the user statement, assumed to contain a modal auxilary
+	 * @param words		 the tokenized user statement, assumed to contain a modal auxilary
 	 * @return			 the transformed statement
-	 * @version 2016.05.26
+	 * @version 2026.10.18
 	 */
-	private String transformModalAuxiliaryStatement(String statement)
+	private String transformModalAuxiliaryStatement(TokenizedStatement words)
 	{
+		String statement = words.toString();
+		
 		// Remove any final punctuation
 		if(statement.charAt(statement.length() - 1) == '?' || statement.charAt(statement.length() - 1) == '.')
 		{
 			statement = statement.substring(0, statement.length() - 1);
 		}
 		
-		String aux = Grammar.findModalAuxiliary(statement);
-		int positionOfAux = Grammar.findKeyword(statement, aux);
-		int positionOfSubject = statement.indexOf(' ', positionOfAux + aux.length() + 1);
-		String subject = statement.substring(positionOfAux + aux.length() + 1, positionOfSubject);
-		String restOfStatement = statement.substring(positionOfSubject + subject.length()).trim();
-		String newStatement = subject + " " + restOfStatement + "?";
+		String aux = Grammar.findModalAuxiliary(words);
+		int positionOfAux = Grammar.findKeyword(words, aux);
+		String afterAux = statement.substring(Math.min(positionOfAux + aux.length() + 1, statement.length()));
 		
-		return "I don't know, " + aux + " " + Grammar.invertPointOfView(newStatement);
+		// The subject is the word after the modal auxiliary, which may also be the last word of the statement
+		int positionOfSubjectEnd = afterAux.indexOf(' ');
+		String subject = positionOfSubjectEnd < 0 ? afterAux : afterAux.substring(0, positionOfSubjectEnd);
+		String restOfStatement = afterAux.substring(subject.length()).trim();
+		String newStatement = (subject + " " + restOfStatement).trim();
+		
+		if(newStatement.isEmpty())
+		{
+			return "I don't know, " + aux + "?";
+		}
+		
+		return "I don't know, " + aux + " " + Grammar.invertPointOfView(newStatement + "?");
 	}
 
 	/**
 	 * Take a statement with "I want to <something>." and transform it into "Why do you want to <something>?".
 	 *
-	 * @param statement	 the user statement, assumed to contain "I want to"
+	 * @param words		 the tokenized user statement, assumed to contain "I want to"
 	 * @return			 the transformed statement
-	 * @version 2016.05.26
+	 * @version 2026.10.18
 	 */
-	private String transformIWantToStatement(String statement)
+	private String transformIWantToStatement(TokenizedStatement words)
 	{
+		String statement = words.toString();
+		
 		// Remove any final punctuation
 		if(statement.charAt(statement.length() - 1) == '?'
 		|| statement.charAt(statement.length() - 1) == '.')
@@ -378,7 +886,7 @@ public class Magpie
 			statement = statement.substring(0, statement.length() - 1);
 		}
 		
-		int position = Grammar.findKeyword(statement, "i want to");
+		int position = Grammar.findKeyword(words, "i want to");
 		String restOfStatement = statement.substring(position + "i want to".length()).trim();
 		
 		return "Why do you want to " + Grammar.invertPointOfView(restOfStatement) + "?";
@@ -387,12 +895,14 @@ public class Magpie
 	/**
 	 * Take a statement with "I want <something>." and transform it into "Would you really be happy if you had <something>?".
 	 *
-	 * @param statement	 the user statement, assumed to contain "I want"
+	 * @param words		 the tokenized user statement, assumed to contain "I want"
 	 * @return			 the transformed statement
-	 * @version 2016.05.26
+	 * @version 2026.10.18
 	 */
-	private String transformIWantStatement(String statement)
+	private String transformIWantStatement(TokenizedStatement words)
 	{
+		String statement = words.toString();
+		
 		// Remove any final punctuation
 		if(statement.charAt(statement.length() - 1) == '?'
 		|| statement.charAt(statement.length() - 1) == '.')
@@ -400,7 +910,7 @@ public class Magpie
 			statement = statement.substring(0, statement.length() - 1);
 		}
 		
-		int position = Grammar.findKeyword(statement, "i want");
+		int position = Grammar.findKeyword(words, "i want");
 		String restOfStatement = statement.substring(position + "i want".length()).trim();
 		
 		return "Would you really be happy if you had " + restOfStatement + "?";
@@ -409,12 +919,14 @@ public class Magpie
 	/**
 	 * Take a statement with "<subject> like <something>?" and transform it into "I'm not sure if I like <something>.".
 	 *
-	 * @param statement	 the user statement, assumed to contain "you" followed by "like"
+	 * @param words		 the tokenized user statement, assumed to contain "you" followed by "like"
 	 * @return			 the transformed statement
-	 * @version 2016.05.26
+	 * @version 2026.10.18
 	 */
-	private String transformYouLikeStatement(String statement)
+	private String transformYouLikeStatement(TokenizedStatement words)
 	{
+		String statement = words.toString();
+		
 		// Remove any final punctuation
 		if(statement.charAt(statement.length() - 1) == '?'
 		|| statement.charAt(statement.length() - 1) == '.')
@@ -422,8 +934,8 @@ public class Magpie
 			statement = statement.substring(0, statement.length() - 1);
 		}
 		
-		int positionOfYou = Grammar.findKeyword(statement, "you");
-		int positionOfLike = Grammar.findKeyword(statement, "like", positionOfYou + "you".length());
+		int positionOfYou = Grammar.findKeyword(words, "you");
+		int positionOfLike = Grammar.findKeyword(words, "like", positionOfYou + "you".length());
 		String restOfStatement = statement.substring(positionOfLike + "like".length()).trim();
 		
 		return "I'm not sure if I like " + restOfStatement + ".";
@@ -432,12 +944,14 @@ public class Magpie
 	/**
 	 * Take a statement with "you <something> me" and transform it into "What makes you think that I <something> you?".
 	 *
-	 * @param statement	 the user statement, assumed to contain "you" followed by "me"
+	 * @param words		 the tokenized user statement, assumed to contain "you" followed by "me"
 	 * @return			 the transformed statement
-	 * @version 2016.05.26
+	 * @version 2026.10.18
 	 */
-	private String transformYouMeStatement(String statement)
+	private String transformYouMeStatement(TokenizedStatement words)
 	{
+		String statement = words.toString();
+		
 		// Remove any final punctuation
 		if(statement.charAt(statement.length() - 1) == '?'
 		|| statement.charAt(statement.length() - 1) == '.')
@@ -445,8 +959,8 @@ public class Magpie
 			statement = statement.substring(0, statement.length() - 1);
 		}
 		
-		int positionOfYou = Grammar.findKeyword(statement, "you");
-		int positionOfMe = Grammar.findKeyword(statement, "me", positionOfYou + "you".length());
+		int positionOfYou = Grammar.findKeyword(words, "you");
+		int positionOfMe = Grammar.findKeyword(words, "me", positionOfYou + "you".length());
 		String restOfStatement = statement.substring(positionOfYou + "you".length(), positionOfMe).trim();
 		String endingObjects = statement.substring(positionOfMe + "me".length()).trim();
 		
@@ -456,12 +970,14 @@ public class Magpie
 	/**
 	 * Take a statement with "I <something> you" and transform it into "Why do you <something> me?".
 	 *
-	 * @param statement	 the user statement, assumed to contain "I" followed by "you"
+	 * @param words		 the tokenized user statement, assumed to contain "I" followed by "you"
 	 * @return			 the transformed statement
-	 * @version 2016.05.26
+	 * @version 2026.10.18
 	 */
-	private String transformIYouStatement(String statement)
+	private String transformIYouStatement(TokenizedStatement words)
 	{
+		String statement = words.toString();
+		
 		// Remove any final punctuation
 		if(statement.charAt(statement.length() - 1) == '?'
 		|| statement.charAt(statement.length() - 1) == '.')
@@ -469,11 +985,11 @@ public class Magpie
 			statement = statement.substring(0, statement.length() - 1);
 		}
 		
-		int positionOfI = Grammar.findKeyword(statement, "i");
-		int positionOfYou = Grammar.findKeyword(statement, "you", positionOfI);
+		int positionOfI = Grammar.findKeyword(words, "i");
+		int positionOfYou = Grammar.findKeyword(words, "you", positionOfI);
 		String restOfStatement = statement.substring(positionOfI + "i".length(), positionOfYou).trim();
 		
-		if(Grammar.containsBeVerb(statement))
+		if(Grammar.containsBeVerb(words))
 		{
 			String newStatement = "Why " + restOfStatement + " me?";
 			return Grammar.invertPointOfView(newStatement);
@@ -483,59 +999,88 @@ public class Magpie
 	}
 	
 	/**
-	 * Runs a "guess the number" game.
+	 * Starts a "guess the number" game.
 	 *
-	 * @return	  a response based on the result of the game
-	 * @version 2016.05.26
+	 * @return	  the rules of the game and the question asking for the lower bound
+	 * @version 2026.10.18
 	 */
 	private String playGame()
 	{
-		System.out.println("Ok. Let's play this game: I'll pick a number. You have 5 chances to guess it.");
-		System.out.println("What should the lower bound be?");
-		int lowerBound = Integer.parseInt(in.nextLine());
-		System.out.println("What should the upper bound be?");
-		int upperBound = Integer.parseInt(in.nextLine());
-		System.out.println("Ok. I chose a number between " + lowerBound + " and " + upperBound + ", inclusive.");
-		int answer = lowerBound + (int)(Math.random() * ((upperBound - lowerBound) + 1));
-		int guess = 1;
+		dialog = Dialog.GAME_LOWER_BOUND;
+		return "Ok. Let's play this game: I'll pick a number. You have " + GAME_GUESSES + " chances to guess it.\nWhat should the lower bound be?";
+	}
+
+	/**
+	 * Takes one of the bounds of the game. Once both are set, the number is chosen.
+	 *
+	 * @param bound	  which bound is being set
+	 * @param answer	  the user's answer
+	 * @return	  the next question of the game
+	 * @version 2026.10.18
+	 */
+	private String setGameBound(Dialog bound, String answer)
+	{
+		int number;
+		
+		try
+		{
+			number = Integer.parseInt(answer.trim());
+		}
+		catch(NumberFormatException e)
+		{
+			dialog = bound;
+			return "That's not a valid number! What should the " + (bound == Dialog.GAME_LOWER_BOUND ? "lower" : "upper") + " bound be?";
+		}
+		
+		if(bound == Dialog.GAME_LOWER_BOUND)
+		{
+			lowerBound = number;
+			dialog = Dialog.GAME_UPPER_BOUND;
+			return "What should the upper bound be?";
+		}
+		
+		chosenNumber = lowerBound + (int)(Math.random() * ((number - lowerBound) + 1));
+		guess = 1;
+		dialog = Dialog.GAME_GUESS;
+		
+		return "Ok. I chose a number between " + lowerBound + " and " + number + ", inclusive.\nGuess " + guess + ":";
+	}
+
+	/**
+	 * Takes one guess in the game.
+	 *
+	 * @param answer	  the user's guess
+	 * @return	  a response based on the result of the guess
+	 * @version 2026.10.18
+	 */
+	private String takeGuess(String answer)
+	{
+		String response;
 		
-		while(guess <= 5)
+		try
 		{
-			System.out.print("Guess " + guess + ": ");
-			int guessedNum;
+			int guessedNum = Integer.parseInt(answer.trim());
 			
-			try
-			{
-				guessedNum = Integer.parseInt(in.nextLine());
-				
-				if(guessedNum == answer)
-				{
-					System.out.println("Congrats! You won! Thanks for playing.");
-					return "So, now what?";
-				}
-				else
-				{
-					guess++;
-				
-					if(guessedNum > answer)
-					{
-						System.out.print("Too big. ");
-					}
-					else
-					{
-						System.out.print("Too small. ");
-					}
-				}
-			}
-			catch(Exception e)
+			if(guessedNum == chosenNumber)
 			{
-				System.out.print("That's not a valid number!");
+				return "Congrats! You won! Thanks for playing.\nSo, now what?";
 			}
 			
-			System.out.println("Try again.");
+			guess++;
+			response = (guessedNum > chosenNumber ? "Too big. " : "Too small. ") + "Try again.";
+		}
+		catch(NumberFormatException e)
+		{
+			response = "That's not a valid number! Try again.";
+		}
+		
+		if(guess > GAME_GUESSES)
+		{
+			return response + "\nSorry, you're out of guesses. The number was " + chosenNumber + ". Thanks for playing.\nSo, now what?";
 		}
 		
-		return "Sorry, you're out of guesses. The number was " + answer + ". Thanks for playing.\nSo, now what?";
+		dialog = Dialog.GAME_GUESS;
+		return response + "\nGuess " + guess + ":";
 	}
 	
 	/**
@@ -1,29 +1,117 @@
-import java.util.Scanner;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import javax.management.JMException;
 
 /**
  * A simple class to run the Magpie class.
  */
 public class MagpieRunner
 {
+    private static final int REPLAY_IN_FLIGHT = 4096;
+    private static final long REPLAY_IDLE_MILLIS = 1000;
+    
     /**
      * Create a Magpie, give it user input, and print its replies.
+     * If a file is given, everything Magpie is asked to remember is kept in it across runs.
+     * With "--replay" and a transcript file, the transcript is replayed instead and the replies are printed as they come.
+     * Sessions of the transcript that have had no statement for a second are passivated, compressed in memory, or into
+     * the archive directory given after the transcript, so memory doesn't grow with the number of sessions.
+     * The metrics of every rule can be read through JMX, and with "--metrics-port" and a port they are also served
+     * in the Prometheus text format at http://localhost:port/metrics.
+     * With "--rules" and a rule file, the keyword rules are read from the file, and read again whenever it changes.
+     * With "--rule-snapshot" and a snapshot written by RuleFile, the compiled rules are loaded from the snapshot instead.
+     * With "--warmup" and a number of milliseconds, Magpie is warmed up for at most that long before the first statement is read,
+     * and the time to first response and to steady state are printed to standard error.
+     * Replies are written in batches when the input is piped, and one line at a time at a terminal.
      */
-    public static void main(String[] args)
+    public static void main(String[] args) throws IOException, JMException
     {
-        Magpie maggie = new Magpie();
+        Magpie.getMetrics().register("magpie:type=ResponseMetrics");
+        MetricsServer metricsServer = null;
+        Closeable ruleWatcher = null;
+        long warmupMillis = -1;
         
-        System.out.println(maggie.getGreeting());
-        Scanner in = new Scanner (System.in);
-        String statement = in.nextLine();
-        
-        while (!statement.toLowerCase().startsWith("bye"))
+        try
+        {
+            while(args.length > 1 && args[0].startsWith("--") && !args[0].equals("--replay"))
+            {
+                if(args[0].equals("--metrics-port"))
+                {
+                    metricsServer = new MetricsServer(Magpie.getMetrics(), Integer.parseInt(args[1]));
+                }
+                else if(args[0].equals("--rules"))
+                {
+                    Path rules = Paths.get(args[1]);
+                    Magpie.setRules(RuleFile.read(rules));
+                    ruleWatcher = RuleFile.watch(rules, Magpie::setRules);
+                }
+                else if(args[0].equals("--rule-snapshot"))
+                {
+                    Magpie.setRules(RuleFile.readSnapshot(Paths.get(args[1])));
+                }
+                else if(args[0].equals("--warmup"))
+                {
+                    warmupMillis = Long.parseLong(args[1]);
+                }
+                else
+                {
+                    throw new IllegalArgumentException("Unknown option: " + args[0]);
+                }
+                
+                args = Arrays.copyOfRange(args, 2, args.length);
+            }
+            
+            // Warm up with the rules that will be used
+            if(warmupMillis >= 0)
+                System.err.println(Warmup.run(warmupMillis));
+            
+            run(args);
+        }
+        finally
         {
-            if(statement.length() != 0)
-                System.out.println(maggie.getResponse(statement));
-            statement = in.nextLine();
+            if(metricsServer != null)
+                metricsServer.close();
+            if(ruleWatcher != null)
+                ruleWatcher.close();
+        }
+    }
+    
+    /**
+     * Replay a transcript, or hold a conversation with the user.
+     */
+    private static void run(String[] args) throws IOException
+    {
+        if(args.length > 1 && args[0].equals("--replay"))
+        {
+            Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+            SessionArchive archive = args.length > 2 ? SessionArchive.onDisk(Paths.get(args[2])) : SessionArchive.inMemory();
+            new TranscriptReplay(REPLAY_IN_FLIGHT, REPLAY_IDLE_MILLIS, archive).replay(Paths.get(args[1]), out);
+            return;
         }
         
-        System.out.println("Bye.");
+        // The console is flushed and the memory log closed even when a turn throws
+        try(MemoryStore memory = args.length > 0 ? new MemoryStore(Paths.get(args[0])) : new MemoryStore();
+            ConsoleIO console = ConsoleIO.standard())
+        {
+            Magpie maggie = new Magpie(memory);
+            console.println(maggie.getGreeting());
+            String statement = console.readLine();
+            
+            // While Magpie is waiting for an answer, every line is the answer, even "bye" or an empty line
+            while (statement != null && (maggie.isInDialog() || !statement.toLowerCase().startsWith("bye")))
+            {
+                if(statement.length() != 0 || maggie.isInDialog())
+                    console.println(maggie.getResponse(statement));
+                statement = console.readLine();
+            }
+            
+            // A script that ends without saying bye ends the conversation too
+            if(statement != null)
+                console.println("Bye.");
+        }
     }
 
 }
@@ -0,0 +1,391 @@
+import java.io.IOException;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only file of the items a <code>MemoryStore</code> remembers and forgets, so that they survive a restart.
+ * Every record is checksummed, and a record that was only partly written when the program stopped is cut off when the log is opened again.
+ * A bad record that doesn't reach the end of the file, or that has a good record after it, is not a partly written one,
+ * so the log is copied aside and the damage reported before the records from it on are cut off.
+ * Once most of the records are out of date, the log is compacted by writing the live items to a new file and moving it over the old one.
+ *
+ * <p>A log starts with an 8 byte header, followed by records of the form
+ * <code>[CRC32 of the rest: int][operation: byte][item length: int][information length: int][item: UTF-8][information: UTF-8]</code>.</p>
+ *
+ * @author	Thanasi Bakis
+ */
+public class MemoryLog implements AutoCloseable
+{
+	/**
+	 * Receives the records of a log as it is replayed.
+	 */
+	public interface Replay
+	{
+		/**
+		 * Called for every item remembered, in the order the records were written.
+		 *
+		 * @param item		 the item
+		 * @param info		 the information about the item
+		 */
+		void remember(String item, String info);
+
+		/**
+		 * Called for every item forgotten, in the order the records were written.
+		 *
+		 * @param item		 the item
+		 */
+		void forget(String item);
+	}
+
+	private static final long MAGIC = 0x4D4147504D454D31L; // "MAGPMEM1"
+	private static final int HEADER_LENGTH = 8, RECORD_HEADER_LENGTH = 13, MIN_COMPACTION_RECORDS = 1024, COMPACTION_BUFFER_LENGTH = 1 << 16;
+	private static final byte REMEMBER = 1, FORGET = 2;
+
+	private final Path file;
+	private final CRC32 crc;
+	private FileChannel channel;
+	private ByteBuffer buffer;
+	private long records, retryCompactionAt;
+
+	/**
+	 * Opens a log, creating it if it does not exist, and replays every complete record in it.
+	 * The file is read through a memory mapping, and anything after the last complete record is cut off,
+	 * after copying the file aside if that is more than a partly written last record.
+	 *
+	 * @param file			 the log file
+	 * @param replay		 receives the records of the log
+	 * @throws IOException	 if the file can't be read or written, or is not a memory log
+	 * @version 2026.10.18
+	 */
+	public MemoryLog(Path file, Replay replay) throws IOException
+	{
+		this.file = file;
+		crc = new CRC32();
+		buffer = ByteBuffer.allocate(256);
+		channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+		try
+		{
+			long end = replay(replay);
+			channel.truncate(end);
+			channel.position(end);
+		}
+		catch(IOException | RuntimeException e)
+		{
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Replays the records of the log, writing the header first if the file is empty.
+	 *
+	 * @param replay		 receives the records of the log
+	 * @return				 the end of the last complete record
+	 * @throws IOException	 if the file can't be read or copied aside, or is not a memory log
+	 * @version 2026.10.18
+	 */
+	private long replay(Replay replay) throws IOException
+	{
+		long size = channel.size();
+
+		if(size == 0)
+		{
+			buffer.clear();
+			buffer.putLong(MAGIC).flip();
+			channel.write(buffer, 0);
+			return HEADER_LENGTH;
+		}
+
+		if(size < HEADER_LENGTH)
+		{
+			throw new IOException(file + " is not a memory log");
+		}
+
+		if(size > Integer.MAX_VALUE)
+		{
+			throw new IOException(file + " is too large to replay");
+		}
+
+		MappedByteBuffer log = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+		byte[] scratch = new byte[256];
+		int end = HEADER_LENGTH;
+
+		if(log.getLong() != MAGIC)
+		{
+			throw new IOException(file + " is not a memory log");
+		}
+
+		while(isRecord(log, end))
+		{
+			log.position(end + 4);
+			byte operation = log.get();
+			int itemLength = log.getInt(), infoLength = log.getInt();
+
+			if(scratch.length < Math.max(itemLength, infoLength))
+			{
+				scratch = new byte[Math.max(itemLength, infoLength) * 2];
+			}
+
+			log.get(scratch, 0, itemLength);
+			String item = new String(scratch, 0, itemLength, StandardCharsets.UTF_8);
+
+			if(operation == REMEMBER)
+			{
+				log.get(scratch, 0, infoLength);
+				replay.remember(item, new String(scratch, 0, infoLength, StandardCharsets.UTF_8));
+			}
+			else
+			{
+				log.position(log.position() + infoLength);
+				replay.forget(item);
+			}
+
+			end = log.position();
+			records++;
+		}
+
+		if(isDamaged(log, end))
+		{
+			Path copy = file.resolveSibling(file.getFileName() + ".damaged-" + System.currentTimeMillis());
+			Files.copy(file, copy);
+			System.err.println(file + " is damaged at byte " + end + " of " + size + "; the records before it are kept, and the whole log was copied to " + copy);
+		}
+
+		return end;
+	}
+
+	/**
+	 * Checks whether a whole, uncorrupted record starts at an offset of the log.
+	 *
+	 * @param log			 the log
+	 * @param offset		 where the record would start
+	 * @return				 whether the record is there, within the log, with a known operation and the right checksum
+	 * @version 2026.10.18
+	 */
+	private boolean isRecord(ByteBuffer log, int offset)
+	{
+		if(log.limit() - offset < RECORD_HEADER_LENGTH)
+		{
+			return false;
+		}
+
+		byte operation = log.get(offset + 4);
+		int itemLength = log.getInt(offset + 5), infoLength = log.getInt(offset + 9);
+
+		if((operation != REMEMBER && operation != FORGET) || itemLength < 0 || infoLength < 0
+		   || (long) itemLength + infoLength > log.limit() - offset - RECORD_HEADER_LENGTH)
+		{
+			return false;
+		}
+
+		crc.reset();
+		crc.update(log.slice(offset + 4, RECORD_HEADER_LENGTH - 4 + itemLength + infoLength));
+		return (int) crc.getValue() == log.getInt(offset);
+	}
+
+	/**
+	 * Checks whether the bad bytes at the end of the good records of the log are damage, rather than a record that was only partly written.
+	 * Records are only ever appended, so a partly written record is the last thing in the file: its lengths reach the end of the file,
+	 * or its header doesn't even fit, and no good record starts after it.
+	 *
+	 * @param log			 the log
+	 * @param end			 the end of the last good record
+	 * @return				 whether the log is damaged
+	 * @version 2026.10.18
+	 */
+	private boolean isDamaged(ByteBuffer log, int end)
+	{
+		if(log.limit() - end < RECORD_HEADER_LENGTH)
+		{
+			return false;
+		}
+
+		int itemLength = log.getInt(end + 5), infoLength = log.getInt(end + 9);
+
+		if(itemLength < 0 || infoLength < 0 || end + RECORD_HEADER_LENGTH + (long) itemLength + infoLength < log.limit())
+		{
+			return true;
+		}
+
+		for(int offset = end + 1; offset <= log.limit() - RECORD_HEADER_LENGTH; offset++)
+		{
+			if(isRecord(log, offset))
+			{
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Appends a record of an item being remembered.
+	 *
+	 * @param item			 the item
+	 * @param info			 the information about the item
+	 * @throws IOException	 if the record can't be written
+	 * @version 2026.10.18
+	 */
+	public void remember(String item, String info) throws IOException
+	{
+		buffer.clear();
+		put(REMEMBER, item, info);
+		buffer.flip();
+		write(channel, buffer);
+		records++;
+	}
+
+	/**
+	 * Appends a record of an item being forgotten.
+	 *
+	 * @param item			 the item
+	 * @throws IOException	 if the record can't be written
+	 * @version 2026.10.18
+	 */
+	public void forget(String item) throws IOException
+	{
+		buffer.clear();
+		put(FORGET, item, "");
+		buffer.flip();
+		write(channel, buffer);
+		records++;
+	}
+
+	/**
+	 * Checks whether most of the records in the log are out of date, so that it is worth compacting.
+	 *
+	 * @param liveItems		 the number of items currently remembered
+	 * @return				 whether the log should be compacted
+	 * @version 2026.10.18
+	 */
+	public boolean needsCompaction(int liveItems)
+	{
+		return records >= Math.max(MIN_COMPACTION_RECORDS, retryCompactionAt) && records > 2L * liveItems;
+	}
+
+	/**
+	 * Replaces the log with one holding a single record for every item currently remembered.
+	 * The new log is written to a temporary file beside the old one and then moved over it, so a crash leaves one of the two complete logs,
+	 * and if the new log can't be written or moved, the old one is still appended to, and compaction isn't tried again
+	 * until the log has twice as many records.
+	 *
+	 * @param items			 every item currently remembered, with its information
+	 * @throws IOException	 if the new log can't be written
+	 * @version 2026.10.18
+	 */
+	public void compact(Map<String, String> items) throws IOException
+	{
+		Path temporary = file.resolveSibling(file.getFileName() + ".compact");
+		retryCompactionAt = 2 * records;
+
+		if(buffer.capacity() < COMPACTION_BUFFER_LENGTH)
+		{
+			buffer = ByteBuffer.allocate(COMPACTION_BUFFER_LENGTH);
+		}
+
+		// The new log stays open and becomes this log's channel once it is moved into place, so a failure leaves the old log in use
+		FileChannel compacted = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+
+		try
+		{
+			buffer.clear();
+			buffer.putLong(MAGIC);
+
+			for(Map.Entry<String, String> entry : items.entrySet())
+			{
+				// Flush the buffer whenever the next record might not fit
+				if(buffer.remaining() < RECORD_HEADER_LENGTH + 3 * (entry.getKey().length() + entry.getValue().length()))
+				{
+					buffer.flip();
+					write(compacted, buffer);
+					buffer.clear();
+				}
+
+				put(REMEMBER, entry.getKey(), entry.getValue());
+			}
+
+			buffer.flip();
+			write(compacted, buffer);
+			compacted.force(true);
+			Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch(IOException | RuntimeException e)
+		{
+			compacted.close();
+			throw e;
+		}
+
+		FileChannel replaced = channel;
+		channel = compacted;
+		records = items.size();
+		retryCompactionAt = 0;
+		replaced.close();
+	}
+
+	/**
+	 * Flushes the log to the disk and closes it.
+	 *
+	 * @throws IOException	 if the log can't be flushed
+	 * @version 2026.10.18
+	 */
+	public void close() throws IOException
+	{
+		try
+		{
+			channel.force(true);
+		}
+		finally
+		{
+			channel.close();
+		}
+	}
+
+	/**
+	 * Encodes a record at the position of the buffer, growing the buffer if the record doesn't fit.
+	 *
+	 * @param operation		 whether the item is remembered or forgotten
+	 * @param item			 the item
+	 * @param info			 the information about the item
+	 * @version 2026.10.18
+	 */
+	private void put(byte operation, String item, String info)
+	{
+		byte[] itemBytes = item.getBytes(StandardCharsets.UTF_8), infoBytes = info.getBytes(StandardCharsets.UTF_8);
+		int length = RECORD_HEADER_LENGTH + itemBytes.length + infoBytes.length;
+
+		if(buffer.remaining() < length)
+		{
+			ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + length));
+			buffer.flip();
+			buffer = larger.put(buffer);
+		}
+
+		int start = buffer.position();
+		buffer.putInt(0).put(operation).putInt(itemBytes.length).putInt(infoBytes.length).put(itemBytes).put(infoBytes);
+
+		crc.reset();
+		crc.update(buffer.slice(start + 4, length - 4));
+		buffer.putInt(start, (int) crc.getValue());
+	}
+
+	/**
+	 * Writes the whole of a buffer to a channel.
+	 *
+	 * @param target		 the channel
+	 * @param source		 the buffer, between its position and limit
+	 * @throws IOException	 if the buffer can't be written
+	 * @version 2026.10.18
+	 */
+	private static void write(FileChannel target, ByteBuffer source) throws IOException
+	{
+		while(source.hasRemaining())
+		{
+			target.write(source);
+		}
+	}
+}
@@ -0,0 +1,552 @@
+import java.io.*;
+import java.lang.ref.Cleaner;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * The items and information a <code>Magpie</code> has been asked to remember.
+ * Items are looked up and forgotten through a hash table, and also kept in sorted order so that
+ * the items starting with some text, or closest to an item that wasn't found, can be listed without scanning everything.
+ * A memory opened on a file keeps a <code>MemoryLog</code> of every change, so it remembers everything again after a restart.
+ * A memory kept in an <code>OffHeapMemory</code> keeps its items outside the Java heap, within the budgets of that memory,
+ * and sorts them only when the closest items are asked for.
+ *
+ * @author	Thanasi Bakis
+ */
+public class MemoryStore implements Closeable
+{
+	private final Map<String, String> information;
+	private TreeSet<String> sortedItems;
+	private final MemoryLog log;
+	private final OffHeapMemory offHeap;
+	private final int session;
+	private Cleaner.Cleanable cleanable;
+
+	/**
+	 * Creates an empty memory.
+	 *
+	 * @version 2026.10.18
+	 */
+	public MemoryStore()
+	{
+		information = new HashMap<String, String>();
+		sortedItems = new TreeSet<String>();
+		log = null;
+		offHeap = null;
+		session = -1;
+		cleanable = null;
+	}
+
+	/**
+	 * Opens a memory kept in a log file, remembering everything that was remembered in it before.
+	 *
+	 * @param file			 the log file, which is created if it does not exist
+	 * @throws IOException	 if the log can't be read or written
+	 * @version 2026.10.18
+	 */
+	public MemoryStore(Path file) throws IOException
+	{
+		information = new HashMap<String, String>();
+		offHeap = null;
+		session = -1;
+		cleanable = null;
+		log = new MemoryLog(file, new MemoryLog.Replay()
+		{
+			public void remember(String item, String info)
+			{
+				information.put(item, info);
+			}
+
+			public void forget(String item)
+			{
+				information.remove(item);
+			}
+		});
+
+		// The items are only sorted once something needs them in order, so starting up just fills the hash table
+		sortedItems = null;
+	}
+
+	/**
+	 * Creates an empty memory that keeps its items off the heap, sharing the budget of an <code>OffHeapMemory</code> with other memories.
+	 * Its items may be evicted to stay within the budget. They are forgotten when it is closed, or when it can no longer be reached.
+	 *
+	 * @param offHeap		 where to keep the items
+	 * @return				 the memory
+	 * @version 2026.10.18
+	 */
+	public static MemoryStore offHeap(OffHeapMemory offHeap)
+	{
+		MemoryStore memory = new MemoryStore(offHeap, offHeap.openSession());
+
+		// The memory is only handed to the cleaner once it is fully constructed
+		memory.cleanable = offHeap.closeWhenUnreachable(memory, memory.session);
+		return memory;
+	}
+
+	/**
+	 * Creates an empty memory on a session of an <code>OffHeapMemory</code>.
+	 *
+	 * @param offHeap		 where to keep the items
+	 * @param session		 the number of the session
+	 * @version 2026.10.18
+	 */
+	private MemoryStore(OffHeapMemory offHeap, int session)
+	{
+		information = null;
+		sortedItems = null;
+		log = null;
+		this.offHeap = offHeap;
+		this.session = session;
+	}
+
+	/**
+	 * Remembers information about an item, replacing anything remembered about it before.
+	 * A memory with a log only remembers the item once it is in the log.
+	 *
+	 * @param item			 the item
+	 * @param info			 the information about the item
+	 * @throws UncheckedIOException	 if the item can't be written to the log, in which case it isn't remembered
+	 * @version 2026.10.18
+	 */
+	public void remember(String item, String info)
+	{
+		if(offHeap != null)
+		{
+			offHeap.remember(session, item, info);
+			return;
+		}
+
+		if(log != null)
+		{
+			try
+			{
+				log.remember(item, info);
+			}
+			catch(IOException e)
+			{
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		if(information.put(item, info) == null && sortedItems != null)
+		{
+			sortedItems.add(item);
+		}
+
+		compactIfNeeded();
+	}
+
+	/**
+	 * Gets the information remembered about an item.
+	 *
+	 * @param item			 the item
+	 * @return				 the information, or <code>null</code> if nothing is remembered about the item
+	 * @version 2026.10.18
+	 */
+	public String recall(String item)
+	{
+		return offHeap != null ? offHeap.recall(session, item) : information.get(item);
+	}
+
+	/**
+	 * Forgets an item and its information.
+	 *
+	 * @param item			 the item
+	 * @return				 whether the item was remembered
+	 * @throws UncheckedIOException	 if the item can't be forgotten in the log, in which case it is still remembered
+	 * @version 2026.10.18
+	 */
+	public boolean forget(String item)
+	{
+		if(offHeap != null)
+		{
+			return offHeap.forget(session, item);
+		}
+
+		if(!information.containsKey(item))
+		{
+			return false;
+		}
+
+		if(log != null)
+		{
+			try
+			{
+				log.forget(item);
+			}
+			catch(IOException e)
+			{
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		information.remove(item);
+
+		if(sortedItems != null)
+		{
+			sortedItems.remove(item);
+		}
+
+		compactIfNeeded();
+		return true;
+	}
+
+	/**
+	 * Compacts the log, if there is one, once most of its records are out of date.
+	 * The change that was just made is already in the log, so a compaction that fails is only reported, and the log is kept as it is.
+	 *
+	 * @version 2026.10.18
+	 */
+	private void compactIfNeeded()
+	{
+		if(log != null && log.needsCompaction(information.size()))
+		{
+			try
+			{
+				log.compact(information);
+			}
+			catch(IOException e)
+			{
+				System.err.println("Can't compact the memory log, keeping it as it is: " + e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Lists the items that start with some text, in sorted order.
+	 *
+	 * @param prefix		 the text the items start with
+	 * @param limit			 the most items to list
+	 * @return				 the items that start with the prefix
+	 * @version 2026.10.18
+	 */
+	public List<String> itemsStartingWith(String prefix, int limit)
+	{
+		return itemsStartingWith(sortedItems(), prefix, limit);
+	}
+
+	/**
+	 * Lists the items that start with some text, in sorted order.
+	 *
+	 * @param sorted		 the sorted items
+	 * @param prefix		 the text the items start with
+	 * @param limit			 the most items to list
+	 * @return				 the items that start with the prefix
+	 * @version 2026.10.18
+	 */
+	private static List<String> itemsStartingWith(SortedSet<String> sorted, String prefix, int limit)
+	{
+		List<String> items = new ArrayList<String>();
+
+		for(String item : sorted.tailSet(prefix))
+		{
+			if(items.size() >= limit || !item.startsWith(prefix))
+			{
+				break;
+			}
+
+			items.add(item);
+		}
+
+		return items;
+	}
+
+	/**
+	 * Lists the items closest to an item, which are the ones sharing the longest beginning with it.
+	 * If no item shares even its first character, the first items in sorted order are listed.
+	 *
+	 * @param item			 the item that may not have been found
+	 * @param limit			 the most items to list
+	 * @return				 the closest items, in sorted order
+	 * @version 2026.10.18
+	 */
+	public List<String> closestItems(String item, int limit)
+	{
+		// The item sharing the longest beginning with the item is one of its neighbours in sorted order
+		SortedSet<String> sorted = sortedItems(), above = sorted.tailSet(item), below = sorted.headSet(item);
+		int length = Math.max(commonPrefixLength(item, above.isEmpty() ? null : above.first()),
+							  commonPrefixLength(item, below.isEmpty() ? null : below.last()));
+
+		return itemsStartingWith(sorted, item.substring(0, length), limit);
+	}
+
+	/**
+	 * Gets the items in sorted order, sorting them the first time they are needed after the memory was opened.
+	 * Items kept off the heap are sorted into an array every time, since they can be evicted at any time.
+	 *
+	 * @return				 the sorted items
+	 * @version 2026.10.18
+	 */
+	private SortedSet<String> sortedItems()
+	{
+		if(offHeap != null)
+		{
+			List<String> items = new ArrayList<String>();
+			offHeap.forEach(session, (item, info) -> items.add(item));
+			return sorted(items.toArray(new String[0]));
+		}
+
+		if(sortedItems == null)
+		{
+			// Sorting all the items at once is much faster than adding them to the tree one at a time
+			sortedItems = new TreeSet<String>(sorted(information.keySet().toArray(new String[0])));
+		}
+
+		return sortedItems;
+	}
+
+	/**
+	 * Sorts items in place.
+	 *
+	 * @param items			 the items, without duplicates
+	 * @return				 the sorted items
+	 * @version 2026.10.18
+	 */
+	private static SortedArray sorted(String[] items)
+	{
+		Arrays.sort(items);
+		return new SortedArray(items);
+	}
+
+	/**
+	 * Counts how many characters two strings share at their beginnings.
+	 *
+	 * @param a				 a string
+	 * @param b				 another string, or <code>null</code>
+	 * @return				 the length of the common beginning, or 0 if b is <code>null</code>
+	 * @version 2026.10.18
+	 */
+	private static int commonPrefixLength(String a, String b)
+	{
+		int length = 0;
+
+		while(b != null && length < a.length() && length < b.length() && a.charAt(length) == b.charAt(length))
+		{
+			length++;
+		}
+
+		return length;
+	}
+
+	/**
+	 * Get the number of items remembered.
+	 *
+	 * @return				 the number of items
+	 * @version 2026.10.18
+	 */
+	public int size()
+	{
+		return offHeap != null ? offHeap.size(session) : information.size();
+	}
+
+	/**
+	 * Runs an action on every item and its information, in no particular order.
+	 *
+	 * @param action		 the action to run
+	 * @version 2026.10.18
+	 */
+	public void forEach(BiConsumer<String, String> action)
+	{
+		if(offHeap != null)
+		{
+			offHeap.forEach(session, action);
+		}
+		else
+		{
+			information.forEach(action);
+		}
+	}
+
+	/**
+	 * Closes the log of this memory, if it has one, or forgets its items if they are kept off the heap.
+	 *
+	 * @throws IOException	 if the log can't be flushed
+	 * @version 2026.10.18
+	 */
+	public void close() throws IOException
+	{
+		if(cleanable != null)
+		{
+			cleanable.clean();
+		}
+
+		if(log != null)
+		{
+			log.close();
+		}
+	}
+
+	/**
+	 * A sorted array, or a range of one, seen as a <code>SortedSet</code> without copying it. A <code>TreeSet</code> is built from it
+	 * in linear time, and its ranges are found by binary search. It can't be changed.
+	 */
+	private static class SortedArray extends AbstractSet<String> implements SortedSet<String>
+	{
+		private final String[] items;
+		private final int from, to;
+
+		/**
+		 * Wraps a sorted array without copying it.
+		 *
+		 * @param items		 the items, sorted and without duplicates
+		 * @version 2026.10.18
+		 */
+		private SortedArray(String[] items)
+		{
+			this(items, 0, items.length);
+		}
+
+		/**
+		 * Wraps a range of a sorted array without copying it.
+		 *
+		 * @param items		 the items, sorted and without duplicates
+		 * @param from		 the index of the first item of the range
+		 * @param to		 the index after the last item of the range
+		 * @version 2026.10.18
+		 */
+		private SortedArray(String[] items, int from, int to)
+		{
+			this.items = items;
+			this.from = from;
+			this.to = to;
+		}
+
+		/**
+		 * Get the items of the range in sorted order.
+		 *
+		 * @return			 an iterator over the items, which can't remove them
+		 * @version 2026.10.18
+		 */
+		public Iterator<String> iterator()
+		{
+			return Collections.unmodifiableList(Arrays.asList(items).subList(from, to)).iterator();
+		}
+
+		/**
+		 * Get the number of items in the range.
+		 *
+		 * @return			 the number of items
+		 * @version 2026.10.18
+		 */
+		public int size()
+		{
+			return to - from;
+		}
+
+		/**
+		 * Checks whether an item is in the range, by binary search.
+		 *
+		 * @param item		 the item
+		 * @return			 whether the item is in the range
+		 * @version 2026.10.18
+		 */
+		public boolean contains(Object item)
+		{
+			return item instanceof String && Arrays.binarySearch(items, from, to, item) >= 0;
+		}
+
+		/**
+		 * Get the comparator of the items, which are in their natural order.
+		 *
+		 * @return			 <code>null</code>
+		 * @version 2026.10.18
+		 */
+		public Comparator<? super String> comparator()
+		{
+			return null;
+		}
+
+		/**
+		 * Get the items from one item, inclusive, to another, exclusive.
+		 *
+		 * @param fromElement	 the lowest item of the view
+		 * @param toElement		 the item the view stops before
+		 * @return				 a view of the items
+		 * @throws IllegalArgumentException	 if <code>fromElement</code> is greater than <code>toElement</code>
+		 * @version 2026.10.18
+		 */
+		public SortedSet<String> subSet(String fromElement, String toElement)
+		{
+			if(fromElement.compareTo(toElement) > 0)
+			{
+				throw new IllegalArgumentException(fromElement + " is greater than " + toElement);
+			}
+
+			return new SortedArray(items, indexOf(fromElement), indexOf(toElement));
+		}
+
+		/**
+		 * Get the items lower than an item.
+		 *
+		 * @param toElement	 the item the view stops before
+		 * @return			 a view of the items
+		 * @version 2026.10.18
+		 */
+		public SortedSet<String> headSet(String toElement)
+		{
+			return new SortedArray(items, from, indexOf(toElement));
+		}
+
+		/**
+		 * Get the items from an item on, inclusive.
+		 *
+		 * @param fromElement	 the lowest item of the view
+		 * @return				 a view of the items
+		 * @version 2026.10.18
+		 */
+		public SortedSet<String> tailSet(String fromElement)
+		{
+			return new SortedArray(items, indexOf(fromElement), to);
+		}
+
+		/**
+		 * Get the lowest item of the range.
+		 *
+		 * @return			 the lowest item
+		 * @throws NoSuchElementException	 if the range is empty
+		 * @version 2026.10.18
+		 */
+		public String first()
+		{
+			if(from == to)
+			{
+				throw new NoSuchElementException();
+			}
+
+			return items[from];
+		}
+
+		/**
+		 * Get the highest item of the range.
+		 *
+		 * @return			 the highest item
+		 * @throws NoSuchElementException	 if the range is empty
+		 * @version 2026.10.18
+		 */
+		public String last()
+		{
+			if(from == to)
+			{
+				throw new NoSuchElementException();
+			}
+
+			return items[to - 1];
+		}
+
+		/**
+		 * Finds where an item is, or would be, in the range. An item outside the range is placed at the nearer end of it,
+		 * so the views of a view never reach past it.
+		 *
+		 * @param item		 the item
+		 * @return			 the index of the first item of the range that is not lower than the item
+		 * @version 2026.10.18
+		 */
+		private int indexOf(String item)
+		{
+			int index = Arrays.binarySearch(items, from, to, item);
+			return index >= 0 ? index : -index - 1;
+		}
+	}
+}
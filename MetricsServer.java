@@ -0,0 +1,61 @@
+import com.sun.net.httpserver.*;
+import java.io.*;
+import java.net.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A small HTTP server on the loopback address that serves <code>ResponseMetrics</code> at <code>/metrics</code>
+ * in the Prometheus text format.
+ *
+ * @author	Thanasi Bakis
+ */
+public class MetricsServer implements AutoCloseable
+{
+	private final HttpServer server;
+
+	/**
+	 * Starts serving metrics.
+	 *
+	 * @param metrics		 the metrics to serve
+	 * @param port			 the port to listen on, or 0 for any free port
+	 * @throws IOException	 if the port can't be bound
+	 * @version 2026.10.18
+	 */
+	public MetricsServer(ResponseMetrics metrics, int port) throws IOException
+	{
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		server.createContext("/metrics", exchange ->
+		{
+			byte[] body = metrics.toPrometheusText().getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+			exchange.sendResponseHeaders(200, body.length);
+
+			try(OutputStream out = exchange.getResponseBody())
+			{
+				out.write(body);
+			}
+		});
+		server.start();
+	}
+
+	/**
+	 * Get the port the server listens on.
+	 *
+	 * @return			 the port
+	 * @version 2026.10.18
+	 */
+	public int getPort()
+	{
+		return server.getAddress().getPort();
+	}
+
+	/**
+	 * Stops serving metrics.
+	 *
+	 * @version 2026.10.18
+	 */
+	public void close()
+	{
+		server.stop(0);
+	}
+}
@@ -0,0 +1,1065 @@
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * The remembered items of many <code>MemoryStore</code>s, kept as UTF-8 text in direct buffers outside the Java heap,
+ * so that hundreds of millions of items add nothing for the garbage collector to trace.
+ * <p>
+ * Every item is one record in a slot of 64 MB segments, found through an open-addressing hash table that is kept off the heap too.
+ * Each record is on two lists of least recently used items, one for all items and one for its session.
+ * When a session goes over its byte budget, its least recently used items are evicted, and when the whole memory goes over
+ * its budget, the least recently used items of any session are. Items that haven't been used for longer than the time to live
+ * are evicted as well. Slots are sized in steps of 16 bytes, and up to 1 MB in powers of two; a freed slot is
+ * reused by the next item of the same size, and otherwise slots are taken one after another from the segment being filled.
+ * The segments are limited to a little over the budget: when a new segment would pass that limit, the records of the emptiest
+ * other segment are moved out of it, into freed slots or the new segment, and it is released. So the memory stays bounded when the sizes
+ * of the items change over time, and the time one item can take is bounded by the size of a segment, however large the budget.
+ * <p>
+ * Direct buffers count against <code>-XX:MaxDirectMemorySize</code>, which has to be at least <code>getMaxSegmentBytes</code>
+ * plus the hash table, at 8 bytes for every slot of a power of two at least 4/3 of the most items remembered at once.
+ *
+ * @author	Thanasi Bakis
+ */
+public class OffHeapMemory
+{
+	private static final int SEGMENT_BITS = 26, SEGMENT_SIZE = 1 << SEGMENT_BITS;
+	private static final int GRANULE = 16, SMALL_SLOTS = 4096, MAX_SLOT = 1 << 20;
+	private static final int SLOT_CLASSES = SMALL_SLOTS / GRANULE + 8;
+	private static final int INDEX_BITS = 27, MIN_INDEX_CAPACITY = 1 << 16;
+	private static final long ADDRESS_MASK = (1L << 48) - 1;
+
+	// Where each field of a record's header is, followed by the item and then its information
+	private static final int GLOBAL_PREVIOUS = 0, GLOBAL_NEXT = 8, SESSION_PREVIOUS = 16, SESSION_NEXT = 24, HASH = 32,
+							 LAST_USED = 40, SESSION = 44, ITEM_LENGTH = 48, INFO_LENGTH = 52, HEADER = 56;
+
+	private static final Cleaner CLEANER = Cleaner.create();
+
+	private final long budgetBytes, sessionBudgetBytes, ttlSeconds, epoch;
+
+	// Addresses are the segment in the high bits and the offset in the low SEGMENT_BITS; 0 is never a record.
+	// A released segment is null, and its number is used again for the next segment.
+	private ByteBuffer[] segments;
+	private int[] segmentEnds, segmentBytes;
+	private int allocatedSegments, filling;
+	private final int maxSegments;
+
+	// Freed slots are on a doubly linked list for their size class, through their first two fields
+	private final long[] freeSlots;
+
+	// Each index entry is the top 16 bits of the hash of a record, above its address; 0 is an empty entry
+	private ByteBuffer[] index;
+	private long indexCapacity, records;
+
+	private long head, tail, usedBytes, evictions;
+	private long[] sessionHeads, sessionTails, sessionBytes;
+	private int[] sessionItems, freeSessions;
+	private int sessions, freeSessionCount;
+	private byte[] scratch;
+
+	/**
+	 * Creates an empty memory.
+	 *
+	 * @param budgetBytes			 the most bytes the records of every session may take together
+	 * @param sessionBudgetBytes	 the most bytes the records of one session may take
+	 * @param ttlSeconds			 how long an item may go unused before it is evicted, or 0 to keep items until they are evicted for space
+	 * @version 2026.10.18
+	 */
+	public OffHeapMemory(long budgetBytes, long sessionBudgetBytes, long ttlSeconds)
+	{
+		if(budgetBytes <= 0 || sessionBudgetBytes <= 0 || ttlSeconds < 0)
+		{
+			throw new IllegalArgumentException("Budgets must be positive, and the time to live can't be negative");
+		}
+
+		this.budgetBytes = budgetBytes;
+		this.sessionBudgetBytes = sessionBudgetBytes;
+		this.ttlSeconds = ttlSeconds;
+		epoch = System.nanoTime();
+		segments = new ByteBuffer[0];
+		segmentEnds = new int[0];
+		segmentBytes = new int[0];
+		filling = -1;
+
+		// With the budget, and the one item that may be over it, spread over all but one of the segments, the emptiest holds at most 7/8
+		// of a segment, so moving it out into the one being filled leaves room for more
+		maxSegments = (int) (((budgetBytes + MAX_SLOT) * 8 + 7L * SEGMENT_SIZE - 1) / (7L * SEGMENT_SIZE)) + 1;
+		freeSlots = new long[SLOT_CLASSES];
+		index = newIndex(MIN_INDEX_CAPACITY);
+		indexCapacity = MIN_INDEX_CAPACITY;
+		sessionHeads = new long[16];
+		sessionTails = new long[16];
+		sessionBytes = new long[16];
+		sessionItems = new int[16];
+		freeSessions = new int[16];
+		scratch = new byte[64];
+	}
+
+	/**
+	 * Get the number of items remembered by every session.
+	 *
+	 * @return			 the number of items
+	 * @version 2026.10.18
+	 */
+	public synchronized long size()
+	{
+		return records;
+	}
+
+	/**
+	 * Get the bytes taken by the records of every session.
+	 *
+	 * @return			 the bytes in use, which the budget limits
+	 * @version 2026.10.18
+	 */
+	public synchronized long getUsedBytes()
+	{
+		return usedBytes;
+	}
+
+	/**
+	 * Get the bytes taken off the heap, by the segments holding records, freed slots waiting to be reused, and the hash table.
+	 *
+	 * @return			 the bytes allocated
+	 * @version 2026.10.18
+	 */
+	public synchronized long getAllocatedBytes()
+	{
+		return (long) allocatedSegments * SEGMENT_SIZE + indexCapacity * 8;
+	}
+
+	/**
+	 * Get the most bytes the segments holding records can take, however the sizes of the items change.
+	 *
+	 * @return			 the bytes of the most segments there can be
+	 * @version 2026.10.18
+	 */
+	public long getMaxSegmentBytes()
+	{
+		return (long) maxSegments * SEGMENT_SIZE;
+	}
+
+	/**
+	 * Get the number of items evicted for space or for going unused.
+	 *
+	 * @return			 the number of evictions
+	 * @version 2026.10.18
+	 */
+	public synchronized long getEvictions()
+	{
+		return evictions;
+	}
+
+	/**
+	 * Starts a session, such as the memory of one <code>Magpie</code>.
+	 *
+	 * @return			 the number of the session
+	 * @version 2026.10.18
+	 */
+	synchronized int openSession()
+	{
+		if(freeSessionCount > 0)
+		{
+			return freeSessions[--freeSessionCount];
+		}
+
+		if(sessions == sessionHeads.length)
+		{
+			sessionHeads = Arrays.copyOf(sessionHeads, sessions * 2);
+			sessionTails = Arrays.copyOf(sessionTails, sessions * 2);
+			sessionBytes = Arrays.copyOf(sessionBytes, sessions * 2);
+			sessionItems = Arrays.copyOf(sessionItems, sessions * 2);
+		}
+
+		return sessions++;
+	}
+
+	/**
+	 * Ends a session once an object that uses it can no longer be reached, unless it is ended sooner.
+	 *
+	 * @param owner		 the object that uses the session
+	 * @param session	 the number of the session
+	 * @return			 ends the session when it is cleaned, at most once
+	 * @version 2026.10.18
+	 */
+	Cleaner.Cleanable closeWhenUnreachable(Object owner, int session)
+	{
+		return CLEANER.register(owner, () -> closeSession(session));
+	}
+
+	/**
+	 * Ends a session, forgetting all of its items so its number can be reused.
+	 *
+	 * @param session	 the number of the session
+	 * @version 2026.10.18
+	 */
+	private synchronized void closeSession(int session)
+	{
+		while(sessionTails[session] != 0)
+		{
+			remove(sessionTails[session]);
+		}
+
+		if(freeSessionCount == freeSessions.length)
+		{
+			freeSessions = Arrays.copyOf(freeSessions, freeSessionCount * 2);
+		}
+
+		freeSessions[freeSessionCount++] = session;
+	}
+
+	/**
+	 * Remembers information about an item in a session, replacing anything remembered about it before,
+	 * then evicts items until the session and the whole memory are within their budgets. The item just remembered is evicted last.
+	 *
+	 * @param session	 the number of the session
+	 * @param item		 the item
+	 * @param info		 the information about the item
+	 * @throws IllegalArgumentException	 if the item and its information take more than 1 MB
+	 * @version 2026.10.18
+	 */
+	synchronized void remember(int session, String item, String info)
+	{
+		byte[] itemBytes = item.getBytes(StandardCharsets.UTF_8);
+		byte[] infoBytes = info.getBytes(StandardCharsets.UTF_8);
+		int size = HEADER + itemBytes.length + infoBytes.length;
+
+		if(size > MAX_SLOT)
+		{
+			throw new IllegalArgumentException("Too long to remember: " + size + " bytes");
+		}
+
+		long hash = hash(session, itemBytes);
+		long found = find(session, itemBytes, hash);
+
+		if(found >= 0)
+		{
+			remove(getIndex(found) & ADDRESS_MASK);
+		}
+
+		if(records + 1 > indexCapacity / 4 * 3)
+		{
+			growIndex();
+		}
+
+		int slotClass = slotClass(size);
+		long record = allocate(slotClass);
+		putLong(record, HASH, hash);
+		putInt(record, SESSION, session);
+		putInt(record, ITEM_LENGTH, itemBytes.length);
+		putInt(record, INFO_LENGTH, infoBytes.length);
+		segment(record).put(offset(record) + HEADER, itemBytes);
+		segment(record).put(offset(record) + HEADER + itemBytes.length, infoBytes);
+		insert(record, hash);
+		linkFirst(record, session);
+		usedBytes += slotSize(slotClass);
+		sessionBytes[session] += slotSize(slotClass);
+		sessionItems[session]++;
+		records++;
+
+		evict(session);
+	}
+
+	/**
+	 * Gets the information remembered about an item in a session, which makes it the most recently used.
+	 *
+	 * @param session	 the number of the session
+	 * @param item		 the item
+	 * @return			 the information, or <code>null</code> if nothing is remembered about the item
+	 * @version 2026.10.18
+	 */
+	synchronized String recall(int session, String item)
+	{
+		byte[] itemBytes = item.getBytes(StandardCharsets.UTF_8);
+		long found = find(session, itemBytes, hash(session, itemBytes));
+
+		if(found < 0)
+		{
+			return null;
+		}
+
+		long record = getIndex(found) & ADDRESS_MASK;
+
+		if(isExpired(record))
+		{
+			remove(record);
+			evictions++;
+			return null;
+		}
+
+		unlink(record);
+		linkFirst(record, session);
+		return readText(record, HEADER + itemBytes.length, getInt(record, INFO_LENGTH));
+	}
+
+	/**
+	 * Forgets an item in a session.
+	 *
+	 * @param session	 the number of the session
+	 * @param item		 the item
+	 * @return			 whether the item was remembered
+	 * @version 2026.10.18
+	 */
+	synchronized boolean forget(int session, String item)
+	{
+		byte[] itemBytes = item.getBytes(StandardCharsets.UTF_8);
+		long found = find(session, itemBytes, hash(session, itemBytes));
+
+		if(found < 0)
+		{
+			return false;
+		}
+
+		remove(getIndex(found) & ADDRESS_MASK);
+		return true;
+	}
+
+	/**
+	 * Get the number of items remembered in a session.
+	 *
+	 * @param session	 the number of the session
+	 * @return			 the number of items
+	 * @version 2026.10.18
+	 */
+	synchronized int size(int session)
+	{
+		return sessionItems[session];
+	}
+
+	/**
+	 * Runs an action on every item of a session and its information, from the most to the least recently used.
+	 * The items are read first, so the action may use this memory.
+	 *
+	 * @param session	 the number of the session
+	 * @param action	 the action to run
+	 * @version 2026.10.18
+	 */
+	void forEach(int session, BiConsumer<String, String> action)
+	{
+		List<String> items = new ArrayList<String>();
+
+		synchronized(this)
+		{
+			for(long record = sessionHeads[session]; record != 0; record = getLong(record, SESSION_NEXT))
+			{
+				int itemLength = getInt(record, ITEM_LENGTH);
+				items.add(readText(record, HEADER, itemLength));
+				items.add(readText(record, HEADER + itemLength, getInt(record, INFO_LENGTH)));
+			}
+		}
+
+		for(int i = 0; i < items.size(); i += 2)
+		{
+			action.accept(items.get(i), items.get(i + 1));
+		}
+	}
+
+	/**
+	 * Evicts the items that have gone unused too long, then the least recently used items of a session and of the whole memory
+	 * until both are within their budgets, keeping the most recently used item of each.
+	 *
+	 * @param session	 the session that has just grown
+	 * @version 2026.10.18
+	 */
+	private void evict(int session)
+	{
+		// Using an item makes it the most recently used, so the items that have gone unused the longest are at the tail
+		while(tail != 0 && isExpired(tail))
+		{
+			remove(tail);
+			evictions++;
+		}
+
+		while(sessionBytes[session] > sessionBudgetBytes && sessionTails[session] != sessionHeads[session])
+		{
+			remove(sessionTails[session]);
+			evictions++;
+		}
+
+		while(usedBytes > budgetBytes && tail != head)
+		{
+			remove(tail);
+			evictions++;
+		}
+	}
+
+	/**
+	 * Determines whether a record has gone unused for longer than the time to live.
+	 *
+	 * @param record	 the address of the record
+	 * @return			 whether the record has expired
+	 * @version 2026.10.18
+	 */
+	private boolean isExpired(long record)
+	{
+		return ttlSeconds > 0 && now() - getInt(record, LAST_USED) >= ttlSeconds;
+	}
+
+	/**
+	 * Get the time since this memory was created.
+	 *
+	 * @return			 the time in seconds
+	 * @version 2026.10.18
+	 */
+	private int now()
+	{
+		return (int) ((System.nanoTime() - epoch) / 1_000_000_000L);
+	}
+
+	/**
+	 * Removes a record from the hash table and both of its lists, and frees its slot.
+	 *
+	 * @param record	 the address of the record
+	 * @version 2026.10.18
+	 */
+	private void remove(long record)
+	{
+		int session = getInt(record, SESSION);
+		int slotClass = slotClass(recordSize(record));
+
+		deleteFromIndex(record);
+		unlink(record);
+		usedBytes -= slotSize(slotClass);
+		sessionBytes[session] -= slotSize(slotClass);
+		sessionItems[session]--;
+		records--;
+
+		segmentBytes[(int) (record >>> SEGMENT_BITS)] -= slotSize(slotClass);
+		putInt(record, SESSION, -1);
+		putLong(record, GLOBAL_PREVIOUS, 0);
+		putLong(record, GLOBAL_NEXT, freeSlots[slotClass]);
+
+		if(freeSlots[slotClass] != 0)
+		{
+			putLong(freeSlots[slotClass], GLOBAL_PREVIOUS, record);
+		}
+
+		freeSlots[slotClass] = record;
+	}
+
+	/**
+	 * Takes a freed slot off the list of its size class.
+	 *
+	 * @param slot		 the address of the slot
+	 * @param slotClass	 the size class of the slot
+	 * @version 2026.10.18
+	 */
+	private void unlinkFreeSlot(long slot, int slotClass)
+	{
+		long previous = getLong(slot, GLOBAL_PREVIOUS), next = getLong(slot, GLOBAL_NEXT);
+
+		if(previous != 0)
+		{
+			putLong(previous, GLOBAL_NEXT, next);
+		}
+		else
+		{
+			freeSlots[slotClass] = next;
+		}
+
+		if(next != 0)
+		{
+			putLong(next, GLOBAL_PREVIOUS, previous);
+		}
+	}
+
+	/**
+	 * Makes a record the most recently used of its session and of the whole memory.
+	 *
+	 * @param record	 the address of the record
+	 * @param session	 the number of its session
+	 * @version 2026.10.18
+	 */
+	private void linkFirst(long record, int session)
+	{
+		putInt(record, LAST_USED, now());
+
+		putLong(record, GLOBAL_PREVIOUS, 0);
+		putLong(record, GLOBAL_NEXT, head);
+
+		if(head != 0)
+		{
+			putLong(head, GLOBAL_PREVIOUS, record);
+		}
+		else
+		{
+			tail = record;
+		}
+
+		head = record;
+
+		putLong(record, SESSION_PREVIOUS, 0);
+		putLong(record, SESSION_NEXT, sessionHeads[session]);
+
+		if(sessionHeads[session] != 0)
+		{
+			putLong(sessionHeads[session], SESSION_PREVIOUS, record);
+		}
+		else
+		{
+			sessionTails[session] = record;
+		}
+
+		sessionHeads[session] = record;
+	}
+
+	/**
+	 * Takes a record off both of its lists.
+	 *
+	 * @param record	 the address of the record
+	 * @version 2026.10.18
+	 */
+	private void unlink(long record)
+	{
+		int session = getInt(record, SESSION);
+		long previous = getLong(record, GLOBAL_PREVIOUS), next = getLong(record, GLOBAL_NEXT);
+
+		if(previous != 0)
+		{
+			putLong(previous, GLOBAL_NEXT, next);
+		}
+		else
+		{
+			head = next;
+		}
+
+		if(next != 0)
+		{
+			putLong(next, GLOBAL_PREVIOUS, previous);
+		}
+		else
+		{
+			tail = previous;
+		}
+
+		previous = getLong(record, SESSION_PREVIOUS);
+		next = getLong(record, SESSION_NEXT);
+
+		if(previous != 0)
+		{
+			putLong(previous, SESSION_NEXT, next);
+		}
+		else
+		{
+			sessionHeads[session] = next;
+		}
+
+		if(next != 0)
+		{
+			putLong(next, SESSION_PREVIOUS, previous);
+		}
+		else
+		{
+			sessionTails[session] = previous;
+		}
+	}
+
+	/**
+	 * Takes a slot for a record, reusing a freed one of the same size if there is one. Otherwise the slot is taken after the last slot
+	 * of the segment being filled, or of a new segment if that one is full.
+	 *
+	 * @param slotClass		 the size class of the slot
+	 * @return				 the address of the slot
+	 * @version 2026.10.18
+	 */
+	private long allocate(int slotClass)
+	{
+		long slot = freeSlots[slotClass];
+		int size = slotSize(slotClass);
+
+		if(slot != 0)
+		{
+			unlinkFreeSlot(slot, slotClass);
+		}
+		else
+		{
+			if(filling < 0 || segmentEnds[filling] + size > SEGMENT_SIZE)
+			{
+				openSegment();
+			}
+
+			slot = ((long) filling << SEGMENT_BITS) + segmentEnds[filling];
+			segmentEnds[filling] += size;
+		}
+
+		segmentBytes[(int) (slot >>> SEGMENT_BITS)] += size;
+		return slot;
+	}
+
+	/**
+	 * Starts filling a new segment, in the place of a released one if there is one. If that makes as many segments as there can be,
+	 * the emptiest of the others is evacuated, so there is always one fewer once a record has been added.
+	 *
+	 * @version 2026.10.18
+	 */
+	private void openSegment()
+	{
+		int segment = 0;
+
+		while(segment < segments.length && segments[segment] != null)
+		{
+			segment++;
+		}
+
+		if(segment == segments.length)
+		{
+			segments = Arrays.copyOf(segments, segment + 1);
+			segmentEnds = Arrays.copyOf(segmentEnds, segment + 1);
+			segmentBytes = Arrays.copyOf(segmentBytes, segment + 1);
+		}
+
+		segments[segment] = ByteBuffer.allocateDirect(SEGMENT_SIZE);
+
+		// The first bytes of the first segment are skipped, so that no record is at address 0
+		segmentEnds[segment] = segment == 0 ? GRANULE : 0;
+		segmentBytes[segment] = 0;
+		allocatedSegments++;
+		filling = segment;
+
+		if(allocatedSegments >= maxSegments)
+		{
+			int emptiest = -1;
+
+			for(int other = 0; other < segments.length; other++)
+			{
+				if(segments[other] != null && other != filling && (emptiest < 0 || segmentBytes[other] < segmentBytes[emptiest]))
+				{
+					emptiest = other;
+				}
+			}
+
+			evacuate(emptiest);
+		}
+	}
+
+	/**
+	 * Moves every record out of a segment and releases it. The freed slots of the segment are taken off their lists first,
+	 * so no record is moved into the segment it is leaving. Each record is moved like a new one, into a freed slot of its size
+	 * or the segment being filled, and its neighbours on both lists and its hash table entry are pointed at where it went.
+	 *
+	 * @param segment	 the number of the segment
+	 * @version 2026.10.18
+	 */
+	private void evacuate(int segment)
+	{
+		long start = (long) segment << SEGMENT_BITS, end = start + segmentEnds[segment];
+
+		// Every slot, freed or not, still has the lengths of its last record, which give the size of the slot
+		for(long slot = start + (segment == 0 ? GRANULE : 0); slot < end; slot += slotSize(slotClass(recordSize(slot))))
+		{
+			if(getInt(slot, SESSION) < 0)
+			{
+				unlinkFreeSlot(slot, slotClass(recordSize(slot)));
+			}
+		}
+
+		for(long slot = start + (segment == 0 ? GRANULE : 0); slot < end; slot += slotSize(slotClass(recordSize(slot))))
+		{
+			if(getInt(slot, SESSION) >= 0)
+			{
+				move(slot, allocate(slotClass(recordSize(slot))));
+			}
+		}
+
+		segments[segment] = null;
+		allocatedSegments--;
+	}
+
+	/**
+	 * Copies a record to another slot, and points its neighbours on both lists and its hash table entry at the new slot.
+	 *
+	 * @param from		 the address of the record
+	 * @param to		 the address of the slot it moves to
+	 * @version 2026.10.18
+	 */
+	private void move(long from, long to)
+	{
+		segment(to).put(offset(to), segment(from), offset(from), recordSize(from));
+
+		int session = getInt(to, SESSION);
+		long previous = getLong(to, GLOBAL_PREVIOUS), next = getLong(to, GLOBAL_NEXT);
+
+		if(previous != 0)
+		{
+			putLong(previous, GLOBAL_NEXT, to);
+		}
+		else
+		{
+			head = to;
+		}
+
+		if(next != 0)
+		{
+			putLong(next, GLOBAL_PREVIOUS, to);
+		}
+		else
+		{
+			tail = to;
+		}
+
+		previous = getLong(to, SESSION_PREVIOUS);
+		next = getLong(to, SESSION_NEXT);
+
+		if(previous != 0)
+		{
+			putLong(previous, SESSION_NEXT, to);
+		}
+		else
+		{
+			sessionHeads[session] = to;
+		}
+
+		if(next != 0)
+		{
+			putLong(next, SESSION_PREVIOUS, to);
+		}
+		else
+		{
+			sessionTails[session] = to;
+		}
+
+		long mask = indexCapacity - 1;
+		long position = getLong(to, HASH) & mask;
+
+		while((getIndex(position) & ADDRESS_MASK) != from)
+		{
+			position = (position + 1) & mask;
+		}
+
+		putIndex(position, (getIndex(position) & ~ADDRESS_MASK) | to);
+	}
+
+	/**
+	 * Get the bytes a record takes: its header, its item and its information.
+	 *
+	 * @param record	 the address of the record
+	 * @return			 the size of the record, without the rest of its slot
+	 * @version 2026.10.18
+	 */
+	private int recordSize(long record)
+	{
+		return HEADER + getInt(record, ITEM_LENGTH) + getInt(record, INFO_LENGTH);
+	}
+
+	/**
+	 * Finds the size class of a record: multiples of 16 bytes up to 4 KB, then powers of two up to 1 MB.
+	 *
+	 * @param size		 the size of the record, with its header
+	 * @return			 the size class
+	 * @version 2026.10.18
+	 */
+	private static int slotClass(int size)
+	{
+		if(size <= SMALL_SLOTS)
+		{
+			return (size + GRANULE - 1) / GRANULE - 1;
+		}
+
+		return SMALL_SLOTS / GRANULE - 1 + (32 - Integer.numberOfLeadingZeros(size - 1)) - 12;
+	}
+
+	/**
+	 * Get the size of the slots of a size class.
+	 *
+	 * @param slotClass	 the size class
+	 * @return			 the size in bytes
+	 * @version 2026.10.18
+	 */
+	private static int slotSize(int slotClass)
+	{
+		if(slotClass < SMALL_SLOTS / GRANULE)
+		{
+			return (slotClass + 1) * GRANULE;
+		}
+
+		return 1 << (slotClass - (SMALL_SLOTS / GRANULE - 1) + 12);
+	}
+
+	/**
+	 * Finds the index entry of an item in a session.
+	 *
+	 * @param session	 the number of the session
+	 * @param item		 the item, in UTF-8
+	 * @param hash		 the hash of the session and item
+	 * @return			 the position of the entry, or -1 if there is none
+	 * @version 2026.10.18
+	 */
+	private long find(int session, byte[] item, long hash)
+	{
+		long mask = indexCapacity - 1;
+
+		for(long position = hash & mask; ; position = (position + 1) & mask)
+		{
+			long entry = getIndex(position);
+
+			if(entry == 0)
+			{
+				return -1;
+			}
+
+			if(entry >>> 48 == hash >>> 48 && matches(entry & ADDRESS_MASK, session, item))
+			{
+				return position;
+			}
+		}
+	}
+
+	/**
+	 * Determines whether a record holds an item of a session.
+	 *
+	 * @param record	 the address of the record
+	 * @param session	 the number of the session
+	 * @param item		 the item, in UTF-8
+	 * @return			 whether the record holds the item
+	 * @version 2026.10.18
+	 */
+	private boolean matches(long record, int session, byte[] item)
+	{
+		if(getInt(record, SESSION) != session || getInt(record, ITEM_LENGTH) != item.length)
+		{
+			return false;
+		}
+
+		if(scratch.length < item.length)
+		{
+			scratch = new byte[Math.max(item.length, scratch.length * 2)];
+		}
+
+		segment(record).get(offset(record) + HEADER, scratch, 0, item.length);
+		return Arrays.equals(scratch, 0, item.length, item, 0, item.length);
+	}
+
+	/**
+	 * Adds a record to the hash table, which must have room for it.
+	 *
+	 * @param record	 the address of the record
+	 * @param hash		 the hash of its session and item
+	 * @version 2026.10.18
+	 */
+	private void insert(long record, long hash)
+	{
+		long mask = indexCapacity - 1;
+		long position = hash & mask;
+
+		while(getIndex(position) != 0)
+		{
+			position = (position + 1) & mask;
+		}
+
+		putIndex(position, (hash >>> 48) << 48 | record);
+	}
+
+	/**
+	 * Removes a record from the hash table, moving the entries after it back so that no lookup stops short of its entry.
+	 *
+	 * @param record	 the address of the record
+	 * @version 2026.10.18
+	 */
+	private void deleteFromIndex(long record)
+	{
+		long mask = indexCapacity - 1;
+		long hole = getLong(record, HASH) & mask;
+
+		while((getIndex(hole) & ADDRESS_MASK) != record)
+		{
+			hole = (hole + 1) & mask;
+		}
+
+		for(long position = (hole + 1) & mask; ; position = (position + 1) & mask)
+		{
+			long entry = getIndex(position);
+
+			if(entry == 0)
+			{
+				break;
+			}
+
+			// An entry can fill the hole unless its home lies after the hole, up to the entry itself
+			long home = getLong(entry & ADDRESS_MASK, HASH) & mask;
+
+			if(((position - home) & mask) >= ((position - hole) & mask))
+			{
+				putIndex(hole, entry);
+				hole = position;
+			}
+		}
+
+		putIndex(hole, 0);
+	}
+
+	/**
+	 * Doubles the hash table, adding every record again from the hash kept in its header.
+	 *
+	 * @version 2026.10.18
+	 */
+	private void growIndex()
+	{
+		index = newIndex(indexCapacity * 2);
+		indexCapacity *= 2;
+
+		for(long record = head; record != 0; record = getLong(record, GLOBAL_NEXT))
+		{
+			insert(record, getLong(record, HASH));
+		}
+	}
+
+	/**
+	 * Allocates an empty hash table.
+	 *
+	 * @param capacity	 the number of entries, a power of two
+	 * @return			 the buffers holding the entries
+	 * @version 2026.10.18
+	 */
+	private static ByteBuffer[] newIndex(long capacity)
+	{
+		long perBuffer = Math.min(capacity, 1L << INDEX_BITS);
+		ByteBuffer[] buffers = new ByteBuffer[(int) (capacity / perBuffer)];
+
+		for(int i = 0; i < buffers.length; i++)
+		{
+			buffers[i] = ByteBuffer.allocateDirect((int) perBuffer * 8);
+		}
+
+		return buffers;
+	}
+
+	/**
+	 * Get an entry of the hash table.
+	 *
+	 * @param position	 the position of the entry
+	 * @return			 the entry
+	 * @version 2026.10.18
+	 */
+	private long getIndex(long position)
+	{
+		return index[(int) (position >>> INDEX_BITS)].getLong((int) (position & ((1 << INDEX_BITS) - 1)) << 3);
+	}
+
+	/**
+	 * Sets an entry of the hash table.
+	 *
+	 * @param position	 the position of the entry
+	 * @param entry		 the entry
+	 * @version 2026.10.18
+	 */
+	private void putIndex(long position, long entry)
+	{
+		index[(int) (position >>> INDEX_BITS)].putLong((int) (position & ((1 << INDEX_BITS) - 1)) << 3, entry);
+	}
+
+	/**
+	 * Decodes UTF-8 text in a record.
+	 *
+	 * @param record	 the address of the record
+	 * @param start		 where the text starts in the record
+	 * @param length	 the length of the text in bytes
+	 * @return			 the text
+	 * @version 2026.10.18
+	 */
+	private String readText(long record, int start, int length)
+	{
+		byte[] bytes = new byte[length];
+		segment(record).get(offset(record) + start, bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Hashes an item of a session, with FNV-1a followed by the MurmurHash3 finalizer.
+	 *
+	 * @param session	 the number of the session
+	 * @param item		 the item, in UTF-8
+	 * @return			 the hash
+	 * @version 2026.10.18
+	 */
+	private static long hash(int session, byte[] item)
+	{
+		long hash = (0xcbf29ce484222325L ^ session) * 0x100000001b3L;
+
+		for(byte b : item)
+		{
+			hash = (hash ^ (b & 0xff)) * 0x100000001b3L;
+		}
+
+		hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+		hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+		return hash ^ (hash >>> 33);
+	}
+
+	/**
+	 * Get the segment an address is in.
+	 *
+	 * @param address	 the address
+	 * @return			 the segment
+	 * @version 2026.10.18
+	 */
+	private ByteBuffer segment(long address)
+	{
+		return segments[(int) (address >>> SEGMENT_BITS)];
+	}
+
+	/**
+	 * Get the offset of an address in its segment.
+	 *
+	 * @param address	 the address
+	 * @return			 the offset
+	 * @version 2026.10.18
+	 */
+	private static int offset(long address)
+	{
+		return (int) (address & (SEGMENT_SIZE - 1));
+	}
+
+	/**
+	 * Reads a long field of a record.
+	 *
+	 * @param record	 the address of the record
+	 * @param field		 where the field is in the record
+	 * @return			 the value of the field
+	 * @version 2026.10.18
+	 */
+	private long getLong(long record, int field)
+	{
+		return segment(record).getLong(offset(record) + field);
+	}
+
+	/**
+	 * Writes a long field of a record.
+	 *
+	 * @param record	 the address of the record
+	 * @param field		 where the field is in the record
+	 * @param value		 the value of the field
+	 * @version 2026.10.18
+	 */
+	private void putLong(long record, int field, long value)
+	{
+		segment(record).putLong(offset(record) + field, value);
+	}
+
+	/**
+	 * Reads an int field of a record.
+	 *
+	 * @param record	 the address of the record
+	 * @param field		 where the field is in the record
+	 * @return			 the value of the field
+	 * @version 2026.10.18
+	 */
+	private int getInt(long record, int field)
+	{
+		return segment(record).getInt(offset(record) + field);
+	}
+
+	/**
+	 * Writes an int field of a record.
+	 *
+	 * @param record	 the address of the record
+	 * @param field		 where the field is in the record
+	 * @param value		 the value of the field
+	 * @version 2026.10.18
+	 */
+	private void putInt(long record, int field, int value)
+	{
+		segment(record).putInt(offset(record) + field, value);
+	}
+}
@@ -0,0 +1,129 @@
+/**
+ * A point of view that a subject or object pronoun speaks from, with the forms of the verbs that agree with it.
+ * The points of view are declared in the order of the subject and object pronoun word classes of <code>Grammar</code>,
+ * so that the index of a pronoun in its word class list is the ordinal of its point of view.
+ * The second person is the same in the singular and the plural, so it is one point of view.
+ *
+ * @author	Thanasi Bakis
+ */
+public enum PointOfView
+{
+	FIRST_SINGULAR("i", "me", "am", ""),
+	SECOND("you", "you", "are", ""),
+	THIRD_MASCULINE("he", "him", "is", "s"),
+	THIRD_FEMININE("she", "her", "is", "s"),
+	THIRD_NEUTER("it", "it", "is", "s"),
+	THIRD_DEMONSTRATIVE("that", "that", "is", "s"),
+	FIRST_PLURAL("we", "us", "are", ""),
+	THIRD_PLURAL("they", "them", "are", "");
+
+	private static final PointOfView[] VALUES = values();
+
+	private final String subjectPronoun, objectPronoun, beConjugation, standardConjugation;
+
+	/**
+	 * Creates a point of view.
+	 *
+	 * @param subjectPronoun		 the lowercase subject pronoun
+	 * @param objectPronoun			 the lowercase object pronoun
+	 * @param beConjugation			 the form of "to be" that agrees with the subject pronoun
+	 * @param standardConjugation	 the ending that a regular verb in the present tense takes after the subject pronoun
+	 * @version 2026.10.18
+	 */
+	private PointOfView(String subjectPronoun, String objectPronoun, String beConjugation, String standardConjugation)
+	{
+		this.subjectPronoun = subjectPronoun;
+		this.objectPronoun = objectPronoun;
+		this.beConjugation = beConjugation;
+		this.standardConjugation = standardConjugation;
+	}
+
+	/**
+	 * Get the point of view of a pronoun from its index in the subject or object pronoun word class list of <code>Grammar</code>.
+	 *
+	 * @param index		 the index of the pronoun, as returned by <code>Grammar.findWordClass</code>
+	 * @return			 the point of view, or null if the index is -1
+	 * @version 2026.10.18
+	 */
+	public static PointOfView of(int index)
+	{
+		return index < 0 ? null : VALUES[index];
+	}
+
+	/**
+	 * Get the subject pronoun, such as "he".
+	 *
+	 * @return			 the lowercase subject pronoun
+	 * @version 2026.10.18
+	 */
+	public String getSubjectPronoun()
+	{
+		return subjectPronoun;
+	}
+
+	/**
+	 * Get the object pronoun, such as "him".
+	 *
+	 * @return			 the lowercase object pronoun
+	 * @version 2026.10.18
+	 */
+	public String getObjectPronoun()
+	{
+		return objectPronoun;
+	}
+
+	/**
+	 * Get the form of "to be" that agrees with the subject pronoun, such as "is" after "he".
+	 *
+	 * @return			 the be verb
+	 * @version 2026.10.18
+	 */
+	public String getBeConjugation()
+	{
+		return beConjugation;
+	}
+
+	/**
+	 * Get the ending that a regular verb in the present tense takes after the subject pronoun, such as the "s" of "he walks".
+	 *
+	 * @return			 the ending, which is empty for every point of view but the third person singular
+	 * @version 2026.10.18
+	 */
+	public String getStandardConjugation()
+	{
+		return standardConjugation;
+	}
+
+	/**
+	 * Determines whether a be verb must agree with the subject pronoun of this point of view.
+	 * "That" is also a relative pronoun, which agrees with the word it stands for, as in "things that are", so it is left alone.
+	 *
+	 * @return			 whether the point of view is personal
+	 * @version 2026.10.18
+	 */
+	public boolean isPersonal()
+	{
+		return this != THIRD_DEMONSTRATIVE;
+	}
+
+	/**
+	 * Get the point of view that this one becomes when the speaker and the listener swap places.
+	 * The first person becomes the second person, the second person becomes the first person singular, and the third person stays the same.
+	 *
+	 * @return			 the inverted point of view
+	 * @version 2026.10.18
+	 */
+	public PointOfView inverted()
+	{
+		switch(this)
+		{
+			case FIRST_SINGULAR:
+			case FIRST_PLURAL:
+				return SECOND;
+			case SECOND:
+				return FIRST_SINGULAR;
+			default:
+				return this;
+		}
+	}
+}
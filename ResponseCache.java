@@ -0,0 +1,192 @@
+import java.util.*;
+
+/**
+ * A bounded cache of the responses to normalized statements, for the responses that depend on nothing but the statement.
+ * When the cache is full, the least recently used response is evicted. One cache can be shared by many <code>Magpie</code>s,
+ * since every method is synchronized.
+ * Every response is cached with the generation of the rules that gave it, so reloading the rules makes the old responses misses,
+ * and with the index of the rule in the metrics, so a hit can be counted towards the rule.
+ * Statements and responses longer than <code>MAX_LENGTH</code> characters are never cached, so a few long ones can't fill the heap
+ * however few entries the cache holds.
+ *
+ * @author	Thanasi Bakis
+ */
+public class ResponseCache
+{
+	public static final int MAX_LENGTH = 256;
+
+	private final int capacity;
+	private final LinkedHashMap<String, Entry> responses;
+	private long hits, misses, evictions;
+
+	/**
+	 * A cached response, the generation of the rules that gave it, and the rule that gave it.
+	 */
+	public static final class Entry
+	{
+		private final long generation;
+		private final int rule;
+		private final String response;
+
+		/**
+		 * Creates an entry.
+		 *
+		 * @param generation	 the generation of the rules
+		 * @param rule			 the index of the rule in the metrics
+		 * @param response		 the response
+		 * @version 2026.10.18
+		 */
+		private Entry(long generation, int rule, String response)
+		{
+			this.generation = generation;
+			this.rule = rule;
+			this.response = response;
+		}
+
+		/**
+		 * Get the index in the metrics of the rule that gave the response.
+		 *
+		 * @return			 the index of the rule
+		 * @version 2026.10.18
+		 */
+		public int getRule()
+		{
+			return rule;
+		}
+
+		/**
+		 * Get the cached response.
+		 *
+		 * @return			 the response
+		 * @version 2026.10.18
+		 */
+		public String getResponse()
+		{
+			return response;
+		}
+	}
+
+	/**
+	 * Creates an empty cache.
+	 *
+	 * @param capacity		 the most responses to keep
+	 * @version 2026.10.18
+	 */
+	public ResponseCache(int capacity)
+	{
+		if(capacity <= 0)
+		{
+			throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+		}
+
+		this.capacity = capacity;
+		responses = new LinkedHashMap<String, Entry>(16, 0.75f, true)
+		{
+			protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest)
+			{
+				if(size() > ResponseCache.this.capacity)
+				{
+					evictions++;
+					return true;
+				}
+
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Looks up the response to a statement, counting a hit or a miss.
+	 *
+	 * @param statement		 the normalized statement
+	 * @param generation	 the generation of the rules in use; a response given by other rules is a miss
+	 * @return				 the cached response and its rule, or <code>null</code> if there is none
+	 * @version 2026.10.18
+	 */
+	public synchronized Entry get(String statement, long generation)
+	{
+		Entry entry = statement.length() > MAX_LENGTH ? null : responses.get(statement);
+
+		if(entry == null || entry.generation != generation)
+		{
+			misses++;
+			return null;
+		}
+
+		hits++;
+		return entry;
+	}
+
+	/**
+	 * Caches the response to a statement, evicting the least recently used response if the cache is full.
+	 * Nothing is cached if the statement or the response is longer than <code>MAX_LENGTH</code> characters.
+	 *
+	 * @param statement		 the normalized statement
+	 * @param generation	 the generation of the rules that gave the response
+	 * @param rule			 the index in the metrics of the rule that gave the response
+	 * @param response		 the response, which must depend on nothing but the statement and the rules
+	 * @version 2026.10.18
+	 */
+	public synchronized void put(String statement, long generation, int rule, String response)
+	{
+		if(statement.length() <= MAX_LENGTH && response.length() <= MAX_LENGTH)
+		{
+			responses.put(statement, new Entry(generation, rule, response));
+		}
+	}
+
+	/**
+	 * Get the number of lookups that found a response.
+	 *
+	 * @return				 the number of hits
+	 * @version 2026.10.18
+	 */
+	public synchronized long getHits()
+	{
+		return hits;
+	}
+
+	/**
+	 * Get the number of lookups that found no response.
+	 *
+	 * @return				 the number of misses
+	 * @version 2026.10.18
+	 */
+	public synchronized long getMisses()
+	{
+		return misses;
+	}
+
+	/**
+	 * Get the number of responses evicted to make room for others.
+	 *
+	 * @return				 the number of evictions
+	 * @version 2026.10.18
+	 */
+	public synchronized long getEvictions()
+	{
+		return evictions;
+	}
+
+	/**
+	 * Get the number of responses cached.
+	 *
+	 * @return				 the number of responses
+	 * @version 2026.10.18
+	 */
+	public synchronized int size()
+	{
+		return responses.size();
+	}
+
+	/**
+	 * Get the most responses this cache keeps.
+	 *
+	 * @return				 the capacity
+	 * @version 2026.10.18
+	 */
+	public int getCapacity()
+	{
+		return capacity;
+	}
+}
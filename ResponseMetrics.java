@@ -0,0 +1,343 @@
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.*;
+
+/**
+ * Counts how often each rule of <code>Magpie</code> gives a response, and how long the responses take.
+ * Every rule has a hit counter and a latency histogram with one bucket per power of two nanoseconds, all made of
+ * <code>LongAdder</code>s, so recording a response takes no locks and scales with the number of threads giving responses.
+ * The metrics can be read through JMX or written in the Prometheus text format.
+ *
+ * @author	Thanasi Bakis
+ */
+public class ResponseMetrics implements ResponseMetricsMXBean
+{
+	private static final int BUCKETS = 40;
+
+	/**
+	 * The counters of one rule.
+	 */
+	private static final class Counters
+	{
+		private final String id;
+		private final LongAdder hits = new LongAdder(), nanos = new LongAdder();
+		private final LongAdder[] histogram = new LongAdder[BUCKETS];
+
+		/**
+		 * Creates counters starting at zero.
+		 *
+		 * @param id		 the id of the rule
+		 * @version 2026.10.18
+		 */
+		private Counters(String id)
+		{
+			this.id = id;
+
+			for(int b = 0; b < BUCKETS; b++)
+			{
+				histogram[b] = new LongAdder();
+			}
+		}
+	}
+
+	// Rules are only ever added, by copying the array, so record reads it without a lock
+	private volatile Counters[] rules;
+	private final Map<String, Integer> indexes;
+
+	/**
+	 * Creates metrics for a list of rules, all starting at zero.
+	 *
+	 * @param ids		 the ids of the rules; a repeated id counts as one rule
+	 * @version 2026.10.18
+	 */
+	public ResponseMetrics(String... ids)
+	{
+		rules = new Counters[0];
+		indexes = new HashMap<String, Integer>();
+
+		for(String id : ids)
+		{
+			addRule(id);
+		}
+	}
+
+	/**
+	 * Get the index of a rule, which is what <code>record</code> takes. A rule that isn't counted yet is added, starting at zero,
+	 * so rules loaded while the program runs are counted alongside the others. A rule keeps its index and counts for good.
+	 *
+	 * @param id		 the id of the rule
+	 * @return			 the index of the rule
+	 * @version 2026.10.18
+	 */
+	public synchronized int ruleIndex(String id)
+	{
+		return addRule(id);
+	}
+
+	/**
+	 * Get the index of a rule, adding the rule if it isn't counted yet. The caller holds the lock, or is the constructor.
+	 *
+	 * @param id		 the id of the rule
+	 * @return			 the index of the rule
+	 * @version 2026.10.18
+	 */
+	private int addRule(String id)
+	{
+		Integer index = indexes.get(id);
+
+		if(index == null)
+		{
+			Counters[] grown = Arrays.copyOf(rules, rules.length + 1);
+			index = rules.length;
+			grown[index] = new Counters(id);
+			indexes.put(id, index);
+			rules = grown;
+		}
+
+		return index;
+	}
+
+	/**
+	 * Records a response given by a rule.
+	 *
+	 * @param rule			 the index of the rule
+	 * @param elapsedNanos	 how long the response took
+	 * @version 2026.10.18
+	 */
+	public void record(int rule, long elapsedNanos)
+	{
+		Counters counters = rules[rule];
+		counters.hits.increment();
+		counters.nanos.add(elapsedNanos);
+		counters.histogram[bucket(elapsedNanos)].increment();
+	}
+
+	/**
+	 * Sets every counter back to zero, such as after a warm-up. Responses recorded while the counters are being reset may be kept or lost.
+	 *
+	 * @version 2026.10.18
+	 */
+	public void reset()
+	{
+		for(Counters counters : rules)
+		{
+			counters.hits.reset();
+			counters.nanos.reset();
+
+			for(LongAdder bucket : counters.histogram)
+			{
+				bucket.reset();
+			}
+		}
+	}
+
+	/**
+	 * Registers these metrics with the platform MBean server, so tools such as JConsole can read them.
+	 *
+	 * @param name		 the object name to register under, such as "magpie:type=ResponseMetrics"
+	 * @throws JMException	 if the name is invalid or already registered
+	 * @version 2026.10.18
+	 */
+	public void register(String name) throws JMException
+	{
+		ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(name));
+	}
+
+	/**
+	 * Get the number of responses each rule has given.
+	 *
+	 * @return			 the hits of each rule, by id, in the order the rules were added
+	 * @version 2026.10.18
+	 */
+	public Map<String, Long> getHits()
+	{
+		Map<String, Long> counts = new LinkedHashMap<String, Long>();
+
+		for(Counters rule : rules)
+		{
+			counts.put(rule.id, rule.hits.sum());
+		}
+
+		return counts;
+	}
+
+	/**
+	 * Get the mean time each rule has taken to give a response.
+	 *
+	 * @return			 the mean latency of each rule in microseconds, by id, or 0 for a rule with no responses
+	 * @version 2026.10.18
+	 */
+	public Map<String, Double> getMeanMicros()
+	{
+		Map<String, Double> means = new LinkedHashMap<String, Double>();
+
+		for(Counters rule : rules)
+		{
+			long count = rule.hits.sum();
+			means.put(rule.id, count == 0 ? 0 : rule.nanos.sum() / 1000.0 / count);
+		}
+
+		return means;
+	}
+
+	/**
+	 * Get the 99th percentile of the time each rule has taken to give a response, as the upper bound of its power of two bucket.
+	 *
+	 * @return			 the 99th percentile latency of each rule in microseconds, by id, or 0 for a rule with no responses
+	 * @version 2026.10.18
+	 */
+	public Map<String, Double> getP99Micros()
+	{
+		Map<String, Double> percentiles = new LinkedHashMap<String, Double>();
+
+		for(Counters rule : rules)
+		{
+			percentiles.put(rule.id, percentileNanos(rule, 0.99) / 1000.0);
+		}
+
+		return percentiles;
+	}
+
+	/**
+	 * Writes every metric in the Prometheus text exposition format. Rule ids can be any text, so they are escaped as label values.
+	 *
+	 * @return			 the metrics as text
+	 * @version 2026.10.18
+	 */
+	public String toPrometheusText()
+	{
+		Counters[] rules = this.rules;
+		StringBuilder text = new StringBuilder();
+
+		text.append("# HELP magpie_responses_total Responses given, by rule.\n");
+		text.append("# TYPE magpie_responses_total counter\n");
+
+		for(Counters rule : rules)
+		{
+			text.append("magpie_responses_total{rule=\"").append(labelValue(rule.id)).append("\"} ").append(rule.hits.sum()).append('\n');
+		}
+
+		text.append("# HELP magpie_response_seconds Time taken to give a response, by rule.\n");
+		text.append("# TYPE magpie_response_seconds histogram\n");
+
+		for(Counters rule : rules)
+		{
+			String label = labelValue(rule.id);
+			long cumulative = 0;
+
+			// Every bucket up to the last non-empty one is written, so the histogram stays short for fast rules
+			int lastBucket = 0;
+
+			for(int b = 0; b < BUCKETS; b++)
+			{
+				if(rule.histogram[b].sum() > 0)
+				{
+					lastBucket = b;
+				}
+			}
+
+			for(int b = 0; b <= lastBucket; b++)
+			{
+				cumulative += rule.histogram[b].sum();
+				text.append("magpie_response_seconds_bucket{rule=\"").append(label).append("\",le=\"").append(bucketUpperNanos(b) / 1e9).append("\"} ").append(cumulative).append('\n');
+			}
+
+			text.append("magpie_response_seconds_bucket{rule=\"").append(label).append("\",le=\"+Inf\"} ").append(cumulative).append('\n');
+			text.append("magpie_response_seconds_sum{rule=\"").append(label).append("\"} ").append(rule.nanos.sum() / 1e9).append('\n');
+			text.append("magpie_response_seconds_count{rule=\"").append(label).append("\"} ").append(cumulative).append('\n');
+		}
+
+		return text.toString();
+	}
+
+	/**
+	 * Escapes text as a Prometheus label value, where a backslash, a double quote and a line feed are written with a backslash.
+	 *
+	 * @param text		 the text
+	 * @return			 the escaped text, without the quotes around it
+	 * @version 2026.10.18
+	 */
+	private static String labelValue(String text)
+	{
+		StringBuilder escaped = new StringBuilder(text.length());
+
+		for(int i = 0; i < text.length(); i++)
+		{
+			char c = text.charAt(i);
+
+			if(c == '\\' || c == '"')
+			{
+				escaped.append('\\').append(c);
+			}
+			else if(c == '\n')
+			{
+				escaped.append("\\n");
+			}
+			else
+			{
+				escaped.append(c);
+			}
+		}
+
+		return escaped.toString();
+	}
+
+	/**
+	 * Estimates a latency percentile of a rule as the upper bound of the bucket it falls in.
+	 *
+	 * @param rule			 the counters of the rule
+	 * @param percentile	 the percentile, between 0 and 1
+	 * @return				 the estimated latency in nanoseconds, or 0 if the rule has no responses
+	 * @version 2026.10.18
+	 */
+	private static long percentileNanos(Counters rule, double percentile)
+	{
+		long[] counts = new long[BUCKETS];
+		long total = 0;
+
+		for(int b = 0; b < BUCKETS; b++)
+		{
+			counts[b] = rule.histogram[b].sum();
+			total += counts[b];
+		}
+
+		long seen = 0;
+
+		for(int b = 0; b < BUCKETS; b++)
+		{
+			seen += counts[b];
+
+			if(seen > 0 && seen >= percentile * total)
+			{
+				return bucketUpperNanos(b);
+			}
+		}
+
+		return 0;
+	}
+
+	/**
+	 * Finds the histogram bucket of a latency: bucket b holds latencies below 2^b nanoseconds.
+	 *
+	 * @param elapsedNanos	 the latency
+	 * @return				 the bucket
+	 * @version 2026.10.18
+	 */
+	private static int bucket(long elapsedNanos)
+	{
+		return Math.min(64 - Long.numberOfLeadingZeros(Math.max(elapsedNanos, 0)), BUCKETS - 1);
+	}
+
+	/**
+	 * Get the upper bound of a histogram bucket.
+	 *
+	 * @param bucket		 the bucket
+	 * @return				 the latency in nanoseconds that every latency in the bucket is below
+	 * @version 2026.10.18
+	 */
+	private static long bucketUpperNanos(int bucket)
+	{
+		return 1L << bucket;
+	}
+}
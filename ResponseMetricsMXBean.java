@@ -0,0 +1,30 @@
+import java.util.Map;
+
+/**
+ * The view of <code>ResponseMetrics</code> given through JMX. Every map is keyed by rule id.
+ *
+ * @author	Thanasi Bakis
+ */
+public interface ResponseMetricsMXBean
+{
+	/**
+	 * Get the number of responses each rule has given.
+	 *
+	 * @return			 the hits of each rule
+	 */
+	Map<String, Long> getHits();
+
+	/**
+	 * Get the mean time each rule has taken to give a response.
+	 *
+	 * @return			 the mean latency of each rule, in microseconds
+	 */
+	Map<String, Double> getMeanMicros();
+
+	/**
+	 * Get the 99th percentile of the time each rule has taken to give a response, to within a power of two.
+	 *
+	 * @return			 the 99th percentile latency of each rule, in microseconds
+	 */
+	Map<String, Double> getP99Micros();
+}
@@ -0,0 +1,432 @@
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+/**
+ * Gives responses to a stream of statements in three <code>Flow</code> stages: normalizing each statement,
+ * analyzing it against the keyword rules, and rendering the response with the <code>Magpie</code> of its session.
+ * Each stage runs in a tunable number of lanes, and a turn always takes the lane chosen by the hash of its session,
+ * so the turns of one session stay in order while different sessions run in parallel. Every lane is a
+ * <code>SubmissionPublisher</code> with a bounded buffer; when a lane is full, the stage before it waits, and once every
+ * stage is full, <code>submit</code> and <code>onNext</code> wait too. A burst of statements fills the buffers and then
+ * slows the source down, instead of growing a queue without bound.
+ * <p>
+ * The pipeline is a <code>Flow.Processor</code>, so it can subscribe to a source of turns and be subscribed to for the answered turns.
+ * Answered turns are only delivered to the subscribers that subscribed before the turn was rendered.
+ * A session is dropped by a turn without a statement, or by its lane once it has had no turn for longer than the idle timeout.
+ *
+ * @author	Thanasi Bakis
+ */
+public class ResponsePipeline implements Flow.Processor<ResponsePipeline.Turn, ResponsePipeline.Turn>, AutoCloseable
+{
+	/**
+	 * A statement in a session, and the response to it once it has one.
+	 * A turn without a statement ends its session, and has no response.
+	 */
+	public static final class Turn
+	{
+		private final String session, statement;
+		private Magpie.Analysis analysis;
+		private String response;
+		private RuntimeException error;
+
+		/**
+		 * Creates a turn that has not been answered yet.
+		 *
+		 * @param session		 the id of the session
+		 * @param statement		 the user statement, or <code>null</code> to end the session
+		 * @version 2026.10.18
+		 */
+		public Turn(String session, String statement)
+		{
+			this.session = session;
+			this.statement = statement;
+		}
+
+		/**
+		 * Get the id of the session of this turn.
+		 *
+		 * @return			 the id of the session
+		 * @version 2026.10.18
+		 */
+		public String getSession()
+		{
+			return session;
+		}
+
+		/**
+		 * Get the statement of this turn.
+		 *
+		 * @return			 the user statement, or <code>null</code> if this turn ends its session
+		 * @version 2026.10.18
+		 */
+		public String getStatement()
+		{
+			return statement;
+		}
+
+		/**
+		 * Get the response to this turn.
+		 *
+		 * @return			 the response, or <code>null</code> if there is none yet or this turn ends its session
+		 * @version 2026.10.18
+		 */
+		public String getResponse()
+		{
+			return response;
+		}
+
+		/**
+		 * Get the error that stopped this turn from being answered.
+		 *
+		 * @return			 the error, or <code>null</code> if there was none
+		 * @version 2026.10.18
+		 */
+		public RuntimeException getError()
+		{
+			return error;
+		}
+	}
+
+	/**
+	 * The <code>Magpie</code> of a session in a rendering lane, and when it last had a turn.
+	 */
+	private static final class LaneSession
+	{
+		private final Magpie magpie;
+		private long lastTurnNanos;
+
+		/**
+		 * Creates the session of a lane.
+		 *
+		 * @param magpie		 the <code>Magpie</code> of the session
+		 * @version 2026.10.18
+		 */
+		private LaneSession(Magpie magpie)
+		{
+			this.magpie = magpie;
+		}
+	}
+
+	private final ExecutorService executor;
+	private final ResponseCache cache;
+	private final long idleTimeoutNanos;
+	private final SubmissionPublisher<Turn>[] normalizers, analyzers, renderers;
+	private final SubmissionPublisher<Turn> answers;
+	private final int bufferCapacity;
+	private final Map<SubmissionPublisher<Turn>, StageLane> subscribers;
+	private Flow.Subscription source;
+
+	/**
+	 * Creates a pipeline.
+	 *
+	 * @param normalizers		 the number of lanes normalizing statements
+	 * @param analyzers			 the number of lanes analyzing statements
+	 * @param renderers			 the number of lanes rendering responses, each with its own sessions
+	 * @param bufferCapacity	 the most turns each lane holds before the stage before it waits
+	 * @param idleTimeoutMillis	 how long a session may go without a turn before its lane drops it, or 0 to keep every session
+	 * 							 until a turn ends it
+	 * @param cache				 the cache of responses shared by every session, or <code>null</code> for no cache
+	 * @version 2026.10.18
+	 */
+	public ResponsePipeline(int normalizers, int analyzers, int renderers, int bufferCapacity, long idleTimeoutMillis, ResponseCache cache)
+	{
+		if(normalizers <= 0 || analyzers <= 0 || renderers <= 0 || bufferCapacity <= 0 || idleTimeoutMillis < 0)
+		{
+			throw new IllegalArgumentException("Every stage needs at least one lane, every lane a buffer, and the idle timeout can't be negative");
+		}
+
+		this.cache = cache;
+		idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+		this.bufferCapacity = bufferCapacity;
+		executor = Executors.newVirtualThreadPerTaskExecutor();
+		subscribers = new IdentityHashMap<SubmissionPublisher<Turn>, StageLane>();
+		answers = new SubmissionPublisher<Turn>(executor, bufferCapacity);
+
+		// The stages are built from the last to the first, so each can hand its turns to the next
+		SubmissionPublisher<Turn>[] rendering = lanes(renderers, lane ->
+		{
+			// In the order of their last turns, so the idle sessions are always the eldest
+			LinkedHashMap<String, LaneSession> sessions = new LinkedHashMap<String, LaneSession>(16, 0.75f, true);
+			return turn -> render(sessions, turn);
+		}, answers::submit);
+		SubmissionPublisher<Turn>[] analyzing = lanes(analyzers, lane -> turn ->
+		{
+			if(turn.analysis != null && turn.error == null)
+			{
+				turn.analysis.analyze();
+			}
+
+			return turn;
+		}, turn -> rendering[lane(turn, rendering.length)].submit(turn));
+		this.normalizers = lanes(normalizers, lane -> turn ->
+		{
+			if(turn.statement != null)
+			{
+				turn.analysis = new Magpie.Analysis(turn.statement);
+			}
+
+			return turn;
+		}, turn -> analyzing[lane(turn, analyzing.length)].submit(turn));
+		this.analyzers = analyzing;
+		this.renderers = rendering;
+	}
+
+	/**
+	 * Gives a turn to the pipeline, waiting while the first stage is full.
+	 *
+	 * @param turn		 the turn
+	 * @version 2026.10.18
+	 */
+	public void submit(Turn turn)
+	{
+		normalizers[lane(turn, normalizers.length)].submit(turn);
+	}
+
+	/**
+	 * Takes turns from a source, asking it for as many turns as the first stage can hold.
+	 *
+	 * @param subscription	 the subscription to the source
+	 * @version 2026.10.18
+	 */
+	public void onSubscribe(Flow.Subscription subscription)
+	{
+		source = subscription;
+		subscription.request(bufferCapacity);
+	}
+
+	/**
+	 * Takes a turn from the source, and asks it for another once the turn is in the pipeline.
+	 *
+	 * @param turn		 the turn
+	 * @version 2026.10.18
+	 */
+	public void onNext(Turn turn)
+	{
+		submit(turn);
+		source.request(1);
+	}
+
+	/**
+	 * Finishes the turns in the pipeline, then passes on the error of the source.
+	 *
+	 * @param error		 the error
+	 * @version 2026.10.18
+	 */
+	public void onError(Throwable error)
+	{
+		close(error);
+	}
+
+	/**
+	 * Finishes the turns in the pipeline once the source has no more.
+	 *
+	 * @version 2026.10.18
+	 */
+	public void onComplete()
+	{
+		close();
+	}
+
+	/**
+	 * Subscribes to the answered turns.
+	 *
+	 * @param subscriber	 the subscriber
+	 * @version 2026.10.18
+	 */
+	public void subscribe(Flow.Subscriber<? super Turn> subscriber)
+	{
+		answers.subscribe(subscriber);
+	}
+
+	/**
+	 * Finishes every turn in the pipeline, then tells the subscribers there are no more.
+	 *
+	 * @version 2026.10.18
+	 */
+	public void close()
+	{
+		close(null);
+	}
+
+	/**
+	 * Finishes every turn in the pipeline, one stage at a time, then tells the subscribers there are no more.
+	 *
+	 * @param error		 the error to pass on to the subscribers, or <code>null</code> if the turns simply ended
+	 * @version 2026.10.18
+	 */
+	private void close(Throwable error)
+	{
+		drain(normalizers);
+		drain(analyzers);
+		drain(renderers);
+
+		if(error == null)
+		{
+			answers.close();
+		}
+		else
+		{
+			answers.closeExceptionally(error);
+		}
+
+		executor.close();
+	}
+
+	/**
+	 * Closes the lanes of a stage and waits for the turns in them to move on to the next stage.
+	 *
+	 * @param lanes		 the lanes of the stage
+	 * @version 2026.10.18
+	 */
+	private void drain(SubmissionPublisher<Turn>[] lanes)
+	{
+		List<CompletableFuture<Void>> drained = new ArrayList<CompletableFuture<Void>>();
+
+		for(SubmissionPublisher<Turn> lane : lanes)
+		{
+			lane.close();
+			drained.add(subscribers.get(lane).done);
+		}
+
+		CompletableFuture.allOf(drained.toArray(new CompletableFuture<?>[0])).join();
+	}
+
+	/**
+	 * Renders the response to a turn with the <code>Magpie</code> of its session, which only this lane uses,
+	 * after dropping the sessions of the lane that have been idle for too long.
+	 *
+	 * @param sessions		 the sessions of the lane, in the order of their last turns
+	 * @param turn			 the turn
+	 * @return				 the answered turn
+	 * @version 2026.10.18
+	 */
+	private Turn render(LinkedHashMap<String, LaneSession> sessions, Turn turn)
+	{
+		long now = System.nanoTime();
+
+		if(idleTimeoutNanos > 0)
+		{
+			Iterator<LaneSession> eldest = sessions.values().iterator();
+
+			while(eldest.hasNext() && now - eldest.next().lastTurnNanos > idleTimeoutNanos)
+			{
+				eldest.remove();
+			}
+		}
+
+		if(turn.error != null)
+		{
+			return turn;
+		}
+
+		if(turn.analysis == null)
+		{
+			sessions.remove(turn.session);
+		}
+		else
+		{
+			LaneSession session = sessions.computeIfAbsent(turn.session, id -> new LaneSession(new Magpie(new MemoryStore(), cache)));
+			session.lastTurnNanos = now;
+			turn.response = session.magpie.getResponse(turn.analysis);
+		}
+
+		return turn;
+	}
+
+	/**
+	 * Creates the lanes of a stage, each working on its own thread and handing its turns on to the next stage.
+	 *
+	 * @param count		 the number of lanes
+	 * @param work		 creates the work of each lane, given the index of the lane
+	 * @param handOn	 hands a turn on to the next stage, waiting while it is full
+	 * @return			 the lanes
+	 * @version 2026.10.18
+	 */
+	private SubmissionPublisher<Turn>[] lanes(int count, IntFunction<UnaryOperator<Turn>> work, Consumer<Turn> handOn)
+	{
+		@SuppressWarnings("unchecked")
+		SubmissionPublisher<Turn>[] lanes = (SubmissionPublisher<Turn>[]) new SubmissionPublisher<?>[count];
+
+		for(int i = 0; i < count; i++)
+		{
+			StageLane subscriber = new StageLane(work.apply(i), handOn);
+			lanes[i] = new SubmissionPublisher<Turn>(executor, bufferCapacity);
+			lanes[i].subscribe(subscriber);
+			subscribers.put(lanes[i], subscriber);
+		}
+
+		return lanes;
+	}
+
+	/**
+	 * Finds the lane of a stage that a turn takes, from the hash of its session.
+	 *
+	 * @param turn		 the turn
+	 * @param lanes		 the number of lanes in the stage
+	 * @return			 the lane
+	 * @version 2026.10.18
+	 */
+	private static int lane(Turn turn, int lanes)
+	{
+		return Math.floorMod(turn.session.hashCode(), lanes);
+	}
+
+	/**
+	 * The subscriber of one lane: it works on one turn at a time, hands it on, and only then asks for the next one,
+	 * so a full next stage holds up this lane, and this lane's full buffer holds up the stage before it.
+	 */
+	private static final class StageLane implements Flow.Subscriber<Turn>
+	{
+		private final UnaryOperator<Turn> work;
+		private final Consumer<Turn> handOn;
+		private final CompletableFuture<Void> done;
+		private Flow.Subscription subscription;
+
+		/**
+		 * Creates a lane.
+		 *
+		 * @param work		 the work done on each turn
+		 * @param handOn	 hands each turn on to the next stage, waiting while it is full
+		 * @version 2026.10.18
+		 */
+		private StageLane(UnaryOperator<Turn> work, Consumer<Turn> handOn)
+		{
+			this.work = work;
+			this.handOn = handOn;
+			done = new CompletableFuture<Void>();
+		}
+
+		public void onSubscribe(Flow.Subscription subscription)
+		{
+			this.subscription = subscription;
+			subscription.request(1);
+		}
+
+		public void onNext(Turn turn)
+		{
+			// A turn that fails is still handed on, so the lane keeps going and the turn's subscriber learns of the failure
+			try
+			{
+				turn = work.apply(turn);
+			}
+			catch(RuntimeException e)
+			{
+				turn.error = e;
+			}
+
+			handOn.accept(turn);
+			subscription.request(1);
+		}
+
+		public void onError(Throwable error)
+		{
+			done.completeExceptionally(error);
+		}
+
+		public void onComplete()
+		{
+			done.complete(null);
+		}
+	}
+}
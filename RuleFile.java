@@ -0,0 +1,277 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Reads keyword rules from a text file, and watches the file for changes.
+ * Each line that isn't blank or a comment starting with '#' holds one rule, from the highest to the lowest priority:
+ *
+ * <pre>
+ * id: any hi, hello, hey =&gt; Hello there.
+ * id: all? favorite, color =&gt; I'm not sure.
+ * id: any remember =&gt; @remember
+ * </pre>
+ *
+ * <code>any</code> rules apply when a statement contains one of the keywords, and <code>all</code> rules when it contains every one.
+ * A '?' after either restricts the rule to questions, and a reply starting with '@' names an action to run instead.
+ * <p>
+ * A rule file can also be compiled ahead of time into a binary snapshot of its <code>RuleTable</code>, with
+ * <code>java RuleFile rules.txt rules.snapshot</code>, which a process reads at startup instead of parsing and compiling the file.
+ *
+ * @author	Thanasi Bakis
+ */
+public class RuleFile
+{
+	private static final long SETTLE_MILLIS = 200;
+	private static final int SNAPSHOT_MAGIC = 0x4D475253, SNAPSHOT_VERSION = 1;
+
+	/**
+	 * Nothing to create; every method is static.
+	 */
+	private RuleFile()
+	{
+	}
+
+	/**
+	 * Compiles a rule file into a snapshot.
+	 *
+	 * @param args			 the rule file, followed by the snapshot file to write
+	 * @throws IOException	 if a file can't be read or written
+	 * @version 2026.10.18
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		if(args.length != 2)
+		{
+			System.err.println("Usage: java RuleFile <rule file> <snapshot file>");
+			System.exit(2);
+		}
+
+		KeywordRule[] rules = read(Paths.get(args[0]));
+		writeSnapshot(Magpie.compileRules(rules), Paths.get(args[1]));
+		System.out.println("Compiled " + rules.length + " rules into " + args[1]);
+	}
+
+	/**
+	 * Reads the rules in a file.
+	 *
+	 * @param file			 the rule file
+	 * @return				 the rules, from the highest to the lowest priority
+	 * @throws IOException	 if the file can't be read
+	 * @throws IllegalArgumentException	 if a line is not a valid rule
+	 * @version 2026.10.18
+	 */
+	public static KeywordRule[] read(Path file) throws IOException
+	{
+		return parse(file.toString(), Files.readAllLines(file, StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Parses rules, one per line.
+	 *
+	 * @param source		 where the lines came from, for error messages
+	 * @param lines			 the lines
+	 * @return				 the rules, from the highest to the lowest priority
+	 * @throws IllegalArgumentException	 if a line is not a valid rule
+	 * @version 2026.10.18
+	 */
+	public static KeywordRule[] parse(String source, List<String> lines)
+	{
+		List<KeywordRule> rules = new ArrayList<KeywordRule>();
+		Set<String> ids = new HashSet<String>();
+
+		for(int i = 0; i < lines.size(); i++)
+		{
+			String line = lines.get(i).trim();
+
+			if(line.isEmpty() || line.startsWith("#"))
+			{
+				continue;
+			}
+
+			try
+			{
+				KeywordRule rule = parseRule(line);
+
+				if(!ids.add(rule.getId()))
+				{
+					throw new IllegalArgumentException("duplicate rule id \"" + rule.getId() + "\"");
+				}
+
+				rules.add(rule);
+			}
+			catch(IllegalArgumentException e)
+			{
+				throw new IllegalArgumentException(source + ":" + (i + 1) + ": " + e.getMessage(), e);
+			}
+		}
+
+		return rules.toArray(new KeywordRule[0]);
+	}
+
+	/**
+	 * Writes a compiled rule table to a snapshot file.
+	 *
+	 * @param table			 the rules, compiled by <code>Magpie.compileRules</code>
+	 * @param file			 the snapshot file
+	 * @throws IOException	 if the file can't be written
+	 * @version 2026.10.18
+	 */
+	public static void writeSnapshot(RuleTable table, Path file) throws IOException
+	{
+		try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file))))
+		{
+			out.writeInt(SNAPSHOT_MAGIC);
+			out.writeByte(SNAPSHOT_VERSION);
+			table.writeTo(out);
+		}
+	}
+
+	/**
+	 * Reads a compiled rule table from a snapshot file written by <code>writeSnapshot</code>.
+	 *
+	 * @param file			 the snapshot file
+	 * @return				 the rules, ready for <code>Magpie.setRules</code>
+	 * @throws IOException	 if the file can't be read, is not a snapshot, or was written by a build with another vocabulary
+	 * @version 2026.10.18
+	 */
+	public static RuleTable readSnapshot(Path file) throws IOException
+	{
+		try(DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file))))
+		{
+			if(in.readInt() != SNAPSHOT_MAGIC || in.readByte() != SNAPSHOT_VERSION)
+			{
+				throw new IOException(file + " is not a rule snapshot");
+			}
+
+			return RuleTable.readFrom(in);
+		}
+	}
+
+	/**
+	 * Watches a rule file on a background thread, reading it again whenever it changes and has then been left alone for a moment.
+	 * If the file can't be read or holds an invalid rule, the error is printed and the listener is not called.
+	 *
+	 * @param file			 the rule file
+	 * @param listener		 called on the background thread with the rules every time they are read
+	 * @return				 closing this stops watching the file
+	 * @throws IOException	 if the directory of the file can't be watched
+	 * @version 2026.10.18
+	 */
+	public static Closeable watch(Path file, Consumer<KeywordRule[]> listener) throws IOException
+	{
+		Path directory = file.toAbsolutePath().getParent();
+		Path name = file.getFileName();
+		WatchService watcher = directory.getFileSystem().newWatchService();
+		directory.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+		Thread.ofVirtual().name("rule-file-watcher").start(() ->
+		{
+			try
+			{
+				while(true)
+				{
+					boolean changed = false;
+
+					// An editor may empty the file before writing it, so it is only read once it has stopped changing
+					for(WatchKey key = watcher.take(); key != null; key = watcher.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS))
+					{
+						for(WatchEvent<?> event : key.pollEvents())
+						{
+							changed |= event.kind() == StandardWatchEventKinds.OVERFLOW || name.equals(event.context());
+						}
+
+						key.reset();
+					}
+
+					if(changed)
+					{
+						try
+						{
+							listener.accept(read(file));
+						}
+						catch(IOException | RuntimeException e)
+						{
+							System.err.println("Keeping the previous rules: " + e.getMessage());
+						}
+					}
+				}
+			}
+			catch(InterruptedException | ClosedWatchServiceException e)
+			{
+				// The watcher was closed
+			}
+		});
+
+		return watcher;
+	}
+
+	/**
+	 * Parses one rule.
+	 *
+	 * @param line		 the line holding the rule
+	 * @return			 the rule
+	 * @throws IllegalArgumentException	 if the line is not a valid rule
+	 * @version 2026.10.18
+	 */
+	private static KeywordRule parseRule(String line)
+	{
+		int colon = line.indexOf(':');
+		int arrow = line.indexOf("=>");
+
+		if(colon <= 0 || arrow < colon)
+		{
+			throw new IllegalArgumentException("expected \"id: any|all keywords => reply\"");
+		}
+
+		String id = line.substring(0, colon).trim();
+		String condition = line.substring(colon + 1, arrow).trim();
+		String reply = line.substring(arrow + 2).trim();
+		int space = condition.indexOf(' ');
+
+		if(space < 0 || reply.isEmpty())
+		{
+			throw new IllegalArgumentException("expected \"id: any|all keywords => reply\"");
+		}
+
+		String mode = condition.substring(0, space);
+		String[] keywords = condition.substring(space + 1).split(",");
+
+		for(int i = 0; i < keywords.length; i++)
+		{
+			keywords[i] = keywords[i].trim().toLowerCase(Locale.ROOT);
+
+			if(keywords[i].isEmpty())
+			{
+				throw new IllegalArgumentException("empty keyword");
+			}
+		}
+
+		KeywordRule rule;
+
+		switch(mode)
+		{
+			case "any":
+			case "any?":
+				rule = KeywordRule.anyOf(keywords);
+				break;
+			case "all":
+			case "all?":
+				rule = KeywordRule.allOf(keywords);
+				break;
+			default:
+				throw new IllegalArgumentException("expected any, all, any? or all?, not \"" + mode + "\"");
+		}
+
+		if(mode.endsWith("?"))
+		{
+			rule.ifQuestion();
+		}
+
+		rule.id(id);
+		return reply.startsWith("@") ? rule.action(reply.substring(1)) : rule.reply(reply);
+	}
+}
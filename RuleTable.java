@@ -0,0 +1,307 @@
+import java.io.*;
+import java.util.*;
+
+/**
+ * A list of keyword rules in priority order, compiled so that one pass of a <code>KeywordMatcher</code> finds the
+ * keywords of every rule. Only the rules that share a keyword with the statement are checked, in priority order,
+ * so adding rules costs almost nothing per statement.
+ * A compiled table can be written to a snapshot and read back without compiling it again.
+ *
+ * @author	Thanasi Bakis
+ */
+public final class RuleTable
+{
+	private final KeywordRule[] rules;
+	private final KeywordMatcher matcher;
+	private final int[][] ruleKeywords;
+	private final long[][] rulesByKeyword;
+
+	/**
+	 * Compiles a list of rules.
+	 *
+	 * @param rules				 the rules, from highest to lowest priority
+	 * @param extraKeywords		 keywords that should also be found by <code>match</code>, whether or not a rule uses them.
+	 * 							 They take the first keyword ids in order, so their ids don't change when the rules do.
+	 * @version 2026.10.18
+	 */
+	public RuleTable(KeywordRule[] rules, String... extraKeywords)
+	{
+		this.rules = rules.clone();
+		List<String> keywords = new ArrayList<String>(Arrays.asList(extraKeywords));
+
+		for(KeywordRule rule : this.rules)
+		{
+			keywords.addAll(Arrays.asList(rule.getKeywords()));
+		}
+
+		matcher = new KeywordMatcher(keywords.toArray(new String[0]));
+		ruleKeywords = new int[this.rules.length][];
+		rulesByKeyword = new long[matcher.keywordCount()][(this.rules.length + 63) / 64];
+
+		for(int r = 0; r < this.rules.length; r++)
+		{
+			String[] words = this.rules[r].getKeywords();
+			ruleKeywords[r] = new int[words.length];
+
+			for(int k = 0; k < words.length; k++)
+			{
+				int id = matcher.keywordId(words[k]);
+				ruleKeywords[r][k] = id;
+				rulesByKeyword[id][r / 64] |= 1L << (r % 64);
+			}
+		}
+	}
+
+	/**
+	 * Creates a table from the parts of one that was compiled before.
+	 *
+	 * @param rules				 the rules, from highest to lowest priority
+	 * @param matcher			 the automaton that finds the keywords of the table
+	 * @param ruleKeywords		 the keyword ids of each rule
+	 * @param rulesByKeyword	 the rules that use each keyword, as bitsets
+	 * @version 2026.10.18
+	 */
+	private RuleTable(KeywordRule[] rules, KeywordMatcher matcher, int[][] ruleKeywords, long[][] rulesByKeyword)
+	{
+		this.rules = rules;
+		this.matcher = matcher;
+		this.ruleKeywords = ruleKeywords;
+		this.rulesByKeyword = rulesByKeyword;
+	}
+
+	/**
+	 * Writes this compiled table, so <code>readFrom</code> can load it without compiling the rules again.
+	 *
+	 * @param out			 where to write the table
+	 * @throws IOException	 if the table can't be written
+	 * @version 2026.10.18
+	 */
+	public void writeTo(DataOutput out) throws IOException
+	{
+		out.writeInt(rules.length);
+
+		for(int r = 0; r < rules.length; r++)
+		{
+			out.writeUTF(rules[r].getId());
+			out.writeBoolean(rules[r].matchesAll());
+			out.writeBoolean(rules[r].isQuestionOnly());
+			writeOptionalString(out, rules[r].getReply());
+			writeOptionalString(out, rules[r].getAction());
+			out.writeInt(rules[r].getKeywords().length);
+
+			for(String keyword : rules[r].getKeywords())
+			{
+				out.writeUTF(keyword);
+			}
+
+			KeywordMatcher.writeInts(out, ruleKeywords[r]);
+		}
+
+		matcher.writeTo(out);
+		out.writeInt(rulesByKeyword.length);
+
+		for(long[] rulesOfKeyword : rulesByKeyword)
+		{
+			for(long bits : rulesOfKeyword)
+			{
+				out.writeLong(bits);
+			}
+		}
+	}
+
+	/**
+	 * Reads a table written by <code>writeTo</code>.
+	 *
+	 * @param in			 where to read the table
+	 * @return				 the table
+	 * @throws IOException	 if the table can't be read, or its keywords were compiled with another vocabulary
+	 * @version 2026.10.18
+	 */
+	public static RuleTable readFrom(DataInput in) throws IOException
+	{
+		KeywordRule[] rules = new KeywordRule[in.readInt()];
+		int[][] ruleKeywords = new int[rules.length][];
+
+		for(int r = 0; r < rules.length; r++)
+		{
+			String id = in.readUTF();
+			boolean matchesAll = in.readBoolean(), questionOnly = in.readBoolean();
+			String reply = readOptionalString(in), action = readOptionalString(in);
+			String[] keywords = new String[in.readInt()];
+
+			for(int k = 0; k < keywords.length; k++)
+			{
+				keywords[k] = in.readUTF();
+			}
+
+			rules[r] = (matchesAll ? KeywordRule.allOf(keywords) : KeywordRule.anyOf(keywords)).id(id).reply(reply).action(action);
+
+			if(questionOnly)
+			{
+				rules[r].ifQuestion();
+			}
+
+			ruleKeywords[r] = KeywordMatcher.readInts(in);
+		}
+
+		KeywordMatcher matcher = KeywordMatcher.readFrom(in);
+		long[][] rulesByKeyword = new long[in.readInt()][(rules.length + 63) / 64];
+
+		for(long[] rulesOfKeyword : rulesByKeyword)
+		{
+			for(int i = 0; i < rulesOfKeyword.length; i++)
+			{
+				rulesOfKeyword[i] = in.readLong();
+			}
+		}
+
+		return new RuleTable(rules, matcher, ruleKeywords, rulesByKeyword);
+	}
+
+	/**
+	 * Get the rules of this table.
+	 *
+	 * @return				 the rules, from highest to lowest priority
+	 * @version 2026.10.18
+	 */
+	public KeywordRule[] getRules()
+	{
+		return rules.clone();
+	}
+
+	/**
+	 * Finds every keyword of the table in a statement.
+	 *
+	 * @param statement		 the tokenized statement
+	 * @return				 the keywords found in the statement
+	 * @version 2026.10.18
+	 */
+	public KeywordMatcher.Matches match(TokenizedStatement statement)
+	{
+		return matcher.match(statement);
+	}
+
+	/**
+	 * Picks the highest priority rule that applies to a statement.
+	 *
+	 * @param statement		 the tokenized statement
+	 * @param matches		 the keywords found in the statement by <code>match</code>
+	 * @return				 the rule that applies, or <code>null</code> if none do
+	 * @version 2026.10.18
+	 */
+	public KeywordRule select(TokenizedStatement statement, KeywordMatcher.Matches matches)
+	{
+		int rule = selectIndex(statement, matches);
+		return rule < 0 ? null : rules[rule];
+	}
+
+	/**
+	 * Picks the highest priority rule that applies to a statement.
+	 *
+	 * @param statement		 the tokenized statement
+	 * @param matches		 the keywords found in the statement by <code>match</code>
+	 * @return				 the index of the rule that applies in the list the table was compiled from, or -1 if none do
+	 * @version 2026.10.18
+	 */
+	public int selectIndex(TokenizedStatement statement, KeywordMatcher.Matches matches)
+	{
+		long[] candidates = new long[(rules.length + 63) / 64];
+
+		for(int id = 0; id < rulesByKeyword.length; id++)
+		{
+			if(matches.contains(id))
+			{
+				for(int i = 0; i < candidates.length; i++)
+				{
+					candidates[i] |= rulesByKeyword[id][i];
+				}
+			}
+		}
+
+		for(int i = 0; i < candidates.length; i++)
+		{
+			long bits = candidates[i];
+
+			while(bits != 0)
+			{
+				int r = i * 64 + Long.numberOfTrailingZeros(bits);
+				bits &= bits - 1;
+
+				if(applies(r, statement, matches))
+				{
+					return r;
+				}
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Get the id of a keyword, which indexes into the matches returned by <code>match</code>.
+	 *
+	 * @param keyword		 a keyword of a rule, or one of the extra keywords
+	 * @return				 the id of the keyword, or -1 if it is not in this table
+	 * @version 2026.10.18
+	 */
+	public int keywordId(String keyword)
+	{
+		return matcher.keywordId(keyword);
+	}
+
+	/**
+	 * Writes a string that may be <code>null</code>.
+	 *
+	 * @param out			 where to write the string
+	 * @param value			 the string, or <code>null</code>
+	 * @throws IOException	 if the string can't be written
+	 * @version 2026.10.18
+	 */
+	private static void writeOptionalString(DataOutput out, String value) throws IOException
+	{
+		out.writeBoolean(value != null);
+
+		if(value != null)
+		{
+			out.writeUTF(value);
+		}
+	}
+
+	/**
+	 * Reads a string written by <code>writeOptionalString</code>.
+	 *
+	 * @param in			 where to read the string
+	 * @return				 the string, or <code>null</code>
+	 * @throws IOException	 if the string can't be read
+	 * @version 2026.10.18
+	 */
+	private static String readOptionalString(DataInput in) throws IOException
+	{
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
+	/**
+	 * Determines whether a rule applies to a statement, given that it shares at least one keyword with it.
+	 *
+	 * @param rule			 the index of the rule
+	 * @param statement		 the tokenized statement
+	 * @param matches		 the keywords found in the statement
+	 * @return				 whether the rule applies
+	 * @version 2026.10.18
+	 */
+	private boolean applies(int rule, TokenizedStatement statement, KeywordMatcher.Matches matches)
+	{
+		if(rules[rule].matchesAll())
+		{
+			for(int id : ruleKeywords[rule])
+			{
+				if(!matches.contains(id))
+				{
+					return false;
+				}
+			}
+		}
+
+		return !rules[rule].isQuestionOnly() || Grammar.isQuestion(statement);
+	}
+}
@@ -0,0 +1,538 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.*;
+
+/**
+ * Where a <code>SessionManager</code> keeps the sessions it has passivated, as the state written by <code>Magpie.writeState</code>.
+ * Every state is compressed with raw Deflate before it is stored, unless that would make it longer, so an idle session costs
+ * a few dozen bytes in memory or on disk instead of its <code>Magpie</code> and memory on the heap.
+ * A state is read when its session is rehydrated, and deleted once the session is resident again.
+ * The ids in the archive are also kept in memory, so telling whether a new id has been passivated never touches the disk.
+ *
+ * @author	Thanasi Bakis
+ */
+public abstract class SessionArchive
+{
+	// The first byte of every stored state, telling whether the rest is deflated
+	private static final byte STORED = 0, DEFLATED = 1;
+
+	/**
+	 * Creates an archive that keeps the compressed states on the heap, one byte array per session.
+	 *
+	 * @return			 the archive
+	 * @version 2026.10.18
+	 */
+	public static SessionArchive inMemory()
+	{
+		return new InMemory();
+	}
+
+	/**
+	 * Creates an archive that keeps the compressed states in a directory, one file per session.
+	 * States already in the directory, such as those of an earlier run, are rehydrated like any other.
+	 *
+	 * @param directory		 the directory, which is created if it does not exist
+	 * @return				 the archive
+	 * @throws IOException	 if the directory can't be created or listed
+	 * @version 2026.10.18
+	 */
+	public static SessionArchive onDisk(Path directory) throws IOException
+	{
+		return new OnDisk(directory);
+	}
+
+	/**
+	 * Stores the state of a session, replacing any state stored for the same id.
+	 *
+	 * @param id			 the id of the session
+	 * @param state			 the state of the session's <code>Magpie</code>
+	 * @throws IOException	 if the state can't be stored
+	 * @version 2026.10.18
+	 */
+	public void put(String id, byte[] state) throws IOException
+	{
+		store(id, compress(state));
+	}
+
+	/**
+	 * Reads the state of a session, leaving it in the archive until it is deleted.
+	 *
+	 * @param id			 the id of the session
+	 * @return				 the state of the session's <code>Magpie</code>, or <code>null</code> if none is stored
+	 * @throws IOException	 if the state can't be read or is damaged
+	 * @version 2026.10.18
+	 */
+	public byte[] get(String id) throws IOException
+	{
+		byte[] stored = contains(id) ? load(id) : null;
+		return stored == null ? null : decompress(stored);
+	}
+
+	/**
+	 * Determines whether the state of a session is stored, without reading it.
+	 *
+	 * @param id		 the id of the session
+	 * @return			 whether the archive holds the session
+	 * @version 2026.10.18
+	 */
+	public abstract boolean contains(String id);
+
+	/**
+	 * Deletes the state of a session.
+	 *
+	 * @param id			 the id of the session
+	 * @return				 whether a state was stored
+	 * @throws IOException	 if the state can't be deleted
+	 * @version 2026.10.18
+	 */
+	public abstract boolean delete(String id) throws IOException;
+
+	/**
+	 * Lists the ids of the sessions in the archive.
+	 *
+	 * @return			 the ids, in no particular order
+	 * @version 2026.10.18
+	 */
+	public abstract List<String> ids();
+
+	/**
+	 * Get the number of sessions in the archive.
+	 *
+	 * @return			 the number of sessions
+	 * @version 2026.10.18
+	 */
+	public abstract int size();
+
+	/**
+	 * Stores a compressed state.
+	 *
+	 * @param id			 the id of the session
+	 * @param stored		 the compressed state
+	 * @throws IOException	 if the state can't be stored
+	 * @version 2026.10.18
+	 */
+	protected abstract void store(String id, byte[] stored) throws IOException;
+
+	/**
+	 * Reads a compressed state.
+	 *
+	 * @param id			 the id of the session
+	 * @return				 the compressed state, or <code>null</code> if none is stored
+	 * @throws IOException	 if the state can't be read
+	 * @version 2026.10.18
+	 */
+	protected abstract byte[] load(String id) throws IOException;
+
+	/**
+	 * Compresses a state, or marks it as stored as it is when compressing would not make it shorter.
+	 * Each call has its own compressor, so sessions are compressed in parallel.
+	 *
+	 * @param state		 the state
+	 * @return			 the flag byte followed by the deflated or plain state
+	 * @version 2026.10.18
+	 */
+	private static byte[] compress(byte[] state)
+	{
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream(state.length / 2 + 16);
+		byte[] chunk = new byte[512];
+		Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+		buffer.write(DEFLATED);
+
+		try
+		{
+			deflater.setInput(state);
+			deflater.finish();
+
+			while(!deflater.finished())
+			{
+				buffer.write(chunk, 0, deflater.deflate(chunk));
+			}
+		}
+		finally
+		{
+			deflater.end();
+		}
+
+		if(buffer.size() < state.length + 1)
+		{
+			return buffer.toByteArray();
+		}
+
+		byte[] stored = new byte[state.length + 1];
+		stored[0] = STORED;
+		System.arraycopy(state, 0, stored, 1, state.length);
+		return stored;
+	}
+
+	/**
+	 * Undoes <code>compress</code>.
+	 *
+	 * @param stored		 the flag byte followed by the deflated or plain state
+	 * @return				 the state
+	 * @throws IOException	 if the stored state is damaged
+	 * @version 2026.10.18
+	 */
+	private static byte[] decompress(byte[] stored) throws IOException
+	{
+		if(stored.length == 0 || (stored[0] != STORED && stored[0] != DEFLATED))
+		{
+			throw new IOException("Not a stored session state");
+		}
+
+		if(stored[0] == STORED)
+		{
+			return Arrays.copyOfRange(stored, 1, stored.length);
+		}
+
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream(stored.length * 3);
+		byte[] chunk = new byte[512];
+		Inflater inflater = new Inflater(true);
+		inflater.setInput(stored, 1, stored.length - 1);
+
+		try
+		{
+			while(!inflater.finished())
+			{
+				int inflated = inflater.inflate(chunk);
+
+				if(inflated == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+				{
+					throw new IOException("Truncated session state");
+				}
+
+				buffer.write(chunk, 0, inflated);
+			}
+		}
+		catch(DataFormatException e)
+		{
+			throw new IOException("Damaged session state", e);
+		}
+		finally
+		{
+			inflater.end();
+		}
+
+		return buffer.toByteArray();
+	}
+
+	/**
+	 * Keeps the compressed states on the heap.
+	 */
+	private static final class InMemory extends SessionArchive
+	{
+		private final ConcurrentHashMap<String, byte[]> states = new ConcurrentHashMap<String, byte[]>();
+
+		/**
+		 * Determines whether the state of a session is stored.
+		 *
+		 * @param id		 the id of the session
+		 * @return			 whether the archive holds the session
+		 * @version 2026.10.18
+		 */
+		public boolean contains(String id)
+		{
+			return states.containsKey(id);
+		}
+
+		/**
+		 * Deletes the state of a session.
+		 *
+		 * @param id			 the id of the session
+		 * @return				 whether a state was stored
+		 * @version 2026.10.18
+		 */
+		public boolean delete(String id)
+		{
+			return states.remove(id) != null;
+		}
+
+		/**
+		 * Lists the ids of the sessions in the archive.
+		 *
+		 * @return			 the ids, in no particular order
+		 * @version 2026.10.18
+		 */
+		public List<String> ids()
+		{
+			return new ArrayList<String>(states.keySet());
+		}
+
+		/**
+		 * Get the number of sessions in the archive.
+		 *
+		 * @return			 the number of sessions
+		 * @version 2026.10.18
+		 */
+		public int size()
+		{
+			return states.size();
+		}
+
+		/**
+		 * Stores a compressed state.
+		 *
+		 * @param id			 the id of the session
+		 * @param stored		 the compressed state
+		 * @version 2026.10.18
+		 */
+		protected void store(String id, byte[] stored)
+		{
+			states.put(id, stored);
+		}
+
+		/**
+		 * Reads a compressed state.
+		 *
+		 * @param id			 the id of the session
+		 * @return				 the compressed state, or <code>null</code> if none is stored
+		 * @version 2026.10.18
+		 */
+		protected byte[] load(String id)
+		{
+			return states.get(id);
+		}
+	}
+
+	/**
+	 * Keeps the compressed states in a directory, one file per session. A file is named after the Base64 of its session's id,
+	 * unless that name would be too long for a file system, in which case it is named after the SHA-256 of the id and starts with the id.
+	 * Every file is written to a temporary file, forced to the disk and then moved into place, so a crash leaves either the old state or the new one.
+	 */
+	private static final class OnDisk extends SessionArchive
+	{
+		private static final String SUFFIX = ".session", TEMPORARY_SUFFIX = ".tmp", HASHED_PREFIX = "~";
+
+		// Leaves room for the suffixes within the 255 bytes most file systems allow in a name
+		private static final int MAX_ENCODED_LENGTH = 240;
+
+		private final Path directory;
+		private final Set<String> ids;
+
+		/**
+		 * Creates the archive, reading the ids of the states already in the directory.
+		 *
+		 * @param directory		 the directory, which is created if it does not exist
+		 * @throws IOException	 if the directory can't be created or listed
+		 * @version 2026.10.18
+		 */
+		private OnDisk(Path directory) throws IOException
+		{
+			this.directory = Files.createDirectories(directory);
+			ids = ConcurrentHashMap.newKeySet();
+
+			try(DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX))
+			{
+				for(Path file : files)
+				{
+					String name = file.getFileName().toString();
+					String encoded = name.substring(0, name.length() - SUFFIX.length());
+
+					if(encoded.startsWith(HASHED_PREFIX))
+					{
+						try(DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file))))
+						{
+							ids.add(in.readUTF());
+						}
+					}
+					else
+					{
+						ids.add(new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8));
+					}
+				}
+			}
+		}
+
+		/**
+		 * Determines whether the state of a session is stored, from the ids kept in memory.
+		 *
+		 * @param id		 the id of the session
+		 * @return			 whether the archive holds the session
+		 * @version 2026.10.18
+		 */
+		public boolean contains(String id)
+		{
+			return ids.contains(id);
+		}
+
+		/**
+		 * Deletes the state of a session, deleting its file. An id that isn't in the archive never touches the disk.
+		 *
+		 * @param id			 the id of the session
+		 * @return				 whether a state was stored
+		 * @throws IOException	 if the file can't be deleted
+		 * @version 2026.10.18
+		 */
+		public boolean delete(String id) throws IOException
+		{
+			if(!ids.contains(id))
+			{
+				return false;
+			}
+
+			Files.deleteIfExists(file(id));
+			ids.remove(id);
+			return true;
+		}
+
+		/**
+		 * Lists the ids of the sessions in the archive.
+		 *
+		 * @return			 the ids, in no particular order
+		 * @version 2026.10.18
+		 */
+		public List<String> ids()
+		{
+			return new ArrayList<String>(ids);
+		}
+
+		/**
+		 * Get the number of sessions in the archive.
+		 *
+		 * @return			 the number of sessions
+		 * @version 2026.10.18
+		 */
+		public int size()
+		{
+			return ids.size();
+		}
+
+		/**
+		 * Stores a compressed state, writing it to a temporary file first so that a crash never leaves half of one.
+		 *
+		 * @param id			 the id of the session
+		 * @param stored		 the compressed state
+		 * @throws IOException	 if the file can't be written
+		 * @version 2026.10.18
+		 */
+		protected void store(String id, byte[] stored) throws IOException
+		{
+			Path file = file(id);
+			Path temporary = file.resolveSibling(file.getFileName() + TEMPORARY_SUFFIX);
+			ByteArrayOutputStream contents = new ByteArrayOutputStream(stored.length + 64);
+
+			if(isHashed(file))
+			{
+				new DataOutputStream(contents).writeUTF(id);
+			}
+
+			contents.write(stored);
+
+			try(FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+			{
+				ByteBuffer buffer = ByteBuffer.wrap(contents.toByteArray());
+
+				while(buffer.hasRemaining())
+				{
+					channel.write(buffer);
+				}
+
+				channel.force(true);
+			}
+
+			Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			forceDirectory();
+			ids.add(id);
+		}
+
+		/**
+		 * Reads a compressed state from its file.
+		 *
+		 * @param id			 the id of the session
+		 * @return				 the compressed state, or <code>null</code> if none is stored
+		 * @throws IOException	 if the file can't be read
+		 * @version 2026.10.18
+		 */
+		protected byte[] load(String id) throws IOException
+		{
+			Path file = file(id);
+			byte[] contents;
+
+			try
+			{
+				contents = Files.readAllBytes(file);
+			}
+			catch(NoSuchFileException e)
+			{
+				return null;
+			}
+
+			if(!isHashed(file))
+			{
+				return contents;
+			}
+
+			// A hashed name could in principle belong to another id, so the id the file starts with has to match
+			DataInputStream in = new DataInputStream(new ByteArrayInputStream(contents));
+
+			if(!in.readUTF().equals(id))
+			{
+				return null;
+			}
+
+			return in.readAllBytes();
+		}
+
+		/**
+		 * Forces the directory to the disk, so that a file moved into it survives a crash. Not every platform can open a directory.
+		 *
+		 * @version 2026.10.18
+		 */
+		private void forceDirectory()
+		{
+			try(FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ))
+			{
+				channel.force(true);
+			}
+			catch(IOException e)
+			{
+				// The move itself is still atomic
+			}
+		}
+
+		/**
+		 * Get the file of a session.
+		 *
+		 * @param id		 the id of the session
+		 * @return			 the file, whose name is valid for any session id
+		 * @version 2026.10.18
+		 */
+		private Path file(String id)
+		{
+			byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+			String encoded = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+			if(encoded.length() > MAX_ENCODED_LENGTH)
+			{
+				try
+				{
+					encoded = HASHED_PREFIX + HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+				}
+				catch(NoSuchAlgorithmException e)
+				{
+					// Every Java platform has SHA-256
+					throw new IllegalStateException(e);
+				}
+			}
+
+			return directory.resolve(encoded + SUFFIX);
+		}
+
+		/**
+		 * Determines whether a file is named after the hash of its id.
+		 *
+		 * @param file		 the file of a session
+		 * @return			 whether the file starts with the id
+		 * @version 2026.10.18
+		 */
+		private static boolean isHashed(Path file)
+		{
+			return file.getFileName().toString().startsWith(HASHED_PREFIX);
+		}
+	}
+}
@@ -0,0 +1,856 @@
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Hosts many independent <code>Magpie</code> conversations in one program.
+ * Sessions are created, looked up and expired by id, and every turn runs on its own virtual thread.
+ * Turns of the same session run one at a time, in the order they were submitted, while turns of different sessions run in parallel.
+ * With a <code>SessionArchive</code>, idle sessions are passivated into the archive instead of expiring, and rehydrated on their next turn,
+ * so the heap only holds the sessions that are in use.
+ *
+ * @author	Thanasi Bakis
+ */
+public class SessionManager implements AutoCloseable
+{
+	private final ConcurrentHashMap<String, Session> sessions;
+	private final ConcurrentHashMap<String, CompletableFuture<Session>> rehydrating;
+	private final ExecutorService executor;
+	private final ScheduledExecutorService reaper;
+	private final long idleTimeoutNanos;
+	private final ResponseCache cache;
+	private final OffHeapMemory offHeap;
+	private final SessionArchive archive;
+
+	/**
+	 * Creates a session manager without starting its reaper.
+	 *
+	 * @param idleTimeoutMillis	 how long a session may go without a turn before it is passivated, or expires if there is no archive,
+	 * 							 or 0 to keep every session resident
+	 * @param cache				 the cache shared by every session, or <code>null</code> for no cache
+	 * @param offHeap			 where every session keeps what it remembers, or <code>null</code> to keep it on the heap
+	 * @param archive			 where idle sessions are passivated, or <code>null</code> to expire them instead
+	 * @version 2026.10.18
+	 */
+	private SessionManager(long idleTimeoutMillis, ResponseCache cache, OffHeapMemory offHeap, SessionArchive archive)
+	{
+		this.cache = cache;
+		this.offHeap = offHeap;
+		this.archive = archive;
+		sessions = new ConcurrentHashMap<String, Session>();
+		rehydrating = new ConcurrentHashMap<String, CompletableFuture<Session>>();
+		executor = Executors.newVirtualThreadPerTaskExecutor();
+		idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+		reaper = idleTimeoutMillis > 0 ? Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("session-reaper").factory()) : null;
+	}
+
+	/**
+	 * Creates a session manager whose sessions never expire on their own.
+	 *
+	 * @version 2026.10.18
+	 */
+	public SessionManager()
+	{
+		this(0, null, null, null);
+	}
+
+	/**
+	 * Starts a session manager that passivates sessions after they have been idle for a while, whose sessions share a cache
+	 * of the responses that depend on nothing but the statement, and keep what they remember off the heap.
+	 *
+	 * @param idleTimeoutMillis	 how long a session may go without a turn before it is passivated, or expires if there is no archive,
+	 * 							 or 0 to keep every session resident
+	 * @param cache				 the cache shared by every session, or <code>null</code> for no cache
+	 * @param offHeap			 where every session keeps what it remembers, or <code>null</code> to keep it on the heap
+	 * @param archive			 where idle sessions are passivated, or <code>null</code> to expire them instead
+	 * @return					 the session manager
+	 * @version 2026.10.18
+	 */
+	public static SessionManager start(long idleTimeoutMillis, ResponseCache cache, OffHeapMemory offHeap, SessionArchive archive)
+	{
+		SessionManager manager = new SessionManager(idleTimeoutMillis, cache, offHeap, archive);
+
+		// The reaper is only scheduled once the manager is fully built, since it runs on its own thread
+		if(manager.reaper != null)
+		{
+			long period = Math.max(idleTimeoutMillis / 2, 1);
+			manager.reaper.scheduleAtFixedRate(manager::expireIdleSessions, period, period, TimeUnit.MILLISECONDS);
+		}
+
+		return manager;
+	}
+
+	/**
+	 * Starts a session manager that expires sessions after they have been idle for a while, whose sessions share a cache
+	 * of the responses that depend on nothing but the statement, and keep what they remember off the heap.
+	 *
+	 * @param idleTimeoutMillis	 how long a session may go without a turn before it expires, or 0 to never expire sessions
+	 * @param cache				 the cache shared by every session, or <code>null</code> for no cache
+	 * @param offHeap			 where every session keeps what it remembers, or <code>null</code> to keep it on the heap
+	 * @return					 the session manager
+	 * @version 2026.10.18
+	 */
+	public static SessionManager start(long idleTimeoutMillis, ResponseCache cache, OffHeapMemory offHeap)
+	{
+		return start(idleTimeoutMillis, cache, offHeap, null);
+	}
+
+	/**
+	 * Starts a session manager that expires sessions after they have been idle for a while,
+	 * and whose sessions share a cache of the responses that depend on nothing but the statement.
+	 *
+	 * @param idleTimeoutMillis	 how long a session may go without a turn before it expires, or 0 to never expire sessions
+	 * @param cache				 the cache shared by every session, or <code>null</code> for no cache
+	 * @return					 the session manager
+	 * @version 2026.10.18
+	 */
+	public static SessionManager start(long idleTimeoutMillis, ResponseCache cache)
+	{
+		return start(idleTimeoutMillis, cache, null);
+	}
+
+	/**
+	 * Starts a session manager that expires sessions after they have been idle for a while.
+	 *
+	 * @param idleTimeoutMillis	 how long a session may go without a turn before it expires, or 0 to never expire sessions
+	 * @return					 the session manager
+	 * @version 2026.10.18
+	 */
+	public static SessionManager start(long idleTimeoutMillis)
+	{
+		return start(idleTimeoutMillis, null);
+	}
+
+	/**
+	 * Gets a session, rehydrating it if it was passivated, or creating it if it does not exist yet.
+	 * Whether an id was passivated is known without reading the archive, so only a passivated session waits for its state to be read.
+	 *
+	 * @param id		 the id of the session
+	 * @return			 the session with that id
+	 * @throws UncheckedIOException	 if the session was passivated and can't be rehydrated
+	 * @version 2026.10.18
+	 */
+	public Session create(String id)
+	{
+		Session session = sessions.get(id);
+
+		if(session != null)
+		{
+			return session;
+		}
+
+		// A passivating session leaves the map only once it is in the archive, and a rehydrated one leaves the archive once it is in the map
+		if(archive != null && archive.contains(id))
+		{
+			return rehydrate(id);
+		}
+
+		return sessions.computeIfAbsent(id, Session::new);
+	}
+
+	/**
+	 * Looks up a resident session.
+	 *
+	 * @param id		 the id of the session
+	 * @return			 the session with that id, or <code>null</code> if there is none or it is passivated
+	 * @version 2026.10.18
+	 */
+	public Session get(String id)
+	{
+		return sessions.get(id);
+	}
+
+	/**
+	 * Gives a response to a statement in a session, creating the session if needed.
+	 * The turn runs on a virtual thread after every earlier turn of the session has finished.
+	 *
+	 * @param id			 the id of the session
+	 * @param statement		 the user statement
+	 * @return				 the response of the session's <code>Magpie</code>
+	 * @version 2026.10.18
+	 */
+	public CompletableFuture<String> respond(String id, String statement)
+	{
+		return respond(id, statement, null);
+	}
+
+	/**
+	 * Gives a response to a statement that may already have been analyzed, in a session, creating the session if needed.
+	 * The same analysis can be given to many sessions, so a statement that many sessions send is only analyzed once.
+	 *
+	 * @param id			 the id of the session
+	 * @param analysis		 the user statement and its analysis
+	 * @return				 the response of the session's <code>Magpie</code>
+	 * @version 2026.10.18
+	 */
+	public CompletableFuture<String> respond(String id, Magpie.Analysis analysis)
+	{
+		return respond(id, analysis.getStatement(), analysis);
+	}
+
+	/**
+	 * Gives a response to a statement in a session, creating the session if needed.
+	 *
+	 * @param id			 the id of the session
+	 * @param statement		 the user statement
+	 * @param analysis		 the analysis of the statement, or <code>null</code> to let the session's <code>Magpie</code> analyze it
+	 * @return				 the response of the session's <code>Magpie</code>
+	 * @version 2026.10.18
+	 */
+	private CompletableFuture<String> respond(String id, String statement, Magpie.Analysis analysis)
+	{
+		CompletableFuture<String> turn = null;
+
+		// A session that expires between being looked up and being given the turn is replaced by a new one,
+		// or by itself rehydrated once it is in the archive
+		while(turn == null)
+		{
+			Session session = create(id);
+			turn = session.tryRespond(statement, analysis);
+
+			if(turn == null)
+			{
+				session.awaitPassivation();
+			}
+		}
+
+		return turn;
+	}
+
+	/**
+	 * Ends a session and forgets everything in it.
+	 *
+	 * @param id		 the id of the session
+	 * @return			 whether there was a session with that id
+	 * @version 2026.10.18
+	 */
+	public boolean expire(String id)
+	{
+		Session session = sessions.remove(id);
+
+		if(session != null)
+		{
+			session.awaitPassivation();
+			session.expire();
+		}
+
+		return deleteArchived(id) || session != null;
+	}
+
+	/**
+	 * Takes a session out of this manager to hand it to another, once its turns in progress have finished.
+	 * The session accepts no more turns here; a turn for the same id afterwards starts a new session.
+	 *
+	 * @param id		 the id of the session
+	 * @return			 the state of the session's <code>Magpie</code>, as written by <code>Magpie.writeState</code>,
+	 * 					 or <code>null</code> if there was no session with that id
+	 * @version 2026.10.18
+	 */
+	public byte[] export(String id)
+	{
+		Session session = sessions.remove(id);
+		byte[] state = null;
+
+		if(session != null)
+		{
+			session.awaitPassivation();
+			state = session.export();
+		}
+
+		if(state == null)
+		{
+			state = readArchived(id);
+		}
+
+		deleteArchived(id);
+		return state;
+	}
+
+	/**
+	 * Adds a session handed over by another manager, replacing any session with the same id.
+	 *
+	 * @param id		 the id of the session
+	 * @param state		 the state of the session's <code>Magpie</code>, as returned by <code>export</code>
+	 * @throws IOException	 if the state is not a <code>Magpie</code>'s state
+	 * @version 2026.10.18
+	 */
+	public void importSession(String id, byte[] state) throws IOException
+	{
+		MemoryStore memory = newMemory();
+		Magpie magpie = Magpie.readState(new DataInputStream(new ByteArrayInputStream(state)), memory, cache);
+		Session replaced = sessions.put(id, new Session(id, memory, magpie));
+
+		if(replaced != null)
+		{
+			replaced.awaitPassivation();
+			replaced.expire();
+		}
+
+		deleteArchived(id);
+	}
+
+	/**
+	 * Lists the ids of the live sessions, resident or passivated.
+	 *
+	 * @return			 the ids, in no particular order
+	 * @version 2026.10.18
+	 */
+	public List<String> ids()
+	{
+		Set<String> ids = new HashSet<String>(sessions.keySet());
+
+		if(archive != null)
+		{
+			ids.addAll(archive.ids());
+		}
+
+		return new ArrayList<String>(ids);
+	}
+
+	/**
+	 * Passivates, or expires if there is no archive, every session that has been idle longer than the idle timeout.
+	 * Once the manager is closing, the sessions left are kept as they are.
+	 *
+	 * @return			 the number of sessions that were passivated or expired
+	 * @version 2026.10.18
+	 */
+	public int expireIdleSessions()
+	{
+		if(idleTimeoutNanos <= 0)
+		{
+			return 0;
+		}
+
+		long idleSince = System.nanoTime() - idleTimeoutNanos;
+		int expired = 0;
+
+		for(Session session : sessions.values())
+		{
+			if(reaper != null && reaper.isShutdown())
+			{
+				break;
+			}
+
+			if(archive != null)
+			{
+				expired += passivate(session, idleSince) ? 1 : 0;
+			}
+			else if(session.expireIfIdleSince(idleSince))
+			{
+				sessions.remove(session.getId(), session);
+				expired++;
+			}
+		}
+
+		return expired;
+	}
+
+	/**
+	 * Get the number of resident sessions, which does not count the passivated ones.
+	 *
+	 * @return			 the number of sessions
+	 * @version 2026.10.18
+	 */
+	public int size()
+	{
+		return sessions.size();
+	}
+
+	/**
+	 * Stops accepting turns and waits for the turns that were already submitted to finish.
+	 * The reaper is not interrupted, since that would close the file of a passivation in progress; it stops after that session.
+	 *
+	 * @version 2026.10.18
+	 */
+	public void close()
+	{
+		if(reaper != null)
+		{
+			reaper.close();
+		}
+
+		executor.close();
+	}
+
+	/**
+	 * Moves an idle session into the archive. The session stops taking turns, its state is compressed and stored without holding any lock,
+	 * and only then does it leave the map, so a turn for it either reaches it before it is passivated or waits and rehydrates it afterwards.
+	 * A session that can't be stored takes turns again, to be passivated later.
+	 *
+	 * @param session		 the session
+	 * @param idleSince		 a time from <code>System.nanoTime</code> that the session must have been idle since
+	 * @return				 whether the session was passivated
+	 * @version 2026.10.18
+	 */
+	private boolean passivate(Session session, long idleSince)
+	{
+		byte[] state;
+
+		try
+		{
+			state = session.beginPassivation(idleSince);
+		}
+		catch(IOException e)
+		{
+			System.err.println("Can't passivate session " + session.getId() + ": " + e.getMessage());
+			return false;
+		}
+
+		if(state == null)
+		{
+			return false;
+		}
+
+		try
+		{
+			archive.put(session.getId(), state);
+		}
+		catch(IOException e)
+		{
+			System.err.println("Can't passivate session " + session.getId() + ": " + e.getMessage());
+			session.endPassivation(false);
+			return false;
+		}
+
+		sessions.remove(session.getId(), session);
+		session.endPassivation(true);
+		return true;
+	}
+
+	/**
+	 * Rehydrates a passivated session. Turns that arrive for it meanwhile wait for the same rehydration instead of reading the archive again.
+	 * Its state is deleted from the archive only once the session is back in the map.
+	 *
+	 * @param id		 the id of the session
+	 * @return			 the session
+	 * @throws UncheckedIOException	 if the passivated state can't be read
+	 * @version 2026.10.18
+	 */
+	private Session rehydrate(String id)
+	{
+		CompletableFuture<Session> rehydration = new CompletableFuture<Session>();
+		CompletableFuture<Session> earlier = rehydrating.putIfAbsent(id, rehydration);
+
+		if(earlier != null)
+		{
+			try
+			{
+				return earlier.join();
+			}
+			catch(CompletionException e)
+			{
+				throw e.getCause() instanceof UncheckedIOException ? (UncheckedIOException) e.getCause() : e;
+			}
+		}
+
+		try
+		{
+			Session session = sessions.get(id);
+			byte[] state = session == null ? readArchived(id) : null;
+
+			if(session == null && state == null)
+			{
+				session = sessions.computeIfAbsent(id, Session::new);
+			}
+			else if(session == null)
+			{
+				MemoryStore memory = newMemory();
+				Magpie magpie = Magpie.readState(new DataInputStream(new ByteArrayInputStream(state)), memory, cache);
+				Session rehydrated = new Session(id, memory, magpie);
+				session = sessions.putIfAbsent(id, rehydrated);
+
+				if(session == null)
+				{
+					session = rehydrated;
+					deleteArchived(id);
+				}
+				else
+				{
+					rehydrated.expire();
+				}
+			}
+
+			rehydration.complete(session);
+			return session;
+		}
+		catch(IOException e)
+		{
+			UncheckedIOException failure = new UncheckedIOException(e);
+			rehydration.completeExceptionally(failure);
+			throw failure;
+		}
+		catch(RuntimeException e)
+		{
+			rehydration.completeExceptionally(e);
+			throw e;
+		}
+		finally
+		{
+			rehydrating.remove(id, rehydration);
+		}
+	}
+
+	/**
+	 * Reads the passivated state of a session, leaving it in the archive.
+	 *
+	 * @param id		 the id of the session
+	 * @return			 the state, or <code>null</code> if there is no archive or the session is not in it
+	 * @throws UncheckedIOException	 if the state can't be read
+	 * @version 2026.10.18
+	 */
+	private byte[] readArchived(String id)
+	{
+		if(archive == null)
+		{
+			return null;
+		}
+
+		try
+		{
+			return archive.get(id);
+		}
+		catch(IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Deletes the passivated state of a session from the archive.
+	 *
+	 * @param id		 the id of the session
+	 * @return			 whether the session was in the archive
+	 * @throws UncheckedIOException	 if the state can't be deleted
+	 * @version 2026.10.18
+	 */
+	private boolean deleteArchived(String id)
+	{
+		if(archive == null)
+		{
+			return false;
+		}
+
+		try
+		{
+			return archive.delete(id);
+		}
+		catch(IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Creates an empty memory for a session.
+	 *
+	 * @return			 the memory, off the heap if this manager was given an <code>OffHeapMemory</code>
+	 * @version 2026.10.18
+	 */
+	private MemoryStore newMemory()
+	{
+		return offHeap == null ? new MemoryStore() : MemoryStore.offHeap(offHeap);
+	}
+
+	/**
+	 * One conversation with its own <code>Magpie</code>, isolated from <code>stdin</code> and from every other session.
+	 */
+	public final class Session
+	{
+		private final String id;
+		private final MemoryStore memory;
+		private final Magpie magpie;
+		private CompletableFuture<String> lastTurn;
+		private volatile long lastActive;
+		private int pendingTurns;
+		private boolean expired;
+
+		// Completed once a passivation that has begun has stored the session or failed to
+		private CompletableFuture<Void> passivation;
+
+		/**
+		 * Creates a session with a new <code>Magpie</code>.
+		 *
+		 * @param id		 the id of the session
+		 * @version 2026.10.18
+		 */
+		private Session(String id)
+		{
+			this(id, newMemory());
+		}
+
+		/**
+		 * Creates a session with a new <code>Magpie</code> that remembers in a memory.
+		 *
+		 * @param id		 the id of the session
+		 * @param memory	 the memory of the session
+		 * @version 2026.10.18
+		 */
+		private Session(String id, MemoryStore memory)
+		{
+			this(id, memory, new Magpie(memory, cache));
+		}
+
+		/**
+		 * Creates a session that carries on a conversation.
+		 *
+		 * @param id		 the id of the session
+		 * @param memory	 the memory of the <code>Magpie</code>
+		 * @param magpie	 the <code>Magpie</code> of the conversation
+		 * @version 2026.10.18
+		 */
+		private Session(String id, MemoryStore memory, Magpie magpie)
+		{
+			this.id = id;
+			this.memory = memory;
+			this.magpie = magpie;
+			lastTurn = CompletableFuture.completedFuture(null);
+			lastActive = System.nanoTime();
+		}
+
+		/**
+		 * Gives a response to a statement once every earlier turn of this session has finished.
+		 *
+		 * @param statement		 the user statement
+		 * @return				 the response of this session's <code>Magpie</code>
+		 * @throws IllegalStateException	 if the session has expired
+		 * @version 2026.10.18
+		 */
+		public CompletableFuture<String> respond(String statement)
+		{
+			CompletableFuture<String> turn = tryRespond(statement, null);
+
+			if(turn == null)
+			{
+				throw new IllegalStateException("Session " + id + " has expired");
+			}
+
+			return turn;
+		}
+
+		/**
+		 * Gives a response to a statement once every earlier turn of this session has finished, unless the session has expired.
+		 *
+		 * @param statement		 the user statement
+		 * @param analysis		 the analysis of the statement, or <code>null</code> to let the <code>Magpie</code> analyze it
+		 * @return				 the response of this session's <code>Magpie</code>, or <code>null</code> if the session has expired
+		 * @version 2026.10.18
+		 */
+		private synchronized CompletableFuture<String> tryRespond(String statement, Magpie.Analysis analysis)
+		{
+			if(expired)
+			{
+				return null;
+			}
+
+			pendingTurns++;
+			lastActive = System.nanoTime();
+			lastTurn = lastTurn.handleAsync((previous, error) -> takeTurn(statement, analysis), executor);
+
+			return lastTurn;
+		}
+
+		/**
+		 * Get the id of this session.
+		 *
+		 * @return			 the id
+		 * @version 2026.10.18
+		 */
+		public String getId()
+		{
+			return id;
+		}
+
+		/**
+		 * Runs one turn on the calling thread.
+		 *
+		 * @param statement		 the user statement
+		 * @param analysis		 the analysis of the statement, or <code>null</code> to let the <code>Magpie</code> analyze it
+		 * @return				 the response
+		 * @version 2026.10.18
+		 */
+		private String takeTurn(String statement, Magpie.Analysis analysis)
+		{
+			try
+			{
+				return analysis == null ? magpie.getResponse(statement) : magpie.getResponse(analysis);
+			}
+			finally
+			{
+				synchronized(this)
+				{
+					pendingTurns--;
+					lastActive = System.nanoTime();
+				}
+			}
+		}
+
+		/**
+		 * Expires this session, so that it accepts no more turns.
+		 *
+		 * @version 2026.10.18
+		 */
+		private synchronized void expire()
+		{
+			if(!expired)
+			{
+				expired = true;
+				closeMemoryAfterLastTurn();
+			}
+		}
+
+		/**
+		 * Closes the memory of this expired session once its last turn has finished, so that memory kept off the heap
+		 * is freed right away instead of when the session is garbage collected.
+		 *
+		 * @version 2026.10.18
+		 */
+		private void closeMemoryAfterLastTurn()
+		{
+			lastTurn.whenComplete((response, error) ->
+			{
+				try
+				{
+					memory.close();
+				}
+				catch(IOException e)
+				{
+					// A memory without a log has nothing to flush
+				}
+			});
+		}
+
+		/**
+		 * Expires this session and writes the state of its <code>Magpie</code> once its last turn has finished.
+		 *
+		 * @return			 the state, as written by <code>Magpie.writeState</code>, or <code>null</code> if the session had already expired
+		 * @version 2026.10.18
+		 */
+		private byte[] export()
+		{
+			CompletableFuture<String> last;
+
+			synchronized(this)
+			{
+				if(expired)
+				{
+					return null;
+				}
+
+				expired = true;
+				last = lastTurn;
+			}
+
+			// A failed turn still leaves the conversation in a state that can be carried on
+			last.exceptionally(error -> null).join();
+
+			try
+			{
+				return state();
+			}
+			catch(IOException e)
+			{
+				throw new UncheckedIOException(e);
+			}
+			finally
+			{
+				closeMemoryAfterLastTurn();
+			}
+		}
+
+		/**
+		 * Stops this session from taking turns and writes its state, if it has no turns in progress and has not had one since a point in time.
+		 * The passivation has to be ended with <code>endPassivation</code>.
+		 *
+		 * @param time			 a time from <code>System.nanoTime</code>
+		 * @return				 the state, as written by <code>Magpie.writeState</code>, or <code>null</code> if the session is not idle
+		 * @throws IOException	 if the state can't be written, in which case the session is left as it was
+		 * @version 2026.10.18
+		 */
+		private synchronized byte[] beginPassivation(long time) throws IOException
+		{
+			if(expired || pendingTurns != 0 || lastActive - time >= 0)
+			{
+				return null;
+			}
+
+			// With no turn pending, the last turn has finished with the Magpie, and no new one can start while this holds the lock
+			byte[] state = state();
+			expired = true;
+			passivation = new CompletableFuture<Void>();
+			return state;
+		}
+
+		/**
+		 * Ends a passivation begun by <code>beginPassivation</code>, and lets the turns waiting for it go on.
+		 *
+		 * @param stored	 whether the state was stored in the archive; if not, the session takes turns again
+		 * @version 2026.10.18
+		 */
+		private synchronized void endPassivation(boolean stored)
+		{
+			if(stored)
+			{
+				closeMemoryAfterLastTurn();
+			}
+			else
+			{
+				expired = false;
+			}
+
+			passivation.complete(null);
+			passivation = null;
+		}
+
+		/**
+		 * Waits for a passivation of this session that has begun to end, if there is one.
+		 *
+		 * @version 2026.10.18
+		 */
+		private void awaitPassivation()
+		{
+			CompletableFuture<Void> passivating;
+
+			synchronized(this)
+			{
+				passivating = passivation;
+			}
+
+			if(passivating != null)
+			{
+				passivating.join();
+			}
+		}
+
+		/**
+		 * Writes the state of this session's <code>Magpie</code>.
+		 *
+		 * @return				 the state, as written by <code>Magpie.writeState</code>
+		 * @throws IOException	 if the memory of the session can't be read
+		 * @version 2026.10.18
+		 */
+		private byte[] state() throws IOException
+		{
+			ByteArrayOutputStream state = new ByteArrayOutputStream();
+			magpie.writeState(new DataOutputStream(state));
+			return state.toByteArray();
+		}
+
+		/**
+		 * Expires this session if it has no turns in progress and has not had one since a point in time.
+		 *
+		 * @param time		 a time from <code>System.nanoTime</code>
+		 * @return			 whether the session expired
+		 * @version 2026.10.18
+		 */
+		private synchronized boolean expireIfIdleSince(long time)
+		{
+			if(!expired && pendingTurns == 0 && lastActive - time < 0)
+			{
+				expired = true;
+				closeMemoryAfterLastTurn();
+			}
+
+			return expired;
+		}
+	}
+}
@@ -0,0 +1,81 @@
+import java.io.*;
+import java.net.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * A connection to a <code>JsonLineServer</code>, such as a <code>ShardNode</code> or a <code>ShardRouter</code>,
+ * that sends one request at a time and waits for its answer.
+ *
+ * @author	Thanasi Bakis
+ */
+public class ShardClient implements Closeable
+{
+	private final Socket socket;
+	private final BufferedReader in;
+	private final Writer out;
+
+	/**
+	 * Connects to a server.
+	 *
+	 * @param address		 the address of the server, as "host:port"
+	 * @throws IOException	 if the server can't be reached
+	 * @version 2026.10.18
+	 */
+	public ShardClient(String address) throws IOException
+	{
+		int colon = address.lastIndexOf(':');
+
+		if(colon < 0)
+		{
+			throw new IllegalArgumentException("Expected host:port, not " + address);
+		}
+
+		socket = new Socket(address.substring(0, colon), Integer.parseInt(address.substring(colon + 1)));
+		socket.setTcpNoDelay(true);
+		in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+		out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Sends a request and waits for its answer.
+	 *
+	 * @param members		 the name of every member of the request followed by its value
+	 * @return				 the members of the answer
+	 * @throws IOException	 if the connection fails, or the server answers with an error
+	 * @version 2026.10.18
+	 */
+	public synchronized Map<String, String> call(String... members) throws IOException
+	{
+		out.write(Json.object(members));
+		out.write('\n');
+		out.flush();
+
+		String line = in.readLine();
+
+		if(line == null)
+		{
+			throw new EOFException("Connection closed by " + socket.getRemoteSocketAddress());
+		}
+
+		Map<String, String> answer = Json.parseObject(line);
+
+		if(answer.containsKey("error"))
+		{
+			throw new IOException(socket.getRemoteSocketAddress() + ": " + answer.get("error"));
+		}
+
+		return answer;
+	}
+
+	/**
+	 * Closes the connection.
+	 *
+	 * @throws IOException	 if the connection can't be closed
+	 * @version 2026.10.18
+	 */
+	public void close() throws IOException
+	{
+		socket.close();
+	}
+}
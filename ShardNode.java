@@ -0,0 +1,177 @@
+import java.io.*;
+import java.util.*;
+
+/**
+ * One worker process of a sharded Magpie: a <code>SessionManager</code> served over TCP on the loopback address.
+ * Requests are flat JSON objects, one per line, and so are the answers:
+ *
+ * <pre>
+ * {"op": "say", "session": id, "statement": text}			   -&gt; {"response": text}
+ * {"op": "sessions", "stripe": n, "stripes": count}		   -&gt; {"sessions": ids separated by newlines}
+ * {"op": "export", "session": id}							   -&gt; {"state": Base64 state, or null}
+ * {"op": "import", "session": id, "state": Base64 state}	   -&gt; {"ok": "true"}
+ * </pre>
+ *
+ * "sessions" lists the sessions whose ids fall in one stripe of <code>ShardRouter.stripe</code>, and "export" removes a session
+ * so that "import" can carry it on in another node. A <code>ShardRouter</code> in front of the nodes decides which node hosts each session.
+ *
+ * @author	Thanasi Bakis
+ */
+public class ShardNode implements Closeable
+{
+	private static final int SHARED_CACHE_SIZE = 10000;
+	private static final long WARMUP_MILLIS = 5000;
+
+	private final SessionManager sessions;
+	private final JsonLineServer server;
+
+	/**
+	 * Starts serving sessions.
+	 *
+	 * @param port			 the port to listen on, or 0 for any free port
+	 * @param sessions		 the sessions to serve
+	 * @throws IOException	 if the port can't be bound
+	 * @version 2026.10.18
+	 */
+	public ShardNode(int port, SessionManager sessions) throws IOException
+	{
+		this.sessions = sessions;
+		server = JsonLineServer.start(port, this::handle);
+	}
+
+	/**
+	 * Warms up, then runs a node until it is killed.
+	 *
+	 * @param args		 the port to listen on, and optionally how long a session may be idle before it expires, in milliseconds,
+	 * 					 followed by the budget in megabytes of everything remembered off the heap, and the budget of each session
+	 * @throws IOException	 if the port can't be bound
+	 * @version 2026.10.18
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		if(args.length < 1)
+		{
+			System.err.println("Usage: java ShardNode <port> [idle timeout ms [off-heap MB [session MB]]]");
+			System.exit(2);
+		}
+
+		long idleTimeout = args.length > 1 ? Long.parseLong(args[1]) : 0;
+		OffHeapMemory offHeap = null;
+
+		if(args.length > 2)
+		{
+			long sessionBudget = args.length > 3 ? Long.parseLong(args[3]) : 1;
+			offHeap = new OffHeapMemory(Long.parseLong(args[2]) << 20, sessionBudget << 20, 0);
+		}
+
+		// The node only listens once it is warm, so the router never sends it turns that run interpreted
+		System.out.println("Warm-up: " + Warmup.run(WARMUP_MILLIS));
+		ShardNode node = new ShardNode(Integer.parseInt(args[0]), SessionManager.start(idleTimeout, new ResponseCache(SHARED_CACHE_SIZE), offHeap));
+		System.out.println("Shard node listening on port " + node.getPort());
+	}
+
+	/**
+	 * Get the port the node listens on.
+	 *
+	 * @return			 the port
+	 * @version 2026.10.18
+	 */
+	public int getPort()
+	{
+		return server.getPort();
+	}
+
+	/**
+	 * Stops accepting connections and waits for the turns in progress to finish.
+	 *
+	 * @throws IOException	 if the server socket can't be closed
+	 * @version 2026.10.18
+	 */
+	public void close() throws IOException
+	{
+		server.close();
+		sessions.close();
+	}
+
+	/**
+	 * Answers one request.
+	 *
+	 * @param request		 the members of the request
+	 * @return				 the answer
+	 * @throws Exception	 if the request is invalid or fails
+	 * @version 2026.10.18
+	 */
+	private String handle(Map<String, String> request) throws Exception
+	{
+		String op = String.valueOf(request.get("op"));
+
+		switch(op)
+		{
+			case "say":
+				return Json.object("response", sessions.respond(sessionId(request), required(request, "statement")).get());
+			case "sessions":
+				int stripe = Integer.parseInt(required(request, "stripe")),
+					stripes = Integer.parseInt(required(request, "stripes"));
+				StringJoiner ids = new StringJoiner("\n");
+
+				for(String id : sessions.ids())
+				{
+					if(ShardRouter.stripe(id, stripes) == stripe)
+					{
+						ids.add(id);
+					}
+				}
+
+				return Json.object("sessions", ids.toString());
+			case "export":
+				byte[] state = sessions.export(sessionId(request));
+				return Json.object("state", state == null ? null : Base64.getEncoder().encodeToString(state));
+			case "import":
+				sessions.importSession(sessionId(request), Base64.getDecoder().decode(required(request, "state")));
+				return Json.object("ok", "true");
+			default:
+				throw new IllegalArgumentException("Unknown op: " + op);
+		}
+	}
+
+	/**
+	 * Get the session id of a request.
+	 *
+	 * @param request		 the members of the request
+	 * @return				 the session id
+	 * @throws IllegalArgumentException	 if there is no session id, or it holds a line break, which would break the list of sessions
+	 * @version 2026.10.18
+	 */
+	private static String sessionId(Map<String, String> request)
+	{
+		String id = required(request, "session");
+
+		if(id.indexOf('\n') >= 0 || id.indexOf('\r') >= 0)
+		{
+			throw new IllegalArgumentException("Session ids can't hold line breaks");
+		}
+
+		return id;
+	}
+
+	/**
+	 * Get a member of a request that must be there.
+	 *
+	 * @param request		 the members of the request
+	 * @param name			 the name of the member
+	 * @return				 the value of the member
+	 * @throws IllegalArgumentException	 if the member is missing or null
+	 * @version 2026.10.18
+	 */
+	private static String required(Map<String, String> request, String name)
+	{
+		String value = request.get(name);
+
+		if(value == null)
+		{
+			throw new IllegalArgumentException("Missing " + name);
+		}
+
+		return value;
+	}
+}
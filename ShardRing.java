@@ -0,0 +1,148 @@
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Assigns session ids to nodes by consistent hashing. Every node is placed at many points on a ring of 64-bit hashes,
+ * and a session belongs to the first node point at or after the hash of its id. Adding or removing a node only moves
+ * the sessions between its points and the ones before them, about 1/N of all sessions, and every router with the same
+ * nodes assigns every session to the same node.
+ *
+ * @author	Thanasi Bakis
+ */
+public class ShardRing
+{
+	private static final int POINTS_PER_NODE = 160;
+
+	private final TreeMap<Long, String> points;
+	private final Set<String> nodes;
+
+	/**
+	 * Creates a ring of nodes.
+	 *
+	 * @param nodes		 the names of the nodes, such as their addresses
+	 * @version 2026.10.18
+	 */
+	public ShardRing(Collection<String> nodes)
+	{
+		points = new TreeMap<Long, String>();
+		this.nodes = new TreeSet<String>();
+
+		for(String node : nodes)
+		{
+			place(node);
+		}
+	}
+
+	/**
+	 * Adds a node to the ring.
+	 *
+	 * @param node		 the name of the node
+	 * @return			 whether the node was not already on the ring
+	 * @version 2026.10.18
+	 */
+	public boolean add(String node)
+	{
+		return place(node);
+	}
+
+	/**
+	 * Places a node at its points on the ring, for <code>add</code> and the constructor.
+	 *
+	 * @param node		 the name of the node
+	 * @return			 whether the node was not already on the ring
+	 * @version 2026.10.18
+	 */
+	private boolean place(String node)
+	{
+		if(!nodes.add(node))
+		{
+			return false;
+		}
+
+		for(int i = 0; i < POINTS_PER_NODE; i++)
+		{
+			// On the rare collision of two points, the node that sorts first keeps the point, so the order nodes are added in doesn't matter
+			points.merge(hash(node + "#" + i), node, (a, b) -> a.compareTo(b) <= 0 ? a : b);
+		}
+
+		return true;
+	}
+
+	/**
+	 * Removes a node from the ring.
+	 *
+	 * @param node		 the name of the node
+	 * @return			 whether the node was on the ring
+	 * @version 2026.10.18
+	 */
+	public boolean remove(String node)
+	{
+		if(!nodes.remove(node))
+		{
+			return false;
+		}
+
+		points.values().removeIf(node::equals);
+
+		// Points the removed node won in a collision go back to the other node
+		for(String other : nodes)
+		{
+			for(int i = 0; i < POINTS_PER_NODE; i++)
+			{
+				points.putIfAbsent(hash(other + "#" + i), other);
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Finds the node a session belongs to.
+	 *
+	 * @param sessionId		 the id of the session
+	 * @return				 the name of the node, or <code>null</code> if the ring has no nodes
+	 * @version 2026.10.18
+	 */
+	public String nodeFor(String sessionId)
+	{
+		if(points.isEmpty())
+		{
+			return null;
+		}
+
+		Map.Entry<Long, String> point = points.ceilingEntry(hash(sessionId));
+		return (point != null ? point : points.firstEntry()).getValue();
+	}
+
+	/**
+	 * Get the nodes on the ring.
+	 *
+	 * @return			 the names of the nodes, in sorted order
+	 * @version 2026.10.18
+	 */
+	public List<String> getNodes()
+	{
+		return new ArrayList<String>(nodes);
+	}
+
+	/**
+	 * Hashes text to a point on the ring, with FNV-1a followed by the MurmurHash3 finalizer so that similar names land far apart.
+	 *
+	 * @param text		 the text
+	 * @return			 the hash
+	 * @version 2026.10.18
+	 */
+	private static long hash(String text)
+	{
+		long hash = 0xcbf29ce484222325L;
+
+		for(byte b : text.getBytes(StandardCharsets.UTF_8))
+		{
+			hash = (hash ^ (b & 0xff)) * 0x100000001b3L;
+		}
+
+		hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+		hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+		return hash ^ (hash >>> 33);
+	}
+}
@@ -0,0 +1,407 @@
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.*;
+
+/**
+ * Routes the turns of every session to the <code>ShardNode</code> that hosts it, chosen by consistent hashing of the session id,
+ * so sessions spread over many processes without a sticky load balancer in front of them.
+ * When a node joins or leaves, only the sessions whose node changes are handed over, by exporting them from the old node
+ * and importing them into the new one, and they carry on with everything they remembered.
+ * <p>
+ * Sessions are split into stripes by the hash of their id, each with its own lock and its own view of the ring.
+ * A handoff moves one stripe at a time, so turns of the sessions in other stripes carry on while it runs.
+ * A node that leaves because it crashed can't hand its sessions over, so they start again on their new nodes.
+ * <p>
+ * The router serves the same protocol as a node for "say", plus {"op": "join" or "leave", "node": "host:port"} and {"op": "nodes"}.
+ *
+ * @author	Thanasi Bakis
+ */
+public class ShardRouter implements Closeable
+{
+	private static final int STRIPES = 64;
+
+	private final ReadWriteLock[] locks;
+	private final ShardRing[] rings;
+	private final ConcurrentHashMap<String, ConcurrentLinkedQueue<ShardClient>> connections;
+	private ShardRing ring;
+
+	/**
+	 * Creates a router in front of some nodes.
+	 *
+	 * @param nodes		 the addresses of the nodes, as "host:port"
+	 * @version 2026.10.18
+	 */
+	public ShardRouter(Collection<String> nodes)
+	{
+		ring = new ShardRing(nodes);
+		locks = new ReadWriteLock[STRIPES];
+		rings = new ShardRing[STRIPES];
+		connections = new ConcurrentHashMap<String, ConcurrentLinkedQueue<ShardClient>>();
+
+		for(int i = 0; i < STRIPES; i++)
+		{
+			locks[i] = new ReentrantReadWriteLock();
+			rings[i] = ring;
+		}
+	}
+
+	/**
+	 * Runs a router until it is killed.
+	 *
+	 * @param args		 the port to listen on, followed by the addresses of the nodes, as "host:port"
+	 * @throws IOException	 if the port can't be bound
+	 * @version 2026.10.18
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		if(args.length < 1)
+		{
+			System.err.println("Usage: java ShardRouter <port> [host:port...]");
+			System.exit(2);
+		}
+
+		ShardRouter router = new ShardRouter(Arrays.asList(args).subList(1, args.length));
+		JsonLineServer server = router.serve(Integer.parseInt(args[0]));
+		System.out.println("Shard router listening on port " + server.getPort() + " in front of " + router.getNodes());
+	}
+
+	/**
+	 * Finds the stripe of a session, the same way in every process.
+	 *
+	 * @param sessionId		 the id of the session
+	 * @param stripes		 the number of stripes
+	 * @return				 the stripe, from 0 to <code>stripes - 1</code>
+	 * @version 2026.10.18
+	 */
+	public static int stripe(String sessionId, int stripes)
+	{
+		// String.hashCode is specified, so it is the same in every JVM
+		return Math.floorMod(sessionId.hashCode(), stripes);
+	}
+
+	/**
+	 * Gives a response to a statement in a session, on the node that hosts it.
+	 *
+	 * @param sessionId		 the id of the session
+	 * @param statement		 the user statement
+	 * @return				 the response
+	 * @throws IOException	 if the node can't be reached or fails
+	 * @version 2026.10.18
+	 */
+	public String respond(String sessionId, String statement) throws IOException
+	{
+		int stripe = stripe(sessionId, STRIPES);
+		Lock lock = locks[stripe].readLock();
+		lock.lock();
+
+		try
+		{
+			String node = rings[stripe].nodeFor(sessionId);
+
+			if(node == null)
+			{
+				throw new IOException("No nodes to host session " + sessionId);
+			}
+
+			return call(node, "op", "say", "session", sessionId, "statement", statement).get("response");
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Adds a node, and hands it the sessions that now belong to it.
+	 *
+	 * @param node			 the address of the node, as "host:port"
+	 * @return				 the number of sessions handed over
+	 * @throws IOException	 if the node can't be reached, in which case it isn't added
+	 * @version 2026.10.18
+	 */
+	public synchronized int join(String node) throws IOException
+	{
+		if(ring.getNodes().contains(node))
+		{
+			return 0;
+		}
+
+		// Check that the node is there before routing anything to it
+		call(node, "op", "sessions", "stripe", "0", "stripes", "1");
+
+		List<String> nodes = ring.getNodes();
+		List<String> next = new ArrayList<String>(nodes);
+		next.add(node);
+		return rebalance(new ShardRing(next), nodes);
+	}
+
+	/**
+	 * Removes a node, handing its sessions to the nodes they now belong to.
+	 *
+	 * @param node			 the address of the node, as "host:port"
+	 * @return				 the number of sessions handed over
+	 * @version 2026.10.18
+	 */
+	public synchronized int leave(String node)
+	{
+		if(!ring.getNodes().contains(node))
+		{
+			return 0;
+		}
+
+		List<String> next = ring.getNodes();
+		next.remove(node);
+		int moved = rebalance(new ShardRing(next), List.of(node));
+		ConcurrentLinkedQueue<ShardClient> idle = connections.remove(node);
+
+		for(ShardClient client = idle == null ? null : idle.poll(); client != null; client = idle.poll())
+		{
+			closeQuietly(client);
+		}
+
+		return moved;
+	}
+
+	/**
+	 * Get the nodes sessions are routed to.
+	 *
+	 * @return			 the addresses of the nodes
+	 * @version 2026.10.18
+	 */
+	public synchronized List<String> getNodes()
+	{
+		return ring.getNodes();
+	}
+
+	/**
+	 * Serves this router to clients, with the same protocol as a <code>ShardNode</code> for "say".
+	 *
+	 * @param port			 the port to listen on, or 0 for any free port
+	 * @return				 the server, which stops accepting connections when it is closed
+	 * @throws IOException	 if the port can't be bound
+	 * @version 2026.10.18
+	 */
+	public JsonLineServer serve(int port) throws IOException
+	{
+		return JsonLineServer.start(port, request ->
+		{
+			String op = String.valueOf(request.get("op"));
+
+			switch(op)
+			{
+				case "say":
+					return Json.object("response", respond(Objects.requireNonNull(request.get("session"), "Missing session"),
+														   Objects.requireNonNull(request.get("statement"), "Missing statement")));
+				case "join":
+					return Json.object("moved", String.valueOf(join(request.get("node"))));
+				case "leave":
+					return Json.object("moved", String.valueOf(leave(request.get("node"))));
+				case "nodes":
+					return Json.object("nodes", String.join("\n", getNodes()));
+				default:
+					throw new IllegalArgumentException("Unknown op: " + op);
+			}
+		});
+	}
+
+	/**
+	 * Closes every connection to the nodes.
+	 *
+	 * @version 2026.10.18
+	 */
+	public void close()
+	{
+		for(ConcurrentLinkedQueue<ShardClient> idle : connections.values())
+		{
+			for(ShardClient client = idle.poll(); client != null; client = idle.poll())
+			{
+				closeQuietly(client);
+			}
+		}
+	}
+
+	/**
+	 * Moves to a new ring one stripe at a time, handing over every session on some nodes whose node changes.
+	 * A session that can't be handed over is reported and kept on its old node, and every stripe still moves to the new ring,
+	 * so the session starts again on its new node unless it is handed over later.
+	 *
+	 * @param next		 the new ring
+	 * @param sources	 the nodes that may hold sessions that have to move
+	 * @return			 the number of sessions handed over
+	 * @version 2026.10.18
+	 */
+	private int rebalance(ShardRing next, List<String> sources)
+	{
+		int moved = 0;
+
+		for(int stripe = 0; stripe < STRIPES; stripe++)
+		{
+			Lock lock = locks[stripe].writeLock();
+			lock.lock();
+
+			try
+			{
+				for(String source : sources)
+				{
+					for(String id : sessionsOn(source, stripe))
+					{
+						String target = next.nodeFor(id);
+
+						if(!source.equals(target) && handOver(id, source, target))
+						{
+							moved++;
+						}
+					}
+				}
+
+				rings[stripe] = next;
+			}
+			finally
+			{
+				lock.unlock();
+			}
+		}
+
+		ring = next;
+		return moved;
+	}
+
+	/**
+	 * Lists the sessions of a stripe on a node.
+	 *
+	 * @param node		 the address of the node
+	 * @param stripe	 the stripe
+	 * @return			 the ids of the sessions, or none if the node can't be reached
+	 * @version 2026.10.18
+	 */
+	private List<String> sessionsOn(String node, int stripe)
+	{
+		try
+		{
+			String ids = call(node, "op", "sessions", "stripe", String.valueOf(stripe), "stripes", String.valueOf(STRIPES)).get("sessions");
+			return ids == null || ids.isEmpty() ? List.of() : Arrays.asList(ids.split("\n"));
+		}
+		catch(IOException e)
+		{
+			System.err.println("Can't list the sessions on " + node + ": " + e.getMessage());
+			return List.of();
+		}
+	}
+
+	/**
+	 * Moves a session from one node to another. The exported state is kept until a node has imported it: the import is tried twice,
+	 * since a failed call closes its connection and the second one opens a new one, and then the state is imported back into the source.
+	 *
+	 * @param id		 the id of the session
+	 * @param source	 the address of the node that hosts it
+	 * @param target	 the address of the node to host it
+	 * @return			 whether the session was moved
+	 * @version 2026.10.18
+	 */
+	private boolean handOver(String id, String source, String target)
+	{
+		String state;
+
+		try
+		{
+			state = call(source, "op", "export", "session", id).get("state");
+		}
+		catch(IOException e)
+		{
+			System.err.println("Can't export session " + id + " from " + source + ": " + e.getMessage());
+			return false;
+		}
+
+		if(state == null)
+		{
+			return false;
+		}
+
+		if(importSession(target, id, state) || importSession(target, id, state))
+		{
+			return true;
+		}
+
+		if(!importSession(source, id, state))
+		{
+			System.err.println("Session " + id + " is lost: neither " + target + " nor " + source + " took it back");
+		}
+
+		return false;
+	}
+
+	/**
+	 * Imports the state of a session into a node.
+	 *
+	 * @param node		 the address of the node
+	 * @param id		 the id of the session
+	 * @param state		 the state, as exported by a node
+	 * @return			 whether the node imported the session
+	 * @version 2026.10.18
+	 */
+	private boolean importSession(String node, String id, String state)
+	{
+		try
+		{
+			call(node, "op", "import", "session", id, "state", state);
+			return true;
+		}
+		catch(IOException e)
+		{
+			System.err.println("Can't import session " + id + " into " + node + ": " + e.getMessage());
+			return false;
+		}
+	}
+
+	/**
+	 * Sends a request to a node on an idle connection, opening one if there are none.
+	 * A connection that fails is closed instead of being used again.
+	 *
+	 * @param node			 the address of the node
+	 * @param members		 the name of every member of the request followed by its value
+	 * @return				 the members of the answer
+	 * @throws IOException	 if the node can't be reached or answers with an error
+	 * @version 2026.10.18
+	 */
+	private Map<String, String> call(String node, String... members) throws IOException
+	{
+		ConcurrentLinkedQueue<ShardClient> idle = connections.computeIfAbsent(node, n -> new ConcurrentLinkedQueue<ShardClient>());
+		ShardClient client = idle.poll();
+
+		if(client == null)
+		{
+			client = new ShardClient(node);
+		}
+
+		try
+		{
+			Map<String, String> answer = client.call(members);
+			idle.offer(client);
+			return answer;
+		}
+		catch(IOException e)
+		{
+			closeQuietly(client);
+			throw e;
+		}
+	}
+
+	/**
+	 * Closes a connection, ignoring any error.
+	 *
+	 * @param client	 the connection
+	 * @version 2026.10.18
+	 */
+	private static void closeQuietly(ShardClient client)
+	{
+		try
+		{
+			client.close();
+		}
+		catch(IOException e)
+		{
+			// Nothing more can be done with it
+		}
+	}
+}
@@ -0,0 +1,260 @@
+import java.util.*;
+
+/**
+ * A statement that has been split into words in a single pass.
+ * Every word keeps its offsets in the original statement, its id in <code>Grammar.VOCABULARY</code>, and the word classes it belongs to,
+ * so that <code>Grammar</code> can answer its queries with index lookups and <code>int</code> comparisons instead of rescanning the statement.
+ * A word is a run of the letters a-z, matching the word boundaries used by <code>Grammar.findKeyword</code>.
+ *
+ * @author	Thanasi Bakis
+ */
+public final class TokenizedStatement
+{
+	private final String text, lowerText;
+	private final int[] starts, ends, ids, tags;
+	private final int wordCount;
+
+	/**
+	 * Tokenizes a statement.
+	 *
+	 * @param statement	 the statement to tokenize
+	 * @version 2026.10.18
+	 */
+	public TokenizedStatement(String statement)
+	{
+		int length = statement.length();
+		char[] lower = new char[length];
+		int[] wordStarts = new int[length / 2 + 1];
+		int[] wordEnds = new int[wordStarts.length];
+		int count = 0;
+		int start = -1;
+
+		for(int i = 0; i <= length; i++)
+		{
+			boolean isLetter = false;
+
+			if(i < length)
+			{
+				lower[i] = Character.toLowerCase(statement.charAt(i));
+				isLetter = lower[i] >= 'a' && lower[i] <= 'z';
+			}
+
+			if(isLetter && start < 0)
+			{
+				start = i;
+			}
+			else if(!isLetter && start >= 0)
+			{
+				wordStarts[count] = start;
+				wordEnds[count] = i;
+				count++;
+				start = -1;
+			}
+		}
+
+		text = statement;
+		lowerText = new String(lower);
+		starts = wordStarts;
+		ends = wordEnds;
+		wordCount = count;
+		ids = new int[count];
+		tags = new int[count];
+
+		for(int i = 0; i < count; i++)
+		{
+			ids[i] = Grammar.VOCABULARY.id(lowerText, starts[i], ends[i]);
+			tags[i] = Grammar.wordClassTag(ids[i]);
+		}
+	}
+
+	/**
+	 * Search for one word or phrase in the statement, in the same way as <code>Grammar.findKeyword</code>.
+	 * Words of the vocabulary are found by comparing word ids, other single words by comparing the tokenized words,
+	 * and phrases are searched for in the lowercase statement.
+	 *
+	 * @param goal		  the lowercase word or phrase to search for
+	 * @param startPos	  the character of the statement to begin the search at
+	 * @return			  the index of the first occurrence of goal in the statement or -1 if it's not found
+	 * @version 2026.10.18
+	 */
+	public int indexOf(String goal, int startPos)
+	{
+		if(isSingleWord(goal))
+		{
+			int id = Grammar.VOCABULARY.id(goal);
+
+			for(int i = 0; i < wordCount; i++)
+			{
+				if(starts[i] >= startPos && (id >= 0 ? ids[i] == id : ends[i] - starts[i] == goal.length() && lowerText.startsWith(goal, starts[i])))
+				{
+					return starts[i];
+				}
+			}
+
+			return -1;
+		}
+
+		int position = lowerText.indexOf(goal, startPos);
+
+		while(position >= 0)
+		{
+			if(!isLetterAt(position - 1) && !isLetterAt(position + goal.length()))
+			{
+				return position;
+			}
+
+			position = lowerText.indexOf(goal, position + 1);
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Returns the index in its word class list of a word, such as the index of "he" in the subject pronouns.
+	 *
+	 * @param word		  the index of the word in the statement
+	 * @param wordClass	  one of the word classes defined in <code>Grammar</code>
+	 * @return			  the index of the word in the word class list, or -1 if the word is not in that class
+	 * @version 2026.10.18
+	 */
+	public int wordClassIndex(int word, int wordClass)
+	{
+		return Grammar.wordClassIndex(tags[word], wordClass);
+	}
+
+	/**
+	 * Returns the id of a word in <code>Grammar.VOCABULARY</code>, which is the same for every statement.
+	 *
+	 * @param word		  the index of the word in the statement
+	 * @return			  the id of the word, or <code>Vocabulary.UNKNOWN</code> if it is not in the vocabulary
+	 * @version 2026.10.18
+	 */
+	public int wordId(int word)
+	{
+		return ids[word];
+	}
+
+	/**
+	 * Returns the word class tag of a word, which packs its index in every word class list.
+	 *
+	 * @param word		  the index of the word in the statement
+	 * @return			  the tag of the word, or 0 if it is in no word class
+	 * @version 2026.10.18
+	 */
+	int wordClassTag(int word)
+	{
+		return tags[word];
+	}
+
+	/**
+	 * Get the number of words in the statement.
+	 *
+	 * @return			  the number of words
+	 * @version 2026.10.18
+	 */
+	public int wordCount()
+	{
+		return wordCount;
+	}
+
+	/**
+	 * Get the lowercase form of a word.
+	 *
+	 * @param word		  the index of the word in the statement
+	 * @return			  the lowercase word
+	 * @version 2026.10.18
+	 */
+	public String word(int word)
+	{
+		return lowerText.substring(starts[word], ends[word]);
+	}
+
+	/**
+	 * Get the character offset where a word begins.
+	 *
+	 * @param word		  the index of the word in the statement
+	 * @return			  the offset of the first character of the word
+	 * @version 2026.10.18
+	 */
+	public int wordStart(int word)
+	{
+		return starts[word];
+	}
+
+	/**
+	 * Get the character offset where a word ends.
+	 *
+	 * @param word		  the index of the word in the statement
+	 * @return			  the offset after the last character of the word
+	 * @version 2026.10.18
+	 */
+	public int wordEnd(int word)
+	{
+		return ends[word];
+	}
+
+	/**
+	 * Get the statement in its lowercase form.
+	 *
+	 * @return			  the lowercase statement
+	 * @version 2026.10.18
+	 */
+	public String toLowerCase()
+	{
+		return lowerText;
+	}
+
+	/**
+	 * Get the statement as it was given.
+	 *
+	 * @return			  the original statement
+	 * @version 2026.10.18
+	 */
+	public String toString()
+	{
+		return text;
+	}
+
+	/**
+	 * Determines whether the character at an offset is a letter, treating offsets outside the statement as spaces.
+	 *
+	 * @param position	  the offset to check
+	 * @return			  whether there is a letter at that offset
+	 * @version 2026.10.18
+	 */
+	private boolean isLetterAt(int position)
+	{
+		if(position < 0 || position >= lowerText.length())
+		{
+			return false;
+		}
+
+		char c = lowerText.charAt(position);
+		return c >= 'a' && c <= 'z';
+	}
+
+	/**
+	 * Determines whether a goal is a single word, so that it can be matched against the tokenized words.
+	 *
+	 * @param goal		  the goal to check
+	 * @return			  whether the goal only contains the letters a-z
+	 * @version 2026.10.18
+	 */
+	private static boolean isSingleWord(String goal)
+	{
+		if(goal.length() == 0)
+		{
+			return false;
+		}
+
+		for(int i = 0; i < goal.length(); i++)
+		{
+			if(goal.charAt(i) < 'a' || goal.charAt(i) > 'z')
+			{
+				return false;
+			}
+		}
+
+		return true;
+	}
+}
@@ -0,0 +1,216 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Replays a transcript of statements through <code>Magpie</code> and streams out the responses.
+ * A plain transcript holds one statement per line, all from one conversation. A JSONL transcript holds one object per line,
+ * such as <code>{"session": "42", "statement": "Hi"}</code>, and its sessions are replayed in parallel,
+ * each in the order its statements appear.
+ *
+ * <p>Responses are written in the same order as the statements, and at most a fixed number of statements are read ahead of the
+ * response being written. Sessions that have had no statement for the idle timeout are passivated into an archive and rehydrated
+ * on their next statement, so the heap only holds the sessions in use, however many sessions the transcript has.
+ * With an archive on disk, each other session takes only its id on the heap.</p>
+ *
+ * <p>A statement whose turn fails gets an error in place of its response, like a failed turn of a <code>ChatServer</code> batch,
+ * and the replay goes on.</p>
+ *
+ * @author	Thanasi Bakis
+ */
+public class TranscriptReplay
+{
+	private static final String DEFAULT_SESSION = "default";
+
+	private final int maxInFlight;
+	private final long idleTimeoutMillis;
+	private final SessionArchive archive;
+
+	/**
+	 * Creates a replay that reads at most a number of statements ahead of the response being written,
+	 * and passivates the sessions that go idle.
+	 *
+	 * @param maxInFlight		 the most statements waiting for a response at once
+	 * @param idleTimeoutMillis	 how long a session may go without a statement before it is passivated
+	 * @param archive			 where idle sessions are passivated
+	 * @version 2026.10.18
+	 */
+	public TranscriptReplay(int maxInFlight, long idleTimeoutMillis, SessionArchive archive)
+	{
+		if(maxInFlight <= 0 || idleTimeoutMillis <= 0)
+		{
+			throw new IllegalArgumentException("The statements in flight and the idle timeout must be positive");
+		}
+
+		this.maxInFlight = maxInFlight;
+		this.idleTimeoutMillis = idleTimeoutMillis;
+		this.archive = archive;
+	}
+
+	/**
+	 * Replays a transcript file, treating it as JSONL if its name ends with <code>.jsonl</code>.
+	 *
+	 * @param transcript	 the transcript file
+	 * @param out			 where to write the responses
+	 * @return				 the number of statements replayed
+	 * @throws IOException	 if the transcript can't be read or the responses can't be written
+	 * @version 2026.10.18
+	 */
+	public long replay(Path transcript, Writer out) throws IOException
+	{
+		try(BufferedReader in = Files.newBufferedReader(transcript, StandardCharsets.UTF_8))
+		{
+			return replay(in, out, transcript.getFileName().toString().endsWith(".jsonl"));
+		}
+	}
+
+	/**
+	 * Replays a transcript. A plain transcript gets one response per statement; a JSONL transcript gets one object per statement,
+	 * with the session, statement and response.
+	 *
+	 * @param in			 the transcript
+	 * @param out			 where to write the responses
+	 * @param jsonl			 whether the transcript is JSONL
+	 * @return				 the number of statements replayed
+	 * @throws IOException	 if the transcript can't be read or the responses can't be written
+	 * @version 2026.10.18
+	 */
+	public long replay(BufferedReader in, Writer out, boolean jsonl) throws IOException
+	{
+		ArrayDeque<Turn> inFlight = new ArrayDeque<Turn>();
+		long statements = 0;
+
+		try(SessionManager sessions = SessionManager.start(idleTimeoutMillis, null, null, archive))
+		{
+			String line;
+
+			while((line = in.readLine()) != null)
+			{
+				Turn turn = jsonl ? parse(line, statements + 1) : new Turn(DEFAULT_SESSION, line);
+
+				if(turn == null)
+				{
+					continue;
+				}
+
+				turn.response = sessions.respond(turn.session, turn.statement);
+				inFlight.add(turn);
+				statements++;
+
+				// Wait for the oldest response once enough statements are waiting, so the input is never read too far ahead
+				if(inFlight.size() >= maxInFlight)
+				{
+					write(inFlight.remove(), out, jsonl);
+				}
+			}
+
+			while(!inFlight.isEmpty())
+			{
+				write(inFlight.remove(), out, jsonl);
+			}
+		}
+
+		out.flush();
+		return statements;
+	}
+
+	/**
+	 * Parses one line of a JSONL transcript.
+	 *
+	 * @param line			 the line
+	 * @param lineNumber	 the number of the statement, used in error messages
+	 * @return				 the turn, or <code>null</code> for a blank line
+	 * @throws IOException	 if the line is not a valid JSON object with a statement
+	 * @version 2026.10.18
+	 */
+	private static Turn parse(String line, long lineNumber) throws IOException
+	{
+		if(line.trim().isEmpty())
+		{
+			return null;
+		}
+
+		try
+		{
+			Map<String, String> members = Json.parseObject(line);
+			String statement = members.get("statement");
+
+			if(statement == null)
+			{
+				throw new IOException("Statement " + lineNumber + " has no \"statement\"");
+			}
+
+			return new Turn(members.getOrDefault("session", DEFAULT_SESSION), statement);
+		}
+		catch(IllegalArgumentException e)
+		{
+			throw new IOException("Statement " + lineNumber + " is not valid JSON: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Waits for the response to a turn and writes it, or writes the error if the turn failed.
+	 * A plain transcript gets <code>Error: </code> and the cause in place of the response, and a JSONL one gets an <code>"error"</code> member.
+	 *
+	 * @param turn			 the turn
+	 * @param out			 where to write the response
+	 * @param jsonl			 whether to write a JSON object instead of just the response
+	 * @throws IOException	 if the response can't be written
+	 * @version 2026.10.18
+	 */
+	private static void write(Turn turn, Writer out, boolean jsonl) throws IOException
+	{
+		String member = "response", text;
+
+		try
+		{
+			text = turn.response.join();
+		}
+		catch(CompletionException e)
+		{
+			member = "error";
+			text = String.valueOf(e.getCause());
+		}
+
+		if(jsonl)
+		{
+			StringBuilder json = new StringBuilder("{\"session\":");
+			Json.quote(turn.session, json);
+			json.append(",\"statement\":");
+			Json.quote(turn.statement, json);
+			json.append(",\"").append(member).append("\":");
+			Json.quote(text, json);
+			out.write(json.append('}').toString());
+		}
+		else
+		{
+			out.write(member.equals("error") ? "Error: " + text : text);
+		}
+
+		out.write(System.lineSeparator());
+	}
+
+	/**
+	 * One statement of a transcript and its response, once it is given.
+	 */
+	private static class Turn
+	{
+		private final String session, statement;
+		private CompletableFuture<String> response;
+
+		/**
+		 * Creates a turn that hasn't been given to its session yet.
+		 *
+		 * @param session		 the id of the session
+		 * @param statement		 the statement
+		 * @version 2026.10.18
+		 */
+		private Turn(String session, String statement)
+		{
+			this.session = session;
+			this.statement = statement;
+		}
+	}
+}
@@ -0,0 +1,159 @@
+import java.util.Arrays;
+
+/**
+ * An immutable set of lowercase words, each interned under a dense <code>int</code> id from 0 to <code>size() - 1</code>.
+ * Ids let a word be compared with one <code>int</code> comparison, and index arrays of per-word features such as
+ * word classes, instead of hashing and comparing strings. Words are looked up in an open-addressed table of ids,
+ * straight from the characters of a statement and ignoring case, so a lookup never allocates.
+ *
+ * @author	Thanasi Bakis
+ */
+public final class Vocabulary
+{
+	/**
+	 * The id of every word that is not in the vocabulary.
+	 */
+	public static final int UNKNOWN = -1;
+
+	private final String[] words;
+	private final int[] slots;
+	private final int mask;
+
+	/**
+	 * Creates a vocabulary. Each word gets the next id the first time it is given, and repeated words share it.
+	 *
+	 * @param words		 the lowercase words, in the order of their ids
+	 * @version 2026.10.18
+	 */
+	public Vocabulary(String... words)
+	{
+		// The table is kept at most half full, so a miss ends after a probe or two
+		int capacity = Integer.highestOneBit(Math.max(words.length, 1) * 2 - 1) << 1;
+		String[] distinctWords = new String[words.length];
+		int size = 0;
+		slots = new int[capacity];
+		mask = capacity - 1;
+
+		for(String word : words)
+		{
+			int slot = hash(word, 0, word.length()) & mask;
+
+			while(slots[slot] != 0 && !distinctWords[slots[slot] - 1].equals(word))
+			{
+				slot = (slot + 1) & mask;
+			}
+
+			if(slots[slot] == 0)
+			{
+				distinctWords[size] = word;
+				slots[slot] = ++size;
+			}
+		}
+
+		this.words = Arrays.copyOf(distinctWords, size);
+	}
+
+	/**
+	 * Get the id of a word.
+	 *
+	 * @param word		 the word, in any case
+	 * @return			 the id of the word, or <code>UNKNOWN</code> if it is not in the vocabulary
+	 * @version 2026.10.18
+	 */
+	public int id(String word)
+	{
+		return id(word, 0, word.length());
+	}
+
+	/**
+	 * Get the id of the word between two positions of some characters, without allocating.
+	 *
+	 * @param text		 the characters that contain the word
+	 * @param start		 the position of the first character of the word
+	 * @param end		 the position after the last character of the word
+	 * @return			 the id of the word, ignoring case, or <code>UNKNOWN</code> if it is not in the vocabulary
+	 * @version 2026.10.18
+	 */
+	public int id(CharSequence text, int start, int end)
+	{
+		for(int slot = hash(text, start, end) & mask; slots[slot] != 0; slot = (slot + 1) & mask)
+		{
+			String word = words[slots[slot] - 1];
+
+			if(word.length() == end - start && regionMatches(text, start, word))
+			{
+				return slots[slot] - 1;
+			}
+		}
+
+		return UNKNOWN;
+	}
+
+	/**
+	 * Get the word with an id.
+	 *
+	 * @param id		 the id of the word
+	 * @return			 the lowercase word
+	 * @throws ArrayIndexOutOfBoundsException	 if the id is not from this vocabulary
+	 * @version 2026.10.18
+	 */
+	public String word(int id)
+	{
+		return words[id];
+	}
+
+	/**
+	 * Get the number of words in the vocabulary, which is one more than the highest id.
+	 *
+	 * @return			 the number of words
+	 * @version 2026.10.18
+	 */
+	public int size()
+	{
+		return words.length;
+	}
+
+	/**
+	 * Hashes the lowercase form of some characters, in the same way whether they are a word of the vocabulary or part of a statement.
+	 *
+	 * @param text		 the characters
+	 * @param start		 the position of the first character
+	 * @param end		 the position after the last character
+	 * @return			 the hash, with its high bits mixed into the low bits that pick a slot
+	 * @version 2026.10.18
+	 */
+	private static int hash(CharSequence text, int start, int end)
+	{
+		int hash = 0;
+
+		for(int i = start; i < end; i++)
+		{
+			hash = 31 * hash + Character.toLowerCase(text.charAt(i));
+		}
+
+		hash *= 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+
+	/**
+	 * Determines whether some characters hold a lowercase word at a position, ignoring their case.
+	 *
+	 * @param text		 the characters
+	 * @param position	 the position to compare at, with room for the whole word after it
+	 * @param word		 the lowercase word
+	 * @return			 whether the characters match the word
+	 * @version 2026.10.18
+	 */
+	private static boolean regionMatches(CharSequence text, int position, String word)
+	{
+		for(int i = 0; i < word.length(); i++)
+		{
+			if(Character.toLowerCase(text.charAt(position + i)) != word.charAt(i))
+			{
+				return false;
+			}
+		}
+
+		return true;
+	}
+}
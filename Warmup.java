@@ -0,0 +1,234 @@
+import java.io.*;
+import java.lang.management.*;
+
+/**
+ * Warms up a process before it takes traffic, by running a bundled corpus through <code>Grammar</code> and <code>Magpie</code>
+ * until the JIT has compiled the hot paths. The corpus reaches every built-in rule, every transformation, contractions,
+ * questions, characters outside Latin-1, the remember, recall, delete and game dialogs, and the state written when a session
+ * moves to another node. A path the warm-up never took would make the JIT throw away compiled code on the first real statement that takes it.
+ * <p>
+ * The corpus is run in rounds of several passes, each pass on new <code>Magpie</code>s, until the time per statement of the last
+ * few rounds is steady and the JIT has stopped compiling. The warm-up reports how long after the JVM started the first response
+ * was given, and when the responses became steady.
+ * Run on its own with <code>java Warmup</code>, it is also the training run for an AppCDS archive of the classes it loads.
+ *
+ * @author	Thanasi Bakis
+ */
+public final class Warmup
+{
+	private static final String[] CORPUS = {"hi", "Hello there!", "hey magpie", "How are you today?", "What is your name?",
+											"No, I don't think so.", "My mother is a nurse and my father is a teacher.", "I have a dog and a cat.",
+											"Mr. Allen is my teacher.", "I really like computer science.", "Computer science is hard.",
+											"That sounds good.", "What is your favorite color?", "My favorite food is pizza.", "It's my birthday tomorrow.",
+											"Do you have any questions for me?", "I feared the worst.", "I am tired of studying.",
+											"You are a very strange robot.", "Is he coming to the party?", "I want to travel the world.",
+											"I want a new bicycle.", "Can you help me with my homework?", "I think you like me.", "You never listen to me.",
+											"I'm sure they're right, but it's late and I can't stay.", "We've been waiting and you won't answer.",
+											"They'd go if she'll drive, but he ain't ready.", "Sometimes the weather changes without warning.",
+											"I\u2019m sure you\u2019re right \u2014 it\u2019s a na\u00efve caf\u00e9 \uD83D\uDE42",
+											"", "remember", "my bike", "it is red and fast", "recall", "my bike", "recall", "my car",
+											"delete", "my bike", "let's play a game", "50", "25", "75", "12", "88"};
+	private static final String[] GRAMMAR_CORPUS = {"Are you going to eat that?", "I'm sure they're right, but it's late and I can't stay.",
+													"You told me that I was wrong.", "Could they have known?", "Where is the station?",
+													"You\u2019re sure I\u2019m right \u2014 it\u2019s a na\u00efve caf\u00e9 \uD83D\uDE42"};
+	// The JIT compiles a method fully after about 10,000 calls, so the time per statement can't be steady before that
+	private static final int PASSES_PER_ROUND = 20, MIN_ROUNDS = 10, STEADY_ROUNDS = 3;
+	private static final double STEADY_SPREAD = 1.1, STEADY_COMPILATION = 0.01;
+
+	private static volatile int sink;
+
+	private final long firstResponseMillis, steadyMillis, nanosPerStatement;
+	private final int rounds;
+	private final boolean steady;
+
+	/**
+	 * Creates the report of a warm-up.
+	 *
+	 * @param firstResponseMillis	 the time from the start of the JVM to the first response
+	 * @param steadyMillis			 the time from the start of the JVM to the end of the warm-up
+	 * @param nanosPerStatement		 the time per statement of the last round
+	 * @param rounds				 the number of rounds of the corpus
+	 * @param steady				 whether the responses became steady before the time was up
+	 * @version 2026.10.18
+	 */
+	private Warmup(long firstResponseMillis, long steadyMillis, long nanosPerStatement, int rounds, boolean steady)
+	{
+		this.firstResponseMillis = firstResponseMillis;
+		this.steadyMillis = steadyMillis;
+		this.nanosPerStatement = nanosPerStatement;
+		this.rounds = rounds;
+		this.steady = steady;
+	}
+
+	/**
+	 * Warms up the process and prints the report, so that a training run for an AppCDS archive loads every class a worker needs.
+	 *
+	 * @param args		 optionally, the most milliseconds to spend warming up
+	 * @version 2026.10.18
+	 */
+	public static void main(String[] args)
+	{
+		System.out.println(run(args.length > 0 ? Long.parseLong(args[0]) : 5000));
+	}
+
+	/**
+	 * Runs the corpus in rounds until the time per statement is steady or the time is up, then resets the metrics
+	 * of <code>Magpie</code>, so that they only count real traffic. Rules set before the warm-up are the ones warmed up.
+	 *
+	 * @param maxMillis		 the most milliseconds to spend warming up
+	 * @return				 the report of the warm-up
+	 * @version 2026.10.18
+	 */
+	public static Warmup run(long maxMillis)
+	{
+		long deadline = System.nanoTime() + maxMillis * 1000000L;
+		sink = new Magpie(new MemoryStore(), null).getResponse(CORPUS[0]).length();
+		long firstResponse = uptimeMillis();
+		long[] recent = new long[STEADY_ROUNDS];
+		int rounds = 0;
+		boolean steady;
+		CompilationMXBean jit = ManagementFactory.getCompilationMXBean();
+		boolean jitTimed = jit != null && jit.isCompilationTimeMonitoringSupported();
+
+		// At least one round is run, however little time there is
+		do
+		{
+			long start = System.nanoTime();
+			long compilingBefore = jitTimed ? jit.getTotalCompilationTime() : 0;
+			int hash = 0;
+
+			for(int pass = 0; pass < PASSES_PER_ROUND; pass++)
+			{
+				hash += pass();
+			}
+
+			long elapsed = System.nanoTime() - start;
+			long compiling = jitTimed ? jit.getTotalCompilationTime() - compilingBefore : 0;
+			recent[rounds % STEADY_ROUNDS] = elapsed / (PASSES_PER_ROUND * (CORPUS.length + GRAMMAR_CORPUS.length));
+			sink = hash;
+			rounds++;
+
+			// The JIT compiles on its own threads, so a round can look steady while it is still at work
+			steady = rounds >= MIN_ROUNDS && isSteady(recent) && compiling * 1000000L <= elapsed * STEADY_COMPILATION;
+		}
+		while(!steady && System.nanoTime() - deadline < 0);
+
+		Magpie.getMetrics().reset();
+		return new Warmup(firstResponse, uptimeMillis(), recent[(rounds - 1) % STEADY_ROUNDS], rounds, steady);
+	}
+
+	/**
+	 * Get the time from the start of the JVM to the first response of the warm-up.
+	 *
+	 * @return			 the time to first response, in milliseconds
+	 * @version 2026.10.18
+	 */
+	public long getFirstResponseMillis()
+	{
+		return firstResponseMillis;
+	}
+
+	/**
+	 * Get the time from the start of the JVM to the end of the warm-up.
+	 *
+	 * @return			 the time to steady state, in milliseconds
+	 * @version 2026.10.18
+	 */
+	public long getSteadyStateMillis()
+	{
+		return steadyMillis;
+	}
+
+	/**
+	 * Returns whether the responses became steady before the time for the warm-up was up.
+	 *
+	 * @return			 whether the process is warm
+	 * @version 2026.10.18
+	 */
+	public boolean isSteady()
+	{
+		return steady;
+	}
+
+	/**
+	 * Describes the warm-up in one line.
+	 *
+	 * @return			 the description
+	 * @version 2026.10.18
+	 */
+	public String toString()
+	{
+		return "First response after " + firstResponseMillis + " ms, " + (steady ? "steady" : "still not steady") + " after " + steadyMillis
+			   + " ms (" + rounds + " rounds, " + nanosPerStatement + " ns per statement)";
+	}
+
+	/**
+	 * Runs the corpus once, on new <code>Magpie</code>s with and without a cache, and the <code>Grammar</code> queries on their own.
+	 *
+	 * @return			 a value derived from the results, so the JIT can't remove the work
+	 * @version 2026.10.18
+	 */
+	private static int pass()
+	{
+		int hash = 0;
+		Magpie magpie = new Magpie(new MemoryStore(), null);
+		Magpie cached = new Magpie(new MemoryStore(), new ResponseCache(CORPUS.length));
+
+		for(String statement : CORPUS)
+		{
+			hash += magpie.getResponse(statement).length() + cached.getResponse(statement).length();
+		}
+
+		for(String statement : GRAMMAR_CORPUS)
+		{
+			hash += Grammar.isQuestion(statement) ? 1 : 0;
+			hash += Grammar.removeContractions(statement).length();
+			hash += Grammar.invertPointOfView(statement).length();
+			hash += Grammar.wordAfter(statement, "you").length() + Grammar.wordBefore(statement, "you").length();
+		}
+
+		try
+		{
+			ByteArrayOutputStream state = new ByteArrayOutputStream();
+			magpie.writeState(new DataOutputStream(state));
+			hash += Magpie.readState(new DataInputStream(new ByteArrayInputStream(state.toByteArray())), new MemoryStore(), null).isInDialog() ? 1 : 0;
+		}
+		catch(IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+
+		return hash;
+	}
+
+	/**
+	 * Determines whether the times per statement of the last rounds are within a small spread of each other.
+	 *
+	 * @param recent	 the times per statement of the last rounds
+	 * @return			 whether the slowest round took at most <code>STEADY_SPREAD</code> times as long as the fastest
+	 * @version 2026.10.18
+	 */
+	private static boolean isSteady(long[] recent)
+	{
+		long fastest = Long.MAX_VALUE, slowest = 0;
+
+		for(long nanos : recent)
+		{
+			fastest = Math.min(fastest, nanos);
+			slowest = Math.max(slowest, nanos);
+		}
+
+		return slowest <= fastest * STEADY_SPREAD;
+	}
+
+	/**
+	 * Get the time since the JVM started.
+	 *
+	 * @return			 the uptime, in milliseconds
+	 * @version 2026.10.18
+	 */
+	private static long uptimeMillis()
+	{
+		return ManagementFactory.getRuntimeMXBean().getUptime();
+	}
+}
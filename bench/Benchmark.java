@@ -0,0 +1,179 @@
+import java.lang.management.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * A small benchmark harness that measures the throughput and allocation rate of an operation over a corpus of statements.
+ * Each benchmark is warmed up, then measured over several timed iterations; allocation is read from the
+ * <code>com.sun.management.ThreadMXBean</code> of the benchmark thread and garbage collection from the collector beans.
+ *
+ * @author	Thanasi Bakis
+ */
+public class Benchmark
+{
+	/**
+	 * An operation to benchmark, run once per statement of the corpus.
+	 */
+	public interface Operation
+	{
+		/**
+		 * Runs the operation on one statement.
+		 *
+		 * @param statement	 a statement from the corpus
+		 * @return			 a value derived from the result, such as its length, which is consumed so the JIT can't remove the work
+		 */
+		int run(String statement);
+	}
+
+	private static volatile int sink;
+
+	private final String[] corpus;
+	private final int warmupIterations, measurementIterations;
+	private final long iterationNanos;
+
+	/**
+	 * Creates a harness over a corpus of statements.
+	 *
+	 * @param corpus					 the statements to run each operation on
+	 * @param warmupIterations			 the number of unmeasured iterations
+	 * @param measurementIterations		 the number of measured iterations
+	 * @param iterationMillis			 the length of each iteration
+	 * @version 2026.10.18
+	 */
+	public Benchmark(List<String> corpus, int warmupIterations, int measurementIterations, long iterationMillis)
+	{
+		this.corpus = corpus.toArray(new String[0]);
+		this.warmupIterations = warmupIterations;
+		this.measurementIterations = measurementIterations;
+		this.iterationNanos = iterationMillis * 1000000L;
+	}
+
+	/**
+	 * Reads a corpus of statements, one per line. Blank lines and lines starting with '#' are skipped.
+	 *
+	 * @param path		 the corpus file
+	 * @return			 the statements in the file
+	 * @version 2026.10.18
+	 */
+	public static List<String> readCorpus(Path path) throws java.io.IOException
+	{
+		List<String> statements = new ArrayList<String>();
+
+		for(String line : Files.readAllLines(path, StandardCharsets.UTF_8))
+		{
+			if(line.trim().length() > 0 && !line.startsWith("#"))
+			{
+				statements.add(line);
+			}
+		}
+
+		return statements;
+	}
+
+	/**
+	 * Prints the header of the result table.
+	 *
+	 * @version 2026.10.18
+	 */
+	public static void printHeader()
+	{
+		System.out.printf("%-32s %14s %12s %14s %10s %10s%n", "Benchmark", "ops/s", "error", "alloc B/op", "gc count", "gc ms");
+	}
+
+	/**
+	 * Benchmarks an operation and prints one row of results.
+	 *
+	 * @param name			 the name of the benchmark
+	 * @param operation		 the operation to run on every statement of the corpus
+	 * @return				 the mean throughput, in operations per second
+	 * @version 2026.10.18
+	 */
+	public double run(String name, Operation operation)
+	{
+		for(int i = 0; i < warmupIterations; i++)
+		{
+			iteration(operation);
+		}
+
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long[] gcBefore = gcTotals();
+		long bytesBefore = threads.getCurrentThreadAllocatedBytes();
+		double[] scores = new double[measurementIterations];
+		long operations = 0;
+
+		for(int i = 0; i < measurementIterations; i++)
+		{
+			long start = System.nanoTime();
+			long count = iteration(operation);
+			scores[i] = count * 1e9 / (System.nanoTime() - start);
+			operations += count;
+		}
+
+		long bytesPerOperation = (threads.getCurrentThreadAllocatedBytes() - bytesBefore) / Math.max(operations, 1);
+		long[] gcAfter = gcTotals();
+		double mean = 0, variance = 0;
+
+		for(double score : scores)
+		{
+			mean += score / scores.length;
+		}
+
+		for(double score : scores)
+		{
+			variance += (score - mean) * (score - mean) / Math.max(scores.length - 1, 1);
+		}
+
+		// A 99.9% confidence interval, using the normal approximation
+		double error = 3.29 * Math.sqrt(variance / scores.length);
+		System.out.printf("%-32s %14.1f %12.1f %14d %10d %10d%n", name, mean, error, bytesPerOperation, gcAfter[0] - gcBefore[0], gcAfter[1] - gcBefore[1]);
+
+		return mean;
+	}
+
+	/**
+	 * Runs an operation over the corpus, repeatedly, until the iteration time is up.
+	 *
+	 * @param operation		 the operation to run
+	 * @return				 the number of operations run
+	 * @version 2026.10.18
+	 */
+	private long iteration(Operation operation)
+	{
+		long deadline = System.nanoTime() + iterationNanos;
+		long count = 0;
+		int hash = 0;
+
+		while(System.nanoTime() < deadline)
+		{
+			for(String statement : corpus)
+			{
+				hash += operation.run(statement);
+			}
+
+			count += corpus.length;
+		}
+
+		sink = hash;
+		return count;
+	}
+
+	/**
+	 * Sums the collection counts and times of every garbage collector.
+	 *
+	 * @return			 the total collection count and the total collection time in milliseconds
+	 * @version 2026.10.18
+	 */
+	private static long[] gcTotals()
+	{
+		long[] totals = new long[2];
+
+		for(GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans())
+		{
+			totals[0] += Math.max(collector.getCollectionCount(), 0);
+			totals[1] += Math.max(collector.getCollectionTime(), 0);
+		}
+
+		return totals;
+	}
+}
@@ -0,0 +1,588 @@
+import java.lang.management.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Drives <code>Magpie</code> from many threads with a synthetic mix of statements and multi-turn dialogs, for sizing
+ * hardware and for soak runs that catch leaks in session state. Every thread holds its own sessions and replaces each
+ * after a number of turns, so a run keeps creating and dropping sessions the way a server does.
+ * <p>
+ * Run it with <code>java LoadGenerator [options]</code>. The options, all optional, are:
+ *
+ * <pre>
+ * --threads n			 the number of threads sending statements (default: one per processor)
+ * --sessions n			 the number of sessions each thread holds at once (default: 100)
+ * --session-turns n	 the number of turns after which a session is replaced (default: 200)
+ * --duration s			 how long to run, in seconds (default: 60)
+ * --report s			 how often to print a report line, in seconds (default: 10)
+ * --cache n			 the size of a response cache shared by every session (default: 0, no cache)
+ * --mix kind=weight,...	 the weight of each kind of statement: greeting, transform, contraction, memory and long
+ * 						 (default: greeting=2,transform=4,contraction=2,memory=2,long=1)
+ * </pre>
+ *
+ * Every report line covers the turns since the one before, and the last line covers the whole run. The bytes allocated
+ * per turn are read from the <code>com.sun.management.ThreadMXBean</code> of the sending threads, which only allocate
+ * while answering, since every statement is generated before the run starts. The live heap is what the last
+ * garbage collection left in use; if it keeps growing over a soak run, something holds on to the dropped sessions.
+ *
+ * @author	Thanasi Bakis
+ */
+public class LoadGenerator
+{
+	private static final String[] KINDS = {"greeting", "transform", "contraction", "memory", "long"};
+	private static final int GREETING = 0, TRANSFORM = 1, CONTRACTION = 2, MEMORY = 3, LONG = 4;
+	private static final int SCRIPTS_PER_THREAD = 4096, LONG_REPEATS = 25, ITEMS = 5000;
+
+	private static final String[] GREETINGS = {"hi", "Hello there!", "hey magpie", "How are you today?", "What is your name?"},
+								  ADJECTIVES = {"tired", "happy", "busy", "hungry", "bored", "late", "ready", "curious", "strange", "right"},
+								  VERBS = {"sleep", "travel", "read", "cook", "swim", "dance", "study", "win", "leave", "sing"},
+								  NOUNS = {"car", "book", "house", "holiday", "sandwich", "guitar", "bicycle", "puppy", "garden", "phone"},
+								  TRANSFORMS = {"I am %s.", "You are %s.", "Are you %s?", "Is he %s?", "We are %s today.", "They are %s and I am not."},
+								  VERB_TRANSFORMS = {"I want to %s.", "Can you %s?", "Would you %s with me?", "You should %s more.", "I like to %s."},
+								  NOUN_TRANSFORMS = {"I want a %s.", "I want my %s back.", "You need a %s.", "My %s is broken."},
+								  CONTRACTIONS = {"I'm %s.", "You're %s.", "It's %s outside.", "They're %s.", "She's %s.", "We've been %s.", "You'd be %s."},
+								  VERB_CONTRACTIONS = {"I can't %s.", "You won't %s.", "I don't %s.", "I'll %s tomorrow.", "Shouldn't you %s?", "Ain't you going to %s?"};
+
+	/**
+	 * The latencies of the turns of one thread, in buckets of about 6% each: 16 for each power of two of nanoseconds.
+	 * Only the thread that sends the turns records them, and the reporting thread reads them while it does.
+	 */
+	private static final class Histogram
+	{
+		private static final int SUB_BUCKET_BITS = 4, SUB_BUCKETS = 1 << SUB_BUCKET_BITS, BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+		private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+		/**
+		 * Records one latency.
+		 *
+		 * @param nanos		 the latency, in nanoseconds
+		 * @version 2026.10.18
+		 */
+		private void record(long nanos)
+		{
+			int bucket = bucket(Math.max(nanos, 0));
+
+			// Only this thread writes the counts, so an ordered store is enough
+			counts.lazySet(bucket, counts.get(bucket) + 1);
+		}
+
+		/**
+		 * Copies the counts of the histogram as they are now.
+		 *
+		 * @return			 the count of every bucket
+		 * @version 2026.10.18
+		 */
+		private long[] snapshot()
+		{
+			long[] snapshot = new long[BUCKETS];
+
+			for(int i = 0; i < BUCKETS; i++)
+			{
+				snapshot[i] = counts.get(i);
+			}
+
+			return snapshot;
+		}
+
+		/**
+		 * Finds the bucket of a latency.
+		 *
+		 * @param nanos		 the latency, in nanoseconds
+		 * @return			 the bucket
+		 * @version 2026.10.18
+		 */
+		private static int bucket(long nanos)
+		{
+			if(nanos < SUB_BUCKETS)
+			{
+				return (int)nanos;
+			}
+
+			int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+			int subBucket = (int)(nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+			return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+		}
+
+		/**
+		 * Finds the highest latency a bucket holds.
+		 *
+		 * @param bucket	 the bucket
+		 * @return			 the highest latency in the bucket, in nanoseconds
+		 * @version 2026.10.18
+		 */
+		private static long highestIn(int bucket)
+		{
+			if(bucket < SUB_BUCKETS)
+			{
+				return bucket;
+			}
+
+			int shift = bucket / SUB_BUCKETS - 1;
+			return ((long)(SUB_BUCKETS + bucket % SUB_BUCKETS) << shift) + (1L << shift) - 1;
+		}
+
+		/**
+		 * Finds a percentile of the latencies counted in some buckets.
+		 *
+		 * @param counts	 the count of every bucket
+		 * @param total		 the sum of the counts
+		 * @param fraction	 the fraction of latencies at or below the percentile, such as 0.99
+		 * @return			 the percentile, in nanoseconds, or 0 if nothing was counted
+		 * @version 2026.10.18
+		 */
+		private static long percentile(long[] counts, long total, double fraction)
+		{
+			long rank = (long)Math.ceil(total * fraction), seen = 0;
+
+			for(int i = 0; i < counts.length; i++)
+			{
+				seen += counts[i];
+
+				if(seen >= rank && seen > 0)
+				{
+					return highestIn(i);
+				}
+			}
+
+			return 0;
+		}
+	}
+
+	/**
+	 * One thread sending turns to its own sessions.
+	 */
+	private static final class Worker extends Thread
+	{
+		private final String[][] scripts;
+		private final Magpie[] sessions;
+		private final int[] turns;
+		private final int sessionTurns;
+		private final ResponseCache cache;
+		private final Histogram latencies = new Histogram();
+		private final Random random;
+		private volatile boolean stopped;
+		private int sink;
+
+		/**
+		 * Creates a thread and generates every statement it will send.
+		 *
+		 * @param index			 the index of the thread, which seeds its statements
+		 * @param sessions		 the number of sessions the thread holds at once
+		 * @param sessionTurns	 the number of turns after which a session is replaced
+		 * @param mix			 the weight of each kind of statement
+		 * @param cache			 the cache shared by every session, or <code>null</code> for no cache
+		 * @version 2026.10.18
+		 */
+		private Worker(int index, int sessions, int sessionTurns, int[] mix, ResponseCache cache)
+		{
+			super("load-" + index);
+			setDaemon(true);
+			random = new Random(index);
+			scripts = new String[SCRIPTS_PER_THREAD][];
+			this.sessions = new Magpie[sessions];
+			turns = new int[sessions];
+			this.sessionTurns = sessionTurns;
+			this.cache = cache;
+
+			for(int i = 0; i < scripts.length; i++)
+			{
+				scripts[i] = script(pick(mix, random), random);
+			}
+
+			for(int i = 0; i < sessions; i++)
+			{
+				this.sessions[i] = new Magpie(new MemoryStore(), cache);
+			}
+		}
+
+		/**
+		 * Sends scripts to random sessions until the thread is stopped.
+		 *
+		 * @version 2026.10.18
+		 */
+		public void run()
+		{
+			while(!stopped)
+			{
+				int session = random.nextInt(sessions.length);
+
+				for(String statement : scripts[random.nextInt(scripts.length)])
+				{
+					long start = System.nanoTime();
+					sink += sessions[session].getResponse(statement).length();
+					latencies.record(System.nanoTime() - start);
+				}
+
+				if(++turns[session] >= sessionTurns)
+				{
+					sessions[session] = new Magpie(new MemoryStore(), cache);
+					turns[session] = 0;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Runs the load until the duration is up, printing a report line at every interval.
+	 *
+	 * @param args	 the options
+	 * @version 2026.10.18
+	 */
+	public static void main(String[] args) throws Exception
+	{
+		int threads = Runtime.getRuntime().availableProcessors(), sessions = 100, sessionTurns = 200, cacheSize = 0;
+		long duration = 60, report = 10;
+		int[] mix = parseMix("greeting=2,transform=4,contraction=2,memory=2,long=1");
+
+		for(int i = 0; i + 1 < args.length; i += 2)
+		{
+			switch(args[i])
+			{
+				case "--threads":
+					threads = Integer.parseInt(args[i + 1]);
+					break;
+				case "--sessions":
+					sessions = Integer.parseInt(args[i + 1]);
+					break;
+				case "--session-turns":
+					sessionTurns = Integer.parseInt(args[i + 1]);
+					break;
+				case "--duration":
+					duration = Long.parseLong(args[i + 1]);
+					break;
+				case "--report":
+					report = Long.parseLong(args[i + 1]);
+					break;
+				case "--cache":
+					cacheSize = Integer.parseInt(args[i + 1]);
+					break;
+				case "--mix":
+					mix = parseMix(args[i + 1]);
+					break;
+				default:
+					throw new IllegalArgumentException("Unknown option: " + args[i]);
+			}
+		}
+
+		if(args.length % 2 != 0)
+		{
+			throw new IllegalArgumentException("Missing the value of " + args[args.length - 1]);
+		}
+
+		ResponseCache cache = cacheSize > 0 ? new ResponseCache(cacheSize) : null;
+		Worker[] workers = new Worker[threads];
+		long[] threadIds = new long[threads];
+
+		for(int i = 0; i < threads; i++)
+		{
+			workers[i] = new Worker(i, sessions, sessionTurns, mix, cache);
+			threadIds[i] = workers[i].threadId();
+		}
+
+		System.out.printf("%d threads, %d sessions each, mix %s%n", threads, sessions, describeMix(mix));
+		System.out.printf("%8s %12s %12s %10s %10s %10s %12s %12s%n", "time s", "turns", "turns/s", "p50 us", "p99 us", "p999 us", "alloc B/turn", "live heap MB");
+
+		com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+
+		for(Worker worker : workers)
+		{
+			worker.start();
+		}
+
+		long start = System.nanoTime(), end = start + TimeUnit.SECONDS.toNanos(duration);
+		long[] first = new long[Histogram.BUCKETS], previous = first;
+		long firstAllocated = allocatedBytes(threadBean, threadIds), previousAllocated = firstAllocated;
+		long previousTime = start;
+
+		while(previousTime < end)
+		{
+			long wait = Math.min(TimeUnit.SECONDS.toNanos(report), end - previousTime);
+			TimeUnit.NANOSECONDS.sleep(wait);
+			long now = System.nanoTime();
+			long[] counts = snapshot(workers);
+			long allocated = allocatedBytes(threadBean, threadIds);
+
+			printReport((now - start) / 1e9, counts, previous, now - previousTime, allocated - previousAllocated);
+			previous = counts;
+			previousAllocated = allocated;
+			previousTime = now;
+		}
+
+		for(Worker worker : workers)
+		{
+			worker.stopped = true;
+		}
+
+		for(Worker worker : workers)
+		{
+			worker.join();
+		}
+
+		System.out.println("Whole run:");
+		printReport((previousTime - start) / 1e9, previous, first, previousTime - start, previousAllocated - firstAllocated);
+	}
+
+	/**
+	 * Prints the report line of an interval.
+	 *
+	 * @param time			 the seconds since the run began
+	 * @param counts		 the latency counts at the end of the interval
+	 * @param before		 the latency counts at the start of the interval
+	 * @param nanos			 the length of the interval, in nanoseconds
+	 * @param allocated		 the bytes allocated by the sending threads during the interval
+	 * @version 2026.10.18
+	 */
+	private static void printReport(double time, long[] counts, long[] before, long nanos, long allocated)
+	{
+		long[] interval = new long[counts.length];
+		long turns = 0;
+
+		for(int i = 0; i < counts.length; i++)
+		{
+			interval[i] = counts[i] - before[i];
+			turns += interval[i];
+		}
+
+		System.out.printf("%8.1f %12d %12.1f %10.1f %10.1f %10.1f %12d %12.1f%n", time, turns, turns * 1e9 / nanos,
+						  Histogram.percentile(interval, turns, 0.5) / 1e3, Histogram.percentile(interval, turns, 0.99) / 1e3,
+						  Histogram.percentile(interval, turns, 0.999) / 1e3, allocated / Math.max(turns, 1), liveHeap() / 1048576.0);
+	}
+
+	/**
+	 * Adds up the latency counts of every thread.
+	 *
+	 * @param workers		 the threads
+	 * @return				 the count of every bucket
+	 * @version 2026.10.18
+	 */
+	private static long[] snapshot(Worker[] workers)
+	{
+		long[] counts = new long[Histogram.BUCKETS];
+
+		for(Worker worker : workers)
+		{
+			long[] snapshot = worker.latencies.snapshot();
+
+			for(int i = 0; i < counts.length; i++)
+			{
+				counts[i] += snapshot[i];
+			}
+		}
+
+		return counts;
+	}
+
+	/**
+	 * Adds up the bytes allocated by some threads since they started.
+	 *
+	 * @param threadBean	 the bean that measures allocation
+	 * @param threadIds		 the ids of the threads
+	 * @return				 the bytes allocated, counting threads that haven't started or have ended as 0
+	 * @version 2026.10.18
+	 */
+	private static long allocatedBytes(com.sun.management.ThreadMXBean threadBean, long[] threadIds)
+	{
+		long total = 0;
+
+		for(long bytes : threadBean.getThreadAllocatedBytes(threadIds))
+		{
+			total += Math.max(bytes, 0);
+		}
+
+		return total;
+	}
+
+	/**
+	 * Measures the heap left in use by the last garbage collection of each heap pool, without collecting.
+	 *
+	 * @return			 the live heap in bytes
+	 * @version 2026.10.18
+	 */
+	private static long liveHeap()
+	{
+		long live = 0;
+
+		for(MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+		{
+			MemoryUsage usage = pool.getType() == MemoryType.HEAP ? pool.getCollectionUsage() : null;
+
+			if(usage != null)
+			{
+				live += usage.getUsed();
+			}
+		}
+
+		return live;
+	}
+
+	/**
+	 * Generates the statements of one script, which are sent to one session in a row.
+	 *
+	 * @param kind		 the kind of statements
+	 * @param random	 where to pick the words from
+	 * @return			 the statements
+	 * @version 2026.10.18
+	 */
+	private static String[] script(int kind, Random random)
+	{
+		switch(kind)
+		{
+			case GREETING:
+				return new String[] {pick(GREETINGS, random)};
+			case TRANSFORM:
+				return new String[] {transform(random)};
+			case CONTRACTION:
+				return new String[] {random.nextBoolean() ? String.format(pick(CONTRACTIONS, random), pick(ADJECTIVES, random))
+														  : String.format(pick(VERB_CONTRACTIONS, random), pick(VERBS, random))};
+			case MEMORY:
+				// Items are shared between sessions, so recalls and deletes often find what another turn of the session remembered
+				String item = pick(NOUNS, random) + " " + random.nextInt(ITEMS);
+
+				switch(random.nextInt(4))
+				{
+					case 0:
+						return new String[] {"recall", item};
+					case 1:
+						return new String[] {"delete", item};
+					default:
+						return new String[] {"remember", item, "it is " + pick(ADJECTIVES, random) + " and " + random.nextInt(1000) + " years old"};
+				}
+			case LONG:
+				StringJoiner statement = new StringJoiner(" ");
+
+				for(int i = 0; i < LONG_REPEATS; i++)
+				{
+					statement.add(random.nextBoolean() ? transform(random) : pick(GREETINGS, random));
+				}
+
+				return new String[] {statement.toString()};
+			default:
+				throw new IllegalArgumentException("Unknown kind of statement: " + kind);
+		}
+	}
+
+	/**
+	 * Generates a statement that Magpie answers by transforming it.
+	 *
+	 * @param random	 where to pick the words from
+	 * @return			 the statement
+	 * @version 2026.10.18
+	 */
+	private static String transform(Random random)
+	{
+		switch(random.nextInt(3))
+		{
+			case 0:
+				return String.format(pick(TRANSFORMS, random), pick(ADJECTIVES, random));
+			case 1:
+				return String.format(pick(VERB_TRANSFORMS, random), pick(VERBS, random));
+			default:
+				return String.format(pick(NOUN_TRANSFORMS, random), pick(NOUNS, random));
+		}
+	}
+
+	/**
+	 * Picks a random element of an array.
+	 *
+	 * @param choices	 the array
+	 * @param random	 the source of randomness
+	 * @return			 the element
+	 * @version 2026.10.18
+	 */
+	private static String pick(String[] choices, Random random)
+	{
+		return choices[random.nextInt(choices.length)];
+	}
+
+	/**
+	 * Picks a random kind of statement by weight.
+	 *
+	 * @param weights	 the weight of each kind
+	 * @param random	 the source of randomness
+	 * @return			 the kind
+	 * @version 2026.10.18
+	 */
+	private static int pick(int[] weights, Random random)
+	{
+		int total = 0;
+
+		for(int weight : weights)
+		{
+			total += weight;
+		}
+
+		int choice = random.nextInt(total);
+
+		for(int kind = 0; ; kind++)
+		{
+			choice -= weights[kind];
+
+			if(choice < 0)
+			{
+				return kind;
+			}
+		}
+	}
+
+	/**
+	 * Parses the weights of the kinds of statements. Kinds that aren't given get a weight of 0.
+	 *
+	 * @param mix		 the weights, as "kind=weight" separated by commas
+	 * @return			 the weight of each kind
+	 * @throws IllegalArgumentException	 if a kind is unknown, a weight is negative, or every weight is 0
+	 * @version 2026.10.18
+	 */
+	private static int[] parseMix(String mix)
+	{
+		int[] weights = new int[KINDS.length];
+		int total = 0;
+
+		for(String part : mix.split(","))
+		{
+			String[] kindAndWeight = part.trim().split("=", 2);
+			int kind = Arrays.asList(KINDS).indexOf(kindAndWeight[0]);
+
+			if(kind < 0 || kindAndWeight.length < 2)
+			{
+				throw new IllegalArgumentException("Expected kind=weight with one of the kinds " + Arrays.toString(KINDS) + ": " + part);
+			}
+
+			weights[kind] = Integer.parseInt(kindAndWeight[1]);
+
+			if(weights[kind] < 0)
+			{
+				throw new IllegalArgumentException("Weights can't be negative: " + part);
+			}
+
+			total += weights[kind];
+		}
+
+		if(total <= 0)
+		{
+			throw new IllegalArgumentException("The mix needs at least one kind with a weight above 0: " + mix);
+		}
+
+		return weights;
+	}
+
+	/**
+	 * Describes the weights of the kinds of statements.
+	 *
+	 * @param weights	 the weight of each kind
+	 * @return			 the weights, as "kind=weight" separated by commas
+	 * @version 2026.10.18
+	 */
+	private static String describeMix(int[] weights)
+	{
+		StringJoiner description = new StringJoiner(",");
+
+		for(int kind = 0; kind < KINDS.length; kind++)
+		{
+			description.add(KINDS[kind] + "=" + weights[kind]);
+		}
+
+		return description.toString();
+	}
+}
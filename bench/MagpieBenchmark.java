@@ -0,0 +1,82 @@
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Benchmarks the hot methods of <code>Grammar</code> and end-to-end responses of <code>Magpie</code> over a corpus of statements.
+ * Run it with <code>java MagpieBenchmark [corpus file] [name filter]</code>; the corpus defaults to <code>bench/statements.txt</code>.
+ * Benchmarks marked "(long)" run on statements made by repeating each statement of the corpus.
+ *
+ * @author	Thanasi Bakis
+ */
+public class MagpieBenchmark
+{
+	private static final int LONG_REPEATS = 25;
+
+	/**
+	 * Runs every benchmark whose name contains the filter.
+	 *
+	 * @param args	 the corpus file and the name filter, both optional
+	 * @version 2026.10.18
+	 */
+	public static void main(String[] args) throws Exception
+	{
+		List<String> corpus = Benchmark.readCorpus(Paths.get(args.length > 0 ? args[0] : "bench/statements.txt"));
+		String filter = args.length > 1 ? args[1] : "";
+		Benchmark benchmark = new Benchmark(corpus, 3, 5, 1000);
+		Benchmark longBenchmark = new Benchmark(repeat(corpus, LONG_REPEATS), 3, 5, 1000);
+		Magpie magpie = new Magpie();
+		Map<String, Benchmark.Operation> operations = new LinkedHashMap<String, Benchmark.Operation>();
+		Map<String, Benchmark.Operation> longOperations = new LinkedHashMap<String, Benchmark.Operation>();
+
+		operations.put("Grammar.findKeyword", statement -> Grammar.findKeyword(statement, "you"));
+		operations.put("Grammar.isQuestion", statement -> Grammar.isQuestion(statement) ? 1 : 0);
+		operations.put("Grammar.removeContractions", statement -> Grammar.removeContractions(statement).length());
+		operations.put("Grammar.invertPointOfView", statement -> Grammar.invertPointOfView(statement).length());
+		operations.put("Grammar.wordAfter", statement -> Grammar.wordAfter(statement, "is").length());
+		operations.put("Magpie.getResponse", statement -> magpie.getResponse(statement).length());
+		Magpie cachedMagpie = new Magpie(new MemoryStore(), new ResponseCache(4096));
+		operations.put("Magpie.getResponse (cached)", statement -> cachedMagpie.getResponse(statement).length());
+
+		longOperations.put("Grammar.isQuestion (long)", statement -> Grammar.isQuestion(statement) ? 1 : 0);
+		longOperations.put("Grammar.invertPointOfView (long)", statement -> Grammar.invertPointOfView(statement).length());
+
+		System.out.println("Corpus: " + corpus.size() + " statements");
+		Benchmark.printHeader();
+
+		for(Map.Entry<String, Benchmark.Operation> operation : operations.entrySet())
+		{
+			if(operation.getKey().contains(filter))
+			{
+				benchmark.run(operation.getKey(), operation.getValue());
+			}
+		}
+
+		for(Map.Entry<String, Benchmark.Operation> operation : longOperations.entrySet())
+		{
+			if(operation.getKey().contains(filter))
+			{
+				longBenchmark.run(operation.getKey(), operation.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Makes long statements by repeating each statement of a corpus.
+	 *
+	 * @param corpus	 the statements to repeat
+	 * @param repeats	 how many times to repeat each statement
+	 * @return			 the long statements
+	 * @version 2026.10.18
+	 */
+	private static List<String> repeat(List<String> corpus, int repeats)
+	{
+		List<String> statements = new ArrayList<String>();
+
+		for(String statement : corpus)
+		{
+			statements.add(String.join(" ", Collections.nCopies(repeats, statement)));
+		}
+
+		return statements;
+	}
+}
@@ -0,0 +1,111 @@
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Measures the throughput and latency of a <code>SessionManager</code> hosting many concurrent sessions.
+ * Run it with <code>java SessionBenchmark [corpus file] [session counts...]</code>; by default it runs 1k, 10k and 100k sessions.
+ *
+ * @author	Thanasi Bakis
+ */
+public class SessionBenchmark
+{
+	private static final int TURNS_PER_SESSION = 5, MIN_TURNS = 200000, MAX_IN_FLIGHT = 4096;
+
+	/**
+	 * Runs the benchmark for each session count.
+	 *
+	 * @param args	 the corpus file, followed by the session counts
+	 * @version 2026.10.18
+	 */
+	public static void main(String[] args) throws Exception
+	{
+		String[] corpus = Benchmark.readCorpus(Paths.get(args.length > 0 ? args[0] : "bench/statements.txt")).toArray(new String[0]);
+		int[] sessionCounts = {1000, 10000, 100000};
+
+		if(args.length > 1)
+		{
+			sessionCounts = new int[args.length - 1];
+
+			for(int i = 1; i < args.length; i++)
+			{
+				sessionCounts[i - 1] = Integer.parseInt(args[i]);
+			}
+		}
+
+		// Warm up the JIT before the first measurement
+		run(1000, corpus, false);
+		System.out.printf("%10s %10s %14s %10s %10s %10s %14s%n", "sessions", "turns", "turns/s", "p50 us", "p99 us", "p999 us", "heap B/session");
+
+		for(int sessionCount : sessionCounts)
+		{
+			run(sessionCount, corpus, true);
+		}
+	}
+
+	/**
+	 * Creates the sessions, then sends turns to random sessions with a bounded number of turns in flight.
+	 *
+	 * @param sessionCount	 the number of sessions
+	 * @param corpus		 the statements to send
+	 * @param print			 whether to print the results
+	 * @version 2026.10.18
+	 */
+	private static void run(int sessionCount, String[] corpus, boolean print) throws InterruptedException
+	{
+		int turns = Math.max(sessionCount * TURNS_PER_SESSION, MIN_TURNS);
+		long[] latencies = new long[turns];
+		Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT);
+		CountDownLatch done = new CountDownLatch(turns);
+		Random random = new Random(sessionCount);
+
+		try(SessionManager manager = new SessionManager())
+		{
+			long heapBefore = usedHeap();
+
+			for(int i = 0; i < sessionCount; i++)
+			{
+				manager.create("session-" + i);
+			}
+
+			long heapPerSession = (usedHeap() - heapBefore) / sessionCount;
+			long start = System.nanoTime();
+
+			for(int i = 0; i < turns; i++)
+			{
+				int turn = i;
+				long submitted = System.nanoTime();
+				inFlight.acquire();
+				manager.respond("session-" + random.nextInt(sessionCount), corpus[i % corpus.length]).whenComplete((response, error) ->
+				{
+					latencies[turn] = System.nanoTime() - submitted;
+					inFlight.release();
+					done.countDown();
+				});
+			}
+
+			done.await();
+			long elapsed = System.nanoTime() - start;
+			Arrays.sort(latencies);
+
+			if(print)
+			{
+				System.out.printf("%10d %10d %14.1f %10d %10d %10d %14d%n", sessionCount, turns, turns * 1e9 / elapsed,
+								  latencies[turns / 2] / 1000, latencies[(int)(turns * 0.99)] / 1000, latencies[(int)(turns * 0.999)] / 1000, heapPerSession);
+			}
+		}
+	}
+
+	/**
+	 * Measures the heap in use after a garbage collection.
+	 *
+	 * @return			 the used heap in bytes
+	 * @version 2026.10.18
+	 */
+	private static long usedHeap()
+	{
+		System.gc();
+		Runtime runtime = Runtime.getRuntime();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
@@ -0,0 +1,132 @@
+/**
+ * Checks how <code>Grammar.removeContractions</code> expands contractions, and that <code>Magpie</code> answers every statement
+ * made of a contraction and a few words, including those where "'d" and "'ll" expand to a modal auxiliary with nothing after it.
+ * <p>
+ * Run it with <code>java ContractionTest</code>; it exits with an error if a check fails.
+ *
+ * @author	Thanasi Bakis
+ */
+public class ContractionTest
+{
+	private static final String[] CONTRACTIONS = {"I'll", "you'll", "he'll", "it'll", "we'll", "they'll", "I'd", "you'd", "she'd", "who'd",
+												  "we'd", "they'd", "I'm", "you're", "it's", "we've", "won't", "can't", "shan't", "ain't", "isn't"};
+	private static final String[] ENDINGS = {"", " that", " who", " have", " you", " can", " would she", " help me"};
+	private static final String[] PUNCTUATION = {"", "?", ".", "!", ","};
+
+	/**
+	 * Runs every check.
+	 *
+	 * @param args		 unused
+	 * @version 2026.10.18
+	 */
+	public static void main(String[] args)
+	{
+		expandsContractions();
+		answersEveryContraction();
+		answersModalAuxiliaryQuestions();
+		System.out.println("ContractionTest passed");
+	}
+
+	/**
+	 * Checks the expansion of each kind of contraction.
+	 *
+	 * @version 2026.10.18
+	 */
+	private static void expandsContractions()
+	{
+		expand("She'd have?", "She would have?");
+		expand("I'll that?", "I will that?");
+		expand("They're here and it's fine", "They are here and it is fine");
+		expand("I'm sure we've met", "I am sure we have met");
+		expand("I won't, you can't and we shan't", "I will not, you cannot and we shall not");
+		expand("It isn't", "It is not");
+	}
+
+	/**
+	 * Answers every statement made of a contraction, an ending and a punctuation mark, which must not throw.
+	 *
+	 * @version 2026.10.18
+	 */
+	private static void answersEveryContraction()
+	{
+		Magpie magpie = new Magpie();
+
+		for(String contraction : CONTRACTIONS)
+		{
+			for(String ending : ENDINGS)
+			{
+				for(String punctuation : PUNCTUATION)
+				{
+					String statement = contraction + ending + punctuation;
+					String response;
+
+					try
+					{
+						response = magpie.getResponse(statement);
+					}
+					catch(RuntimeException e)
+					{
+						throw new AssertionError("\"" + statement + "\" threw " + e, e);
+					}
+
+					check(response != null && !response.isEmpty(), "\"" + statement + "\" is answered");
+				}
+			}
+		}
+	}
+
+	/**
+	 * Checks the answers to questions with a modal auxiliary, where the subject is in the middle, at the end, or missing.
+	 *
+	 * @version 2026.10.18
+	 */
+	private static void answersModalAuxiliaryQuestions()
+	{
+		respond("Can you help me?", "I don't know, can I help you?");
+		respond("Will you go home?", "I don't know, will I go home?");
+		respond("I'll that?", "I don't know, will that?");
+		respond("Would you?", "I don't know, would I?");
+		respond("You can?", "I don't know, can?");
+	}
+
+	/**
+	 * Checks the expansion of the contractions of a statement.
+	 *
+	 * @param statement		 the statement
+	 * @param expected		 the statement with its contractions expanded
+	 * @version 2026.10.18
+	 */
+	private static void expand(String statement, String expected)
+	{
+		String expanded = Grammar.removeContractions(statement);
+		check(expected.equals(expanded), "\"" + statement + "\" expands to \"" + expected + "\", not \"" + expanded + "\"");
+	}
+
+	/**
+	 * Checks the response of a new <code>Magpie</code> to a statement.
+	 *
+	 * @param statement		 the statement
+	 * @param expected		 the response
+	 * @version 2026.10.18
+	 */
+	private static void respond(String statement, String expected)
+	{
+		String response = new Magpie().getResponse(statement);
+		check(expected.equals(response), "\"" + statement + "\" is answered \"" + expected + "\", not \"" + response + "\"");
+	}
+
+	/**
+	 * Fails the test if a condition doesn't hold.
+	 *
+	 * @param condition		 the condition
+	 * @param what			 what the condition checks
+	 * @version 2026.10.18
+	 */
+	private static void check(boolean condition, String what)
+	{
+		if(!condition)
+		{
+			throw new AssertionError("Expected: " + what);
+		}
+	}
+}
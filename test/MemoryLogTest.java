@@ -0,0 +1,246 @@
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Checks how <code>MemoryLog</code> recovers from bad bytes: a partly written last record is cut off quietly, damage anywhere else
+ * is copied aside before the log is cut, a file too short to be a log is rejected, and a compaction that fails leaves the log working.
+ * <p>
+ * Run it with <code>java MemoryLogTest</code>; it exits with an error if a check fails.
+ *
+ * @author	Thanasi Bakis
+ */
+public class MemoryLogTest
+{
+	private static final int HEADER = 8, RECORD_HEADER = 13;
+
+	/**
+	 * Runs every check in a temporary directory.
+	 *
+	 * @param args			 unused
+	 * @throws IOException	 if the temporary files can't be written
+	 * @version 2026.10.18
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		Path directory = Files.createTempDirectory("memory-log-test");
+		cutsPartlyWrittenRecords(directory);
+		keepsDamagedLogs(directory);
+		rejectsShortFiles(directory);
+		survivesFailedCompaction(directory);
+		System.out.println("MemoryLogTest passed");
+	}
+
+	/**
+	 * Cuts off a last record that is missing its end, and one that fails its checksum but ends at the end of the file.
+	 *
+	 * @param directory		 where to write the logs
+	 * @throws IOException	 if a log can't be written
+	 * @version 2026.10.18
+	 */
+	private static void cutsPartlyWrittenRecords(Path directory) throws IOException
+	{
+		Path torn = write(directory.resolve("torn.log"), 3);
+		Files.write(torn, Arrays.copyOf(Files.readAllBytes(torn), (int) Files.size(torn) - 3));
+		check(replay(torn).size() == 2, "a torn last record is cut off");
+		check(damagedCopies(directory, "torn.log") == 0, "a torn last record is not copied aside");
+
+		Path corrupt = write(directory.resolve("corrupt-tail.log"), 3);
+		byte[] bytes = Files.readAllBytes(corrupt);
+		bytes[bytes.length - 1] ^= 1;
+		Files.write(corrupt, bytes);
+		check(replay(corrupt).size() == 2, "a last record that fails its checksum is cut off");
+		check(damagedCopies(directory, "corrupt-tail.log") == 0, "a last record that fails its checksum is not copied aside");
+	}
+
+	/**
+	 * Copies a log aside when its first record fails its checksum, or has a length that runs past the end of the file,
+	 * with good records after it.
+	 *
+	 * @param directory		 where to write the logs
+	 * @throws IOException	 if a log can't be written
+	 * @version 2026.10.18
+	 */
+	private static void keepsDamagedLogs(Path directory) throws IOException
+	{
+		Path corrupt = write(directory.resolve("corrupt-middle.log"), 3);
+		byte[] bytes = Files.readAllBytes(corrupt);
+		bytes[HEADER + RECORD_HEADER] ^= 1;
+		Files.write(corrupt, bytes);
+		check(replay(corrupt).isEmpty(), "the records from a damaged one on are cut off");
+		check(damagedCopies(directory, "corrupt-middle.log") == 1, "a log damaged in the middle is copied aside");
+
+		Path length = write(directory.resolve("bad-length.log"), 3);
+		bytes = Files.readAllBytes(length);
+		bytes[HEADER + 5] = 0x10;
+		Files.write(length, bytes);
+		check(replay(length).isEmpty(), "the records from one with a bad length on are cut off");
+		check(damagedCopies(directory, "bad-length.log") == 1, "a log with a bad length in the middle is copied aside");
+	}
+
+	/**
+	 * Rejects a file shorter than the header of a log, instead of writing a header over it.
+	 *
+	 * @param directory		 where to write the file
+	 * @throws IOException	 if the file can't be written
+	 * @version 2026.10.18
+	 */
+	private static void rejectsShortFiles(Path directory) throws IOException
+	{
+		Path file = Files.write(directory.resolve("short.log"), new byte[] {1, 2, 3});
+
+		try
+		{
+			replay(file);
+			check(false, "a 3 byte file is rejected");
+		}
+		catch(IOException e)
+		{
+			check(Files.size(file) == 3, "a rejected file is left as it was");
+		}
+	}
+
+	/**
+	 * Keeps remembering through a memory whose log can't be compacted, and remembers it all after a restart.
+	 *
+	 * @param directory		 where to write the log
+	 * @throws IOException	 if the log can't be written
+	 * @version 2026.10.18
+	 */
+	private static void survivesFailedCompaction(Path directory) throws IOException
+	{
+		Path file = directory.resolve("compaction.log");
+
+		// A directory in the way of the compacted log makes every compaction fail
+		Files.createDirectory(directory.resolve("compaction.log.compact"));
+		PrintStream err = System.err;
+		System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+
+		try(MemoryStore memory = new MemoryStore(file))
+		{
+			for(int i = 0; i < 3000; i++)
+			{
+				memory.remember("item", "info " + i);
+			}
+		}
+		finally
+		{
+			System.setErr(err);
+		}
+
+		try(MemoryStore memory = new MemoryStore(file))
+		{
+			check("info 2999".equals(memory.recall("item")), "the last information is remembered after failed compactions");
+		}
+	}
+
+	/**
+	 * Writes a new log of remembered items.
+	 *
+	 * @param file			 the log file
+	 * @param items			 the number of items
+	 * @return				 the log file
+	 * @throws IOException	 if the log can't be written
+	 * @version 2026.10.18
+	 */
+	private static Path write(Path file, int items) throws IOException
+	{
+		try(MemoryLog log = new MemoryLog(file, replay(new ArrayList<String>())))
+		{
+			for(int i = 0; i < items; i++)
+			{
+				log.remember("item" + i, "info" + i);
+			}
+		}
+
+		return file;
+	}
+
+	/**
+	 * Opens a log, with its damage reports hidden, and lists the items it replays.
+	 *
+	 * @param file			 the log file
+	 * @return				 the items remembered in the log
+	 * @throws IOException	 if the log can't be opened
+	 * @version 2026.10.18
+	 */
+	private static List<String> replay(Path file) throws IOException
+	{
+		List<String> items = new ArrayList<String>();
+		PrintStream err = System.err;
+		System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+
+		try
+		{
+			new MemoryLog(file, replay(items)).close();
+		}
+		finally
+		{
+			System.setErr(err);
+		}
+
+		return items;
+	}
+
+	/**
+	 * Creates a replay that lists the items remembered.
+	 *
+	 * @param items			 receives the items
+	 * @return				 the replay
+	 * @version 2026.10.18
+	 */
+	private static MemoryLog.Replay replay(List<String> items)
+	{
+		return new MemoryLog.Replay()
+		{
+			public void remember(String item, String info)
+			{
+				items.add(item);
+			}
+
+			public void forget(String item)
+			{
+				items.remove(item);
+			}
+		};
+	}
+
+	/**
+	 * Counts the copies of a damaged log kept beside it.
+	 *
+	 * @param directory		 the directory of the log
+	 * @param name			 the name of the log file
+	 * @return				 the number of copies
+	 * @throws IOException	 if the directory can't be listed
+	 * @version 2026.10.18
+	 */
+	private static long damagedCopies(Path directory, String name) throws IOException
+	{
+		try(DirectoryStream<Path> copies = Files.newDirectoryStream(directory, name + ".damaged-*"))
+		{
+			long count = 0;
+
+			for(Path copy : copies)
+			{
+				count++;
+			}
+
+			return count;
+		}
+	}
+
+	/**
+	 * Fails the test if a condition doesn't hold.
+	 *
+	 * @param condition		 the condition
+	 * @param what			 what the condition checks
+	 * @version 2026.10.18
+	 */
+	private static void check(boolean condition, String what)
+	{
+		if(!condition)
+		{
+			throw new AssertionError("Expected: " + what);
+		}
+	}
+}
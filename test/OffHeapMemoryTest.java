@@ -0,0 +1,117 @@
+/**
+ * Checks <code>OffHeapMemory</code> where its segments fill up: a segment filled to its last byte, and items whose sizes change
+ * over time, which must not make the segments grow past <code>getMaxSegmentBytes</code>.
+ * <p>
+ * Run it with <code>java -XX:MaxDirectMemorySize=1g OffHeapMemoryTest</code>; it exits with an error if a check fails.
+ *
+ * @author	Thanasi Bakis
+ */
+public class OffHeapMemoryTest
+{
+	private static final int HEADER = 56;
+
+	/**
+	 * Runs every check.
+	 *
+	 * @param args		 unused
+	 * @version 2026.10.18
+	 */
+	public static void main(String[] args)
+	{
+		fillsSegmentExactly();
+		staysBoundedWhenSizesChange();
+		System.out.println("OffHeapMemoryTest passed");
+	}
+
+	/**
+	 * Remembers 4096-byte records, which fill the second segment to its last byte at the 32767th item, then reads them all back.
+	 *
+	 * @version 2026.10.18
+	 */
+	private static void fillsSegmentExactly()
+	{
+		OffHeapMemory memory = new OffHeapMemory(512L << 20, 512L << 20, 0);
+		int session = memory.openSession();
+		String info = "x".repeat(4096 - HEADER - item(0).length());
+
+		for(int i = 0; i < 40000; i++)
+		{
+			memory.remember(session, item(i), info);
+		}
+
+		check(memory.size() == 40000, "40000 items are remembered, not " + memory.size());
+
+		for(int i = 0; i < 40000; i++)
+		{
+			check(info.equals(memory.recall(session, item(i))), "item " + i + " is recalled");
+		}
+	}
+
+	/**
+	 * Fills a 128 MB budget over and over with items of one size after another, and checks after every item that the segments stay
+	 * within <code>getMaxSegmentBytes</code> and that the most recent items of every session are still there.
+	 *
+	 * @version 2026.10.18
+	 */
+	private static void staysBoundedWhenSizesChange()
+	{
+		OffHeapMemory memory = new OffHeapMemory(128L << 20, 128L << 20, 0);
+		int[] sessions = new int[16];
+		long peakItems = 0, peakAllocated = 0;
+
+		for(int s = 0; s < sessions.length; s++)
+		{
+			sessions[s] = memory.openSession();
+		}
+
+		for(int size : new int[] {200, 3000, 20000, 150000, 1000, 70000, 400})
+		{
+			String info = "y".repeat(size - HEADER - item(0).length());
+			int count = (int) (3 * (128L << 20) / size);
+
+			for(int i = 0; i < count; i++)
+			{
+				memory.remember(sessions[i % sessions.length], item(i), info);
+				peakItems = Math.max(peakItems, memory.size());
+				peakAllocated = Math.max(peakAllocated, memory.getAllocatedBytes());
+			}
+
+			for(int i = count - sessions.length; i < count; i++)
+			{
+				check(info.equals(memory.recall(sessions[i % sessions.length], item(i))), "item " + i + " of " + size + " bytes is recalled");
+			}
+		}
+
+		// The hash table holds a power of two entries of 8 bytes, grown when it is three quarters full
+		long indexBytes = 8 * Math.max(1 << 16, (peakItems + 1) * 8 / 3);
+		check(peakAllocated <= memory.getMaxSegmentBytes() + indexBytes,
+			  "at most " + (memory.getMaxSegmentBytes() + indexBytes) + " bytes are allocated, not " + peakAllocated);
+	}
+
+	/**
+	 * Get the name of an item, always the same length.
+	 *
+	 * @param i		 the number of the item
+	 * @return		 the name
+	 * @version 2026.10.18
+	 */
+	private static String item(int i)
+	{
+		return String.format("item%07d", i);
+	}
+
+	/**
+	 * Fails the test if a condition doesn't hold.
+	 *
+	 * @param condition		 the condition
+	 * @param what			 what the condition checks
+	 * @version 2026.10.18
+	 */
+	static void check(boolean condition, String what)
+	{
+		if(!condition)
+		{
+			throw new AssertionError("Expected: " + what);
+		}
+	}
+}